@@ -0,0 +1,118 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.MsCatalogApplication;
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import com.raphael.mscatalog.search.ProductSearchIndexLoader;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application without the web layer on a private in-memory H2 database and seeds it with a synthetic
+ * catalog.
+ * <p>
+ * Every product description carries selectivity tags: {@code p10} on 10% of the rows, {@code p100} on 1% and
+ * {@code p1000} on 0.1%, so a search for one of them returns a known fraction of the catalog. Products are spread
+ * evenly over {@value #CATEGORIES} categories, {@value #BRANDS} brands and the {@link #COLORS} of a {@code cor}
+ * attribute.
+ */
+final class BenchmarkCatalog implements AutoCloseable {
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+    static final int CATEGORIES = 20;
+    static final int BRANDS = 50;
+    static final String[] COLORS = {"preto", "branco", "azul", "vermelho", "cinza", "verde", "prata"};
+    private static final String[] WORDS = {
+            "monitor", "teclado", "mouse", "gabinete", "placa", "memoria", "fonte", "cadeira", "headset", "cabo"
+    };
+
+    private final ConfigurableApplicationContext context;
+    private final long[] ids;
+
+    private BenchmarkCatalog(ConfigurableApplicationContext context, long[] ids) {
+        this.context = context;
+        this.ids = ids;
+    }
+
+    static BenchmarkCatalog start(int catalogSize, boolean searchIndex) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MsCatalogApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                        "spring.sql.init.data-locations=optional:classpath:none.sql",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        // The test classpath shadows application.yml, so keep R2DBC off here explicitly.
+                        "spring.autoconfigure.exclude=" + R2dbcAutoConfiguration.class.getName(),
+                        "mscatalog.search.index.enabled=" + searchIndex,
+                        "logging.level.root=WARN")
+                .run();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate, context.getBean(SnowflakeIds.class), catalogSize);
+        long[] ids = jdbcTemplate.queryForList("SELECT id FROM tb_product", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+
+        if (searchIndex) {
+            context.getBean(ProductSearchIndexLoader.class).load();
+        }
+        return new BenchmarkCatalog(context, ids);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, SnowflakeIds snowflakeIds, int catalogSize) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 1; i <= catalogSize; i++) {
+            String word = WORDS[i % WORDS.length];
+            batch.add(new Object[]{
+                    snowflakeIds.next(),
+                    "Produto " + word + " " + i,
+                    "Descricao do " + word + tags(i),
+                    (long) (i % 5000) * 100 + 99,
+                    "categoria-" + i / 10 % CATEGORIES,
+                    "marca-" + i / 3 % BRANDS,
+                    "{\"cor\":\"" + COLORS[i % COLORS.length] + "\"}"
+            });
+            if (batch.size() == INSERT_BATCH_SIZE || i == catalogSize) {
+                jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price_cents, category, " +
+                        "brand, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static String tags(int i) {
+        StringBuilder tags = new StringBuilder();
+        if (i % 10 == 0) {
+            tags.append(" p10");
+        }
+        if (i % 100 == 0) {
+            tags.append(" p100");
+        }
+        if (i % 1000 == 0) {
+            tags.append(" p1000");
+        }
+        return tags.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.raphael.mscatalog.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop HTTP load generator for a running instance: each of {@code --clients} clients sends its next request as
+ * soon as the previous one completes. Prints throughput, latency percentiles and error counts, followed by a
+ * one-line JSON summary so runs (e.g. platform vs. virtual threads) can be compared.
+ * <pre>
+ * mvn -P benchmarks test-compile exec:exec@loadtest -Dloadtest.args="--clients 1000 --duration 30"
+ * </pre>
+ * Options: {@code --url} (comma separated, used round-robin), {@code --clients}, {@code --duration} and
+ * {@code --warmup} (seconds), {@code --gzip true} to send {@code Accept-Encoding: gzip} (bodies are counted as they
+ * arrive, so {@code avg_response_bytes} is what went over the wire) and {@code --http2 true} for cleartext HTTP/2.
+ * Every client sends its own {@code X-Client-Id}, so each gets the per-client rate limit of a real caller.
+ */
+public final class ProductApiLoadTest {
+
+    private static final long BUCKET_NANOS = 10_000;
+    private static final int BUCKETS = 1_000_000;
+
+    private final HttpClient httpClient;
+    private final URI[] targets;
+    private final boolean gzip;
+    private final long measureFromNanos;
+    private final long endNanos;
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final CountDownLatch finished;
+
+    private ProductApiLoadTest(HttpClient httpClient, URI[] targets, boolean gzip, int clients, Duration warmup,
+                               Duration duration) {
+        this.httpClient = httpClient;
+        this.targets = targets;
+        this.gzip = gzip;
+        this.measureFromNanos = System.nanoTime() + warmup.toNanos();
+        this.endNanos = measureFromNanos + duration.toNanos();
+        this.finished = new CountDownLatch(clients);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        String[] urls = options.getOrDefault("url",
+                "http://localhost:9999/productInventory/productManagement/v1/products/1").split(",");
+        int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "false"));
+        boolean http2 = Boolean.parseBoolean(options.getOrDefault("http2", "false"));
+
+        URI[] targets = new URI[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            targets[i] = URI.create(urls[i].trim());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+
+        var loadTest = new ProductApiLoadTest(httpClient, targets, gzip, clients, warmup, duration);
+        for (int client = 0; client < clients; client++) {
+            loadTest.next(client);
+        }
+        loadTest.finished.await();
+        executor.shutdownNow();
+
+        loadTest.report(clients, duration);
+    }
+
+    private void next(int client) {
+        long start = System.nanoTime();
+        if (start >= endNanos) {
+            finished.countDown();
+            return;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(targets[(int) (requests.sum() + client) % targets.length])
+                .timeout(Duration.ofSeconds(30))
+                .header("X-Client-Id", "loadtest-" + client)
+                .GET();
+        if (gzip) {
+            request.header("Accept-Encoding", "gzip");
+        }
+
+        httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, ex) -> {
+                    record(start, response, ex);
+                    next(client);
+                });
+    }
+
+    private void record(long start, HttpResponse<byte[]> response, Throwable ex) {
+        long end = System.nanoTime();
+        if (start < measureFromNanos || end > endNanos) {
+            return;
+        }
+        requests.increment();
+        if (ex != null) {
+            errors.increment();
+            return;
+        }
+        int status = response.statusCode();
+        if (status == 429 || status == 503) {
+            rejected.increment();
+        } else if (status >= 400) {
+            errors.increment();
+        }
+        responseBytes.add(response.body().length);
+        latencyBuckets.incrementAndGet((int) Math.min((end - start) / BUCKET_NANOS, BUCKETS - 1));
+    }
+
+    private void report(int clients, Duration duration) {
+        long total = requests.sum();
+        double throughput = total / (double) duration.toSeconds();
+        double p50 = percentileMillis(0.50);
+        double p99 = percentileMillis(0.99);
+        double p999 = percentileMillis(0.999);
+        double bytesPerResponse = total == 0 ? 0 : responseBytes.sum() / (double) total;
+
+        System.out.printf("clients=%d requests=%d throughput=%.1f req/s%n", clients, total, throughput);
+        System.out.printf("latency p50=%.2f ms p99=%.2f ms p99.9=%.2f ms%n", p50, p99, p999);
+        System.out.printf("rejected(429/503)=%d errors=%d avg_response_bytes=%.1f%n", rejected.sum(), errors.sum(), bytesPerResponse);
+        System.out.printf("{\"clients\":%d,\"requests\":%d,\"throughput\":%.1f,\"p50_ms\":%.3f,\"p99_ms\":%.3f,"
+                        + "\"p999_ms\":%.3f,\"rejected\":%d,\"errors\":%d,\"avg_response_bytes\":%.1f}%n",
+                clients, total, throughput, p50, p99, p999, rejected.sum(), errors.sum(), bytesPerResponse);
+    }
+
+    private double percentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += latencyBuckets.get(i);
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += latencyBuckets.get(i);
+            if (seen >= rank && seen > 0) {
+                return (i + 1) * BUCKET_NANOS / 1_000_000.0;
+            }
+        }
+        return 0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,79 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Facet counts from the search index bitmaps against the same counts as one {@code GROUP BY} per facet. {@code query}
+ * is a selectivity tag (see {@link BenchmarkCatalog}), or {@code all} for no text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductFacetBenchmark {
+
+    private static final String WHERE = " FROM tb_product WHERE (? IS NULL OR lower(name) LIKE ? OR lower(description) LIKE ?)";
+    private static final String PRICE_BUCKET = "CASE WHEN price_cents < 5000 THEN 0 WHEN price_cents < 10000 THEN 1 " +
+            "WHEN price_cents < 50000 THEN 2 WHEN price_cents < 100000 THEN 3 WHEN price_cents < 500000 THEN 4 ELSE 5 END " +
+            "AS bucket";
+
+    @Param({"10000", "1000000"})
+    private int catalogSize;
+
+    @Param({"all", "p100", "p10"})
+    private String query;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+    private JdbcTemplate jdbcTemplate;
+    private String text;
+    private ProductFilter categoryFilter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, true);
+        productService = catalog.bean(ProductService.class);
+        jdbcTemplate = catalog.bean(JdbcTemplate.class);
+        text = query.equals("all") ? null : query;
+        categoryFilter = ProductFilter.of("categoria-1", null, List.of(ProductFilter.Attribute.valueOf("cor:azul")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public SearchFacetsDTO facets() {
+        return productService.facets(text, null, null, ProductFilter.NONE);
+    }
+
+    @Benchmark
+    public SearchFacetsDTO facetsWithFilter() {
+        return productService.facets(text, null, null, categoryFilter);
+    }
+
+    /**
+     * Category, brand, attribute and price bucket counts straight from the database.
+     */
+    @Benchmark
+    public List<List<Map<String, Object>>> groupBy() {
+        String like = text == null ? null : "%" + text + "%";
+        return List.of(
+                jdbcTemplate.queryForList("SELECT category, count(*)" + WHERE + " GROUP BY category", text, like, like),
+                jdbcTemplate.queryForList("SELECT brand, count(*)" + WHERE + " GROUP BY brand", text, like, like),
+                jdbcTemplate.queryForList("SELECT attributes, count(*)" + WHERE + " GROUP BY attributes", text, like, like),
+                jdbcTemplate.queryForList("SELECT bucket, count(*) FROM (SELECT " + PRICE_BUCKET + WHERE + ") GROUP BY bucket",
+                        text, like, like));
+    }
+}
@@ -0,0 +1,89 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading managed entities and copying them into DTOs against projecting rows straight into DTOs.
+ * Run with {@code -prof gc} to see the allocation difference next to the latency one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductProjectionBenchmark {
+
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"100000"})
+    private int catalogSize;
+
+    private BenchmarkCatalog catalog;
+    private ProductRepository productRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, false);
+        productRepository = catalog.bean(ProductRepository.class);
+        entityManager = catalog.bean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(catalog.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<ProductResponseDTO> allEntities() {
+        return readOnlyTransaction.execute(status -> toResponses(
+                entityManager.createQuery("SELECT p FROM Product p ORDER BY p.id", Product.class).getResultList()));
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<ProductResponseDTO> allProjected() {
+        return readOnlyTransaction.execute(status -> productRepository.findAllResponses());
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> pageEntities() {
+        return readOnlyTransaction.execute(status -> toResponses(
+                entityManager.createQuery("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id", Product.class)
+                        .setParameter("afterId", catalog.randomId())
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList()));
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> pageProjected() {
+        return readOnlyTransaction.execute(
+                status -> productRepository.findPageAfter(catalog.randomId(), Limit.of(PAGE_SIZE)));
+    }
+
+    private static List<ProductResponseDTO> toResponses(List<Product> products) {
+        List<ProductResponseDTO> productResponseDTOs = new ArrayList<>(products.size());
+        for (Product product : products) {
+            productResponseDTOs.add(new ProductResponseDTO(product));
+        }
+        return productResponseDTOs;
+    }
+}
@@ -0,0 +1,63 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code query} selects the selectivity (p1000 = 0.1%, p100 = 1%, p10 = 10% of the catalog) and
+ * {@code searchIndex} switches between the in-memory index and the database query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSearchBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int catalogSize;
+
+    @Param({"p1000", "p100", "p10"})
+    private String query;
+
+    @Param({"true", "false"})
+    private boolean searchIndex;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, searchIndex);
+        productService = catalog.bean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> search() {
+        return productService.search(query, null, null, null);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> searchWithPriceRange() {
+        return productService.search(query, 100D, 1000D, null);
+    }
+
+    /**
+     * Price-only search over about 0.1% of the catalog, answered by the price index or the price_cents index.
+     * Independent of {@code query}.
+     */
+    @Benchmark
+    public List<ProductResponseDTO> priceRangeOnly() {
+        return productService.search(null, 100D, 104.99, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.json.ProductJsonWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO construction and serialization of product lists, without any database: Jackson's bean serializer against the
+ * hand-written {@link ProductJsonWriter} used by the API. Run with {@code -prof gc} to get the allocation rate per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    private int listSize;
+
+    private List<Product> products;
+    private List<ProductResponseDTO> productResponseDTOs;
+    private ObjectWriter listWriter;
+    private JsonFactory jsonFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        products = new ArrayList<>(listSize);
+        productResponseDTOs = new ArrayList<>(listSize);
+        for (long i = 1; i <= listSize; i++) {
+            var product = new Product(i, "Produto " + i, "Descricao do produto " + i, i % 5000 + 0.99);
+            products.add(product);
+            productResponseDTOs.add(new ProductResponseDTO(product));
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        listWriter = objectMapper.writerFor(new TypeReference<List<ProductResponseDTO>>() {
+        });
+        jsonFactory = objectMapper.getFactory();
+    }
+
+    @Benchmark
+    public void dtoConstruction(Blackhole blackhole) {
+        for (Product product : products) {
+            blackhole.consume(new ProductResponseDTO(product));
+        }
+    }
+
+    @Benchmark
+    public void jacksonSerialization(Blackhole blackhole) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        listWriter.writeValue(out, productResponseDTOs);
+        blackhole.consume(out.count);
+    }
+
+    @Benchmark
+    public void productJsonWriter(Blackhole blackhole) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            new ProductJsonWriter(generator).writeAll(productResponseDTOs);
+        }
+        blackhole.consume(out.count);
+    }
+
+    static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
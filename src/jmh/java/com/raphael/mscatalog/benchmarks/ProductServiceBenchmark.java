@@ -0,0 +1,51 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductServiceBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int catalogSize;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, false);
+        productService = catalog.bean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public ProductResponseDTO findById() {
+        return productService.findById(catalog.randomId());
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> findPage() {
+        return productService.findPage(catalog.randomId(), ProductService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public List<ProductResponseDTO> findAll() {
+        return productService.findAll();
+    }
+}
@@ -0,0 +1,53 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
+import com.raphael.mscatalog.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-keystroke cost of the search box: a suggestion lookup against the full search it replaces. {@code query} covers a
+ * one-letter prefix, a word prefix, a typo (one transposition), a two-word query and a number with a typo. Sampled, so
+ * the report includes p99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProductSuggestBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int catalogSize;
+
+    @Param({"m", "mon", "mointor", "produto tec", "12435"})
+    private String query;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, true);
+        productService = catalog.bean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public List<SuggestionDTO> suggest() {
+        return productService.suggest(query, ProductService.DEFAULT_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> search() {
+        return productService.search(query, null, null, null);
+    }
+}
@@ -0,0 +1,117 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.raphael.mscatalog.datasource.ReplicaRoutingDataSource;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Read throughput as replicas are added: point reads by id, each in its own read-only transaction, through the same
+ * {@link LazyConnectionDataSourceProxy} and {@link ReplicaRoutingDataSource} wiring as {@code ReplicaDataSourceConfig}.
+ * The primary and every replica are separate in-memory H2 databases with the same {@value #CATALOG_SIZE} products and
+ * a fixed pool of {@value #POOL_SIZE} connections each. With replicas in rotation the primary serves no reads at all.
+ * <p>
+ * {@code serviceTimeMicros} adds a fixed cost inside the database to every query (an H2 function that parks the
+ * connection's thread), so that a database's capacity is its connections times its service time, as for a database
+ * on its own host. At 0 the reads only cost CPU, and every in-process database shares this JVM's cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReplicaReadScalingBenchmark {
+
+    static final int CATALOG_SIZE = 10_000;
+    static final int POOL_SIZE = 4;
+
+    @Param({"0", "1", "2", "3"})
+    private int replicas;
+
+    @Param({"0", "1000"})
+    private int serviceTimeMicros;
+
+    private final List<HikariDataSource> databases = new ArrayList<>();
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String run = String.valueOf(System.nanoTime());
+        HikariDataSource primary = database("primary-" + run);
+        Map<String, DataSource> replicaDataSources = new LinkedHashMap<>();
+        for (int i = 1; i <= replicas; i++) {
+            replicaDataSources.put("replica-" + i, database("replica-" + i + "-" + run));
+        }
+        routing = new ReplicaRoutingDataSource(primary, replicaDataSources,
+                ReplicaRoutingDataSource.DEFAULT_POSITION_QUERY, Duration.ofSeconds(2), Duration.ofSeconds(1),
+                new CatalogMetrics(new SimpleMeterRegistry()));
+        routing.checkHealth();
+        if (routing.replicasInRotation() != replicas) {
+            throw new IllegalStateException("Expected " + replicas + " replicas in rotation");
+        }
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing.primaryForWrites());
+        dataSource.setReadOnlyDataSource(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        routing.close();
+        databases.forEach(HikariDataSource::close);
+    }
+
+    @Benchmark
+    public String findById() {
+        long id = ThreadLocalRandom.current().nextLong(1, CATALOG_SIZE + 1);
+        return readOnly.execute(status -> jdbcTemplate.queryForObject(
+                "SELECT name FROM tb_product WHERE id = ? AND SERVICE_TIME(?) >= 0", String.class, id, serviceTimeMicros));
+    }
+
+    /**
+     * Body of the {@code SERVICE_TIME} SQL function.
+     */
+    public static int serviceTime(int micros) {
+        if (micros > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+        return micros;
+    }
+
+    private HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(POOL_SIZE);
+        dataSource.setPoolName(name);
+        databases.add(dataSource);
+
+        JdbcTemplate database = new JdbcTemplate(dataSource);
+        database.execute("RUNSCRIPT FROM 'classpath:schema.sql'");
+        database.execute("CREATE ALIAS SERVICE_TIME FOR '" + getClass().getName() + ".serviceTime'");
+        database.update("INSERT INTO tb_product (id, name, description, price_cents) " +
+                "SELECT x, 'Produto ' || x, 'Descricao ' || x, x * 100 FROM SYSTEM_RANGE(1, ?)", CATALOG_SIZE);
+        return dataSource;
+    }
+}
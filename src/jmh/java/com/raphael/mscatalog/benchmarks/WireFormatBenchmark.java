@@ -0,0 +1,101 @@
+package com.raphael.mscatalog.benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.raphael.mscatalog.benchmarks.ProductSerializationBenchmark.CountingOutputStream;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.json.ProductJsonWriter;
+import com.raphael.mscatalog.protobuf.ProductProtobufCodec;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload size and encode/decode cost of a product list in each wire format the API negotiates. Encoding uses the
+ * same writers as the HTTP converters; decoding is what a Java client would do, Jackson binding into a record for the
+ * Jackson formats and {@link ProductProtobufCodec} for Protobuf. The payload size of each format is printed during
+ * setup; run with {@code -prof gc} for the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WireFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    private int listSize;
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    private String format;
+
+    private List<ProductResponseDTO> products;
+    private ObjectMapper objectMapper;
+    private ObjectReader listReader;
+    private byte[] payload;
+
+    public record ProductView(Long id, String name, String description, Double price) {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        products = new ArrayList<>(listSize);
+        for (long i = 1; i <= listSize; i++) {
+            products.add(new ProductResponseDTO(i, "Produto " + i, "Descricao do produto " + i, i % 5000 + 0.99));
+        }
+        objectMapper = switch (format) {
+            case "json" -> new ObjectMapper();
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> null;
+        };
+        if (objectMapper != null) {
+            listReader = objectMapper.readerForListOf(ProductView.class);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out);
+        payload = out.toByteArray();
+        System.out.printf("%n%s payload for %d products: %d bytes (%.1f bytes/product)%n",
+                format, listSize, payload.length, (double) payload.length / listSize);
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        write(out);
+        blackhole.consume(out.count);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        if (objectMapper == null) {
+            return ProductProtobufCodec.readProducts(CodedInputStream.newInstance(payload));
+        }
+        return listReader.readValue(payload);
+    }
+
+    private void write(OutputStream out) throws IOException {
+        if (objectMapper == null) {
+            CodedOutputStream output = CodedOutputStream.newInstance(out, 8192);
+            ProductProtobufCodec.writeProducts(output, products);
+            output.flush();
+            return;
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            new ProductJsonWriter(generator).writeAll(products);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.raphael.mscatalog;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+// JPA owns the transactions; an R2DBC transaction manager would displace JpaTransactionManager.
+@SpringBootApplication(exclude = R2dbcTransactionManagerAutoConfiguration.class)
 public class MsCatalogApplication {
 
     public static void main(String[] args) {
@@ -11,4 +13,3 @@ public class MsCatalogApplication {
     }
 
 }
-
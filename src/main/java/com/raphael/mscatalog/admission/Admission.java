@@ -0,0 +1,23 @@
+package com.raphael.mscatalog.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a handler method behind {@link AdmissionInterceptor}: the request is charged to the client's rate limit and
+ * holds a slot of its class's concurrency limit until it completes. Handlers without it are not admission controlled.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    EndpointClass value();
+
+    /**
+     * Whether the request's latency feeds the adaptive limit. Off for responses whose duration depends on the size of
+     * what they stream rather than on how loaded the service is.
+     */
+    boolean latencySampled() default true;
+}
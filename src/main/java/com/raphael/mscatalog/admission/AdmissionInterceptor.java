@@ -0,0 +1,163 @@
+package com.raphael.mscatalog.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for handlers marked with {@link Admission}, applied before the controller runs:
+ * <ol>
+ *     <li>a per-client {@link TokenBucket}: one token per request, {@code scan-cost} tokens for a scan and
+ *     {@code bulk-cost} for a bulk request. Over the limit the request gets 429 with the time until the bucket can pay
+ *     for it;</li>
+ *     <li>a {@link ConcurrencyLimit} per {@link EndpointClass}, so scans cannot take every request thread and database
+ *     connection away from point lookups. With no free slot the request gets 503, and its tokens are given back.</li>
+ * </ol>
+ * Each limit adapts to the latency of its own class; a class over its latency target also backs off the classes of
+ * lower priority, which are shed first. Rejections go through {@code ApiExceptionHandler} like any other error.
+ * <p>
+ * Clients are told apart by the {@value #CLIENT_ID_HEADER} header, falling back to the remote address, so the header
+ * should be set (or stripped) by a gateway the clients cannot bypass.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "mscatalog.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private static final String ADMITTED = AdmissionInterceptor.class.getName() + ".admitted";
+    private static final int MAX_TRACKED_CLIENTS = 100_000;
+
+    private final double rate;
+    private final double burst;
+    private final double scanCost;
+    private final double bulkCost;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<EndpointClass, ConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final CatalogMetrics catalogMetrics;
+
+    public AdmissionInterceptor(@Value("${mscatalog.admission.rate:500}") double rate,
+                                @Value("${mscatalog.admission.burst:1000}") double burst,
+                                @Value("${mscatalog.admission.scan-cost:10}") double scanCost,
+                                @Value("${mscatalog.admission.bulk-cost:100}") double bulkCost,
+                                @Value("${mscatalog.admission.lookup.max-concurrency:200}") int lookupConcurrency,
+                                @Value("${mscatalog.admission.lookup.latency-target:50ms}") Duration lookupLatency,
+                                @Value("${mscatalog.admission.write.max-concurrency:50}") int writeConcurrency,
+                                @Value("${mscatalog.admission.write.latency-target:200ms}") Duration writeLatency,
+                                @Value("${mscatalog.admission.scan.max-concurrency:8}") int scanConcurrency,
+                                @Value("${mscatalog.admission.scan.latency-target:1s}") Duration scanLatency,
+                                @Value("${mscatalog.admission.bulk.max-concurrency:4}") int bulkConcurrency,
+                                @Value("${mscatalog.admission.bulk.latency-target:30s}") Duration bulkLatency,
+                                CatalogMetrics catalogMetrics) {
+        this.catalogMetrics = catalogMetrics;
+        this.rate = rate;
+        this.burst = burst;
+        this.scanCost = scanCost;
+        this.bulkCost = bulkCost;
+        // A bucket left alone for burst / rate seconds is full again, the same as a new one, so dropping idle clients
+        // loses nothing.
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .expireAfterAccess(Duration.ofMinutes(1))
+                .build();
+        long now = System.nanoTime();
+        addLimit(new ConcurrencyLimit(EndpointClass.LOOKUP, lookupConcurrency, lookupLatency.toNanos(), now));
+        addLimit(new ConcurrencyLimit(EndpointClass.WRITE, writeConcurrency, writeLatency.toNanos(), now));
+        addLimit(new ConcurrencyLimit(EndpointClass.SCAN, scanConcurrency, scanLatency.toNanos(), now));
+        addLimit(new ConcurrencyLimit(EndpointClass.BULK, bulkConcurrency, bulkLatency.toNanos(), now));
+    }
+
+    /**
+     * An async request ({@code /stream}) is admitted once, on its first dispatch, and keeps its slot until the
+     * dispatch that completes it.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        Admission admission = handlerMethod.getMethodAnnotation(Admission.class);
+        if (admission == null) {
+            return true;
+        }
+        EndpointClass endpointClass = admission.value();
+        long now = System.nanoTime();
+
+        TokenBucket bucket = buckets.get(clientId(request), client -> new TokenBucket(rate, burst, now));
+        double cost = switch (endpointClass) {
+            case SCAN -> scanCost;
+            case BULK -> bulkCost;
+            default -> 1;
+        };
+        long wait = bucket.tryTake(cost, now);
+        if (wait > 0) {
+            catalogMetrics.admissionRejected(endpointClass.name(), "rate_limit");
+            throw new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Limite de requisições excedido, tente novamente em instantes",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+        ConcurrencyLimit limit = limits.get(endpointClass);
+        if (!limit.tryAcquire()) {
+            bucket.refund(cost);
+            catalogMetrics.admissionRejected(endpointClass.name(), "concurrency");
+            throw new AdmissionRejectedException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Serviço sobrecarregado, tente novamente", 1);
+        }
+        request.setAttribute(ADMITTED, new Admitted(limit, now, admission.latencySampled()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(ADMITTED) instanceof Admitted admitted)) {
+            return;
+        }
+        request.removeAttribute(ADMITTED);
+        long now = System.nanoTime();
+        if (admitted.limit().release(now - admitted.startedAt(), admitted.latencySampled(), now)) {
+            for (EndpointClass lowerPriority : EndpointClass.values()) {
+                if (lowerPriority.compareTo(admitted.limit().endpointClass()) > 0) {
+                    limits.get(lowerPriority).backOff(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Current concurrency limit of a class, for monitoring and tests.
+     */
+    public int limit(EndpointClass endpointClass) {
+        return limits.get(endpointClass).limit();
+    }
+
+    private void addLimit(ConcurrencyLimit limit) {
+        limits.put(limit.endpointClass(), limit);
+        catalogMetrics.admissionLimit(limit.endpointClass().name(), limit, ConcurrencyLimit::limit,
+                ConcurrencyLimit::inFlight);
+    }
+
+    public static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+
+    private record Admitted(ConcurrencyLimit limit, long startedAt, boolean latencySampled) {
+    }
+}
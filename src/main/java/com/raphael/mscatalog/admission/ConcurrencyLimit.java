@@ -0,0 +1,79 @@
+package com.raphael.mscatalog.admission;
+
+/**
+ * Adaptive cap on the requests of one {@link EndpointClass} in flight, adjusted by AIMD from observed latency:
+ * <ul>
+ *     <li>a request completing within the latency target, while at least half the limit is in use, raises the limit by
+ *     {@code 1/limit}, so about one slot per limit's worth of good requests;</li>
+ *     <li>a request over the target cuts the limit by {@value #BACKOFF_RATIO}, at most once per target period so a
+ *     burst of slow completions counts as one congestion signal.</li>
+ * </ul>
+ * The limit stays between 1 and the configured maximum, where it starts.
+ */
+final class ConcurrencyLimit {
+
+    static final double BACKOFF_RATIO = 0.9;
+
+    private final EndpointClass endpointClass;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private double limit;
+    private int inFlight;
+    private long backedOffAt;
+
+    ConcurrencyLimit(EndpointClass endpointClass, int maxLimit, long latencyTargetNanos, long now) {
+        this.endpointClass = endpointClass;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.limit = maxLimit;
+        this.backedOffAt = now - latencyTargetNanos;
+    }
+
+    EndpointClass endpointClass() {
+        return endpointClass;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Frees the slot and, when the latency was sampled, adjusts the limit. Returns whether the latency was over target.
+     */
+    synchronized boolean release(long latencyNanos, boolean sampled, long now) {
+        inFlight--;
+        if (!sampled) {
+            return false;
+        }
+        if (latencyNanos > latencyTargetNanos) {
+            backOff(now);
+            return true;
+        }
+        if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        return false;
+    }
+
+    /**
+     * Multiplicative decrease, also applied when a higher-priority class reports congestion.
+     */
+    synchronized void backOff(long now) {
+        if (now - backedOffAt >= latencyTargetNanos) {
+            limit = Math.max(1, limit * BACKOFF_RATIO);
+            backedOffAt = now;
+        }
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,28 @@
+package com.raphael.mscatalog.admission;
+
+/**
+ * Cost classes of the product API, in priority order: when latency degrades, the classes after the slow one are
+ * throttled along with it, so scans give way to point lookups first.
+ */
+public enum EndpointClass {
+
+    /**
+     * Reads of a known, small set of products: by id, multi-get, suggestions.
+     */
+    LOOKUP,
+
+    /**
+     * Single-product writes.
+     */
+    WRITE,
+
+    /**
+     * Reads whose cost grows with the catalog: listing, search, facets, full export.
+     */
+    SCAN,
+
+    /**
+     * Requests carrying or producing many products at once: bulk writes and snapshot export and import.
+     */
+    BULK
+}
@@ -0,0 +1,45 @@
+package com.raphael.mscatalog.admission;
+
+/**
+ * Token bucket refilled continuously at {@code rate} tokens per second, holding at most {@code burst}. Refills are
+ * computed lazily from the time elapsed since the last call, so an idle bucket costs nothing.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double rate;
+    private final double burst;
+    private double tokens;
+    private long refilledAt;
+
+    TokenBucket(double rate, double burst, long now) {
+        this.rate = rate;
+        this.burst = burst;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes {@code cost} tokens if there are enough. Returns 0 on success, otherwise the nanoseconds until there will
+     * be; nothing is taken in that case. A cost above the burst is charged as the whole burst.
+     */
+    synchronized long tryTake(double cost, long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) / NANOS_PER_SECOND * rate);
+        refilledAt = now;
+        double charged = Math.min(cost, burst);
+        if (tokens >= charged) {
+            tokens -= charged;
+            return 0;
+        }
+        return (long) Math.ceil((charged - tokens) / rate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Gives back what {@link #tryTake(double, long)} charged, for a request that was admitted by the rate limit but
+     * then shed.
+     */
+    synchronized void refund(double cost) {
+        tokens = Math.min(burst, tokens + Math.min(cost, burst));
+    }
+}
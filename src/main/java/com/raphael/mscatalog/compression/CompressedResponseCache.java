@@ -0,0 +1,189 @@
+package com.raphael.mscatalog.compression;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.datasource.ReplicaReads;
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.services.CatalogVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the gzip-compressed bodies of listing and search responses, so identical requests are answered with the
+ * stored bytes instead of querying, serializing and compressing the same payload again.
+ * <p>
+ * Entries are keyed by the {@link CatalogVersion} tag plus URI, query and {@code Accept}: any committed product change
+ * makes every entry unreachable (they are also dropped right away to free the memory). Which responses get compressed
+ * follows {@code server.compression.*}, the same settings Tomcat uses for everything else; Tomcat leaves the bodies
+ * written here alone because they already carry a {@code Content-Encoding}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = {"server.compression.enabled", "mscatalog.compression.cache.enabled"}, havingValue = "true")
+public class CompressedResponseCache extends OncePerRequestFilter {
+
+    private static final String PRODUCTS_PATH = "/productInventory/productManagement/v1/products";
+    private static final Set<String> CACHED_PATHS = Set.of(PRODUCTS_PATH, PRODUCTS_PATH + "/search");
+
+    /**
+     * Headers that describe the connection or the uncompressed body and must not be replayed.
+     */
+    private static final Set<String> SKIPPED_HEADERS = Set.of(HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.CONTENT_ENCODING.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(), HttpHeaders.CONNECTION.toLowerCase());
+
+    private final CatalogVersion catalogVersion;
+    private final List<MimeType> compressibleTypes;
+    private final long minResponseSize;
+    private final Cache<String, CompressedResponse> cache;
+
+    public CompressedResponseCache(CatalogVersion catalogVersion, ServerProperties serverProperties,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${mscatalog.compression.cache.max-size:64MB}") DataSize maxSize) {
+        this.catalogVersion = catalogVersion;
+        this.compressibleTypes = Arrays.stream(serverProperties.getCompression().getMimeTypes())
+                .map(MimeType::valueOf)
+                .toList();
+        this.minResponseSize = serverProperties.getCompression().getMinResponseSize().toBytes();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CompressedResponse response) -> key.length() + response.body().length)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "compressedResponses");
+    }
+
+    @Order(CatalogVersion.BEFORE_VERSION_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    @Order(CatalogVersion.BEFORE_VERSION_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        cache.invalidateAll();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !CACHED_PATHS.contains(request.getRequestURI())
+                || acceptEncoding == null || !acceptEncoding.contains("gzip");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Read before the controller runs, like the controller does, so an entry is never filed under a newer tag.
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = etag + ' ' + request.getRequestURI() + '?' + request.getQueryString() + ' '
+                + request.getHeader(HttpHeaders.ACCEPT);
+        CompressedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            cached.writeTo(response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean fromReplica;
+        try (ReplicaReads reads = ReplicaReads.track()) {
+            chain.doFilter(request, wrapper);
+            fromReplica = reads.served();
+        }
+        // A replica may be behind the tag, and the entry would be served to every client holding it.
+        if (fromReplica || wrapper.getStatus() != HttpStatus.OK.value() || wrapper.getContentSize() < minResponseSize
+                || !isCompressible(wrapper.getContentType()) || wrapper.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        // The controller's headers are already on the response; only the body is still held by the wrapper.
+        CompressedResponse compressed = CompressedResponse.of(wrapper, gzip(wrapper.getContentAsByteArray()));
+        cache.put(key, compressed);
+        wrapper.resetBuffer();
+        compressed.writeBody(response);
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MimeType mimeType = MimeType.valueOf(contentType);
+        return compressibleTypes.stream().anyMatch(type -> type.equalsTypeAndSubtype(mimeType));
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private record CompressedResponse(String contentType, List<String[]> headers, byte[] body) {
+
+        static CompressedResponse of(HttpServletResponse response, byte[] body) {
+            List<String[]> headers = new ArrayList<>();
+            for (String name : response.getHeaderNames()) {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                    for (String value : response.getHeaders(name)) {
+                        headers.add(new String[]{name, value});
+                    }
+                }
+            }
+            return new CompressedResponse(response.getContentType(), headers, body);
+        }
+
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(contentType);
+            for (String[] header : headers) {
+                response.addHeader(header[0], header[1]);
+            }
+            writeBody(response);
+        }
+
+        void writeBody(HttpServletResponse response) throws IOException {
+            if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
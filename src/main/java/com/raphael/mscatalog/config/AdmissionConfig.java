@@ -0,0 +1,26 @@
+package com.raphael.mscatalog.config;
+
+import com.raphael.mscatalog.admission.AdmissionInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Puts {@link AdmissionInterceptor} in front of the handlers, unless {@code mscatalog.admission.enabled=false}. The
+ * interceptor itself decides which handlers it applies to, from their {@code @Admission} annotation.
+ */
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<AdmissionInterceptor> admissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        admissionInterceptor.ifAvailable(registry::addInterceptor);
+    }
+}
@@ -0,0 +1,104 @@
+package com.raphael.mscatalog.config;
+
+import com.raphael.mscatalog.datasource.H2ReplicaFollower;
+import com.raphael.mscatalog.datasource.ReadYourWritesFilter;
+import com.raphael.mscatalog.datasource.ReplicaRoutingDataSource;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, enabled by listing their JDBC URLs in {@code mscatalog.datasource.replicas.urls}. The application
+ * datasource becomes a lazy proxy that sends read-only transactions to {@link ReplicaRoutingDataSource} and
+ * everything else to the primary configured under {@code spring.datasource}. Replicas share the primary's
+ * credentials and pool settings, except for the pool size when {@code mscatalog.datasource.replicas.pool-size} is set.
+ * <p>
+ * Servlet stack only: in the reactive profile reads go through R2DBC and {@link ReactiveConfig} owns the datasource.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty("mscatalog.datasource.replicas.urls")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${mscatalog.datasource.replicas.urls}") List<String> urls,
+            @Value("${mscatalog.datasource.replicas.pool-size:0}") int poolSize,
+            @Value("${mscatalog.datasource.replicas.max-lag:2s}") Duration maxLag,
+            @Value("${mscatalog.datasource.replicas.check-interval:1s}") Duration checkInterval,
+            @Value("${mscatalog.datasource.replicas.position-query:"
+                    + ReplicaRoutingDataSource.DEFAULT_POSITION_QUERY + "}") String positionQuery,
+            CatalogMetrics catalogMetrics) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setJdbcUrl(url.trim());
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            if (poolSize > 0) {
+                replica.setMaximumPoolSize(poolSize);
+                replica.setMinimumIdle(Math.min(replica.getMinimumIdle(), poolSize));
+            }
+            replicas.put(replica.getPoolName(), replica);
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicas, positionQuery,
+                maxLag, checkInterval, catalogMetrics);
+        routing.start();
+        return routing;
+    }
+
+    /**
+     * The datasource JPA, JdbcTemplate and the schema initializers use. Connections are only fetched on the first
+     * statement, by which time the transaction manager has marked them read-only or not.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource =
+                new LazyConnectionDataSourceProxy(replicaRoutingDataSource.primaryForWrites());
+        dataSource.setReadOnlyDataSource(replicaRoutingDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new ReadYourWritesFilter(replicaRoutingDataSource);
+    }
+
+    /**
+     * Local H2 replicas have nothing replicating into them; the follower plays that part.
+     */
+    @Bean
+    @ConditionalOnProperty("mscatalog.datasource.replicas.h2-follower.enabled")
+    public H2ReplicaFollower h2ReplicaFollower(
+            HikariDataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource,
+            ProductChangeFeed productChangeFeed,
+            @Value("${mscatalog.datasource.replicas.h2-follower.interval:200ms}") Duration interval) {
+        return new H2ReplicaFollower(primaryDataSource, replicaRoutingDataSource, productChangeFeed, interval);
+    }
+}
@@ -0,0 +1,113 @@
+package com.raphael.mscatalog.config;
+
+import com.raphael.mscatalog.datasource.ShardRoutingDataSource;
+import com.raphael.mscatalog.datasource.ShardScriptDatabaseInitializer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Horizontal sharding of the products, enabled by listing the JDBC URLs of the extra shards in
+ * {@code mscatalog.datasource.shards.urls}. Shard 0 is the database configured under {@code spring.datasource}; the
+ * others share its credentials and pool settings, except for the pool size when
+ * {@code mscatalog.datasource.shards.pool-size} is set. The application datasource becomes a lazy proxy over
+ * {@link ShardRoutingDataSource}, and the schema (Flyway or {@code schema.sql}) is applied to every shard.
+ * <p>
+ * Not combined with read replicas (both define the application datasource) nor with the reactive profile, where
+ * {@link ReactiveConfig} owns the datasource.
+ */
+@Configuration(proxyBeanMethods = false)
+@Conditional(ShardedDataSourceConfig.NotReactive.class)
+@ConditionalOnProperty("mscatalog.datasource.shards.urls")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ShardedDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource shard0DataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(
+            HikariDataSource shard0DataSource,
+            @Value("${mscatalog.datasource.shards.urls}") List<String> urls,
+            @Value("${mscatalog.datasource.shards.pool-size:0}") int poolSize) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(shard0DataSource);
+        for (String url : urls) {
+            HikariDataSource shard = new HikariDataSource();
+            shard0DataSource.copyStateTo(shard);
+            shard.setJdbcUrl(url.trim());
+            shards.add(shard);
+        }
+        for (int index = 0; index < shards.size(); index++) {
+            HikariDataSource shard = (HikariDataSource) shards.get(index);
+            shard.setPoolName("shard-" + index);
+            if (poolSize > 0) {
+                shard.setMaximumPoolSize(poolSize);
+                shard.setMinimumIdle(Math.min(shard.getMinimumIdle(), poolSize));
+            }
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * The datasource JPA, JdbcTemplate and the schema initializers use. Connections are only fetched on the first
+     * statement, by which time the caller has picked the shard.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer shardScriptDatabaseInitializer(
+            ShardRoutingDataSource shardRoutingDataSource, SqlInitializationProperties properties) {
+        return new ShardScriptDatabaseInitializer(shardRoutingDataSource.shardDataSources(),
+                SqlDataSourceScriptDatabaseInitializer.getSettings(properties));
+    }
+
+    /**
+     * Spring Boot's Flyway only migrates the application datasource; this runs the same migrations on every shard.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardFlywayMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+        return flyway -> shardRoutingDataSource.shardDataSources().forEach(shard -> Flyway
+                .configure(flyway.getConfiguration().getClassLoader())
+                .configuration(flyway.getConfiguration())
+                .dataSource(shard)
+                .load()
+                .migrate());
+    }
+
+    static class NotReactive extends NoneNestedConditions {
+
+        NotReactive() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        static class Reactive {
+        }
+    }
+}
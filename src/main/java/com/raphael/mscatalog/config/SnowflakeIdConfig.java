@@ -0,0 +1,26 @@
+package com.raphael.mscatalog.config;
+
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Product and change log ids come from {@link SnowflakeIds}. Every instance writing to the same database needs its own
+ * {@code mscatalog.ids.worker-id} (0 to {@value SnowflakeIds#MAX_WORKER_ID}); the services and Hibernate's
+ * generator share the one generator for it.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SnowflakeIdConfig {
+
+    @Bean
+    public SnowflakeIds snowflakeIds(@Value("${mscatalog.ids.worker-id:0}") int workerId) {
+        return SnowflakeIds.forWorker(workerId);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer snowflakeWorkerId(@Value("${mscatalog.ids.worker-id:0}") int workerId) {
+        return properties -> properties.put(SnowflakeIds.WORKER_ID_SETTING, workerId);
+    }
+}
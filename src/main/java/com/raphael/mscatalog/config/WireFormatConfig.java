@@ -0,0 +1,42 @@
+package com.raphael.mscatalog.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.raphael.mscatalog.json.ProductHttpMessageConverter;
+import com.raphael.mscatalog.protobuf.ProductProtobufHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Content negotiation for the product API. JSON stays the default; service-to-service callers can ask for CBOR, Smile
+ * or Protobuf through {@code Accept} and send request bodies in the same formats through {@code Content-Type}.
+ * <p>
+ * The product converters go ahead of the generic ones so product, listing and search responses skip Jackson's
+ * reflective serialization. Other bodies in CBOR and Smile are handled by the Jackson converters Spring MVC registers
+ * when those data formats are on the classpath.
+ */
+@RequiredArgsConstructor
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.addAll(0, List.of(
+                new ProductHttpMessageConverter(objectMapper, MediaType.APPLICATION_JSON),
+                new ProductHttpMessageConverter(new CBORMapper(), MediaType.APPLICATION_CBOR),
+                new ProductHttpMessageConverter(new SmileMapper(), APPLICATION_SMILE),
+                new ProductProtobufHttpMessageConverter()));
+    }
+}
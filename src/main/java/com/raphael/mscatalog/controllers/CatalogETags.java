@@ -0,0 +1,43 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.datasource.ReplicaReads;
+import com.raphael.mscatalog.services.CatalogVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GETs on the {@link CatalogVersion} tag, for the servlet list and search responses.
+ */
+final class CatalogETags {
+
+    private CatalogETags() {
+    }
+
+    /**
+     * Answers 304 when the client already holds the current tag, else runs {@code query} and tags its response. A
+     * response read from a replica is not tagged: the replica may be behind the tag, and the client would keep that
+     * answer until the next change.
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(CatalogVersion catalogVersion, WebRequest webRequest,
+                                             Supplier<ResponseEntity<T>> query) {
+        String etag = catalogVersion.etag();
+        if (CatalogVersion.matches(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        ResponseEntity<T> response;
+        try (ReplicaReads reads = ReplicaReads.track()) {
+            response = query.get();
+            if (reads.served()) {
+                return response;
+            }
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .body(response.getBody());
+    }
+}
@@ -0,0 +1,78 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.admission.Admission;
+import com.raphael.mscatalog.admission.EndpointClass;
+import com.raphael.mscatalog.dto.SnapshotImportDTO;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import com.raphael.mscatalog.snapshot.CatalogSnapshotService;
+import com.raphael.mscatalog.snapshot.CorruptSnapshotException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static com.raphael.mscatalog.controllers.ProductController.CHANGE_CURSOR_HEADER;
+
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/productInventory/productManagement/v1/products/snapshot")
+public class CatalogSnapshotController {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductChangeFeed productChangeFeed;
+
+    /**
+     * Whole catalog as a snapshot file. As with {@code /stream}, {@code X-Change-Cursor} is taken before the export
+     * starts, so replaying the change feed from it brings a node seeded from this file up to date.
+     */
+    @Admission(value = EndpointClass.BULK, latencySampled = false)
+    @GetMapping(produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        long changeCursor = productChangeFeed.watermark();
+        StreamingResponseBody body = outputStream -> catalogSnapshotService.export(Channels.newChannel(outputStream));
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .header(CHANGE_CURSOR_HEADER, String.valueOf(changeCursor))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("catalog.snapshot").build().toString())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    /**
+     * Seeds an empty catalog. The upload is spooled to a temporary file so it can be memory-mapped.
+     */
+    @Admission(EndpointClass.BULK)
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<SnapshotImportDTO> importSnapshot(HttpServletRequest request) throws IOException {
+        Path upload = Files.createTempFile("catalog-", ".snapshot");
+        try {
+            Files.copy(request.getInputStream(), upload, StandardCopyOption.REPLACE_EXISTING);
+            long start = System.nanoTime();
+            int products = catalogSnapshotService.importFrom(upload);
+            return ResponseEntity.status(HttpStatus.OK)
+                    .body(new SnapshotImportDTO(products, (System.nanoTime() - start) / 1_000_000));
+        } catch (CorruptSnapshotException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Snapshot inválido: " + ex.getMessage(), ex);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.raphael.mscatalog.controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.mscatalog.admission.Admission;
+import com.raphael.mscatalog.admission.EndpointClass;
+import com.raphael.mscatalog.dto.BulkResultDTO;
+import com.raphael.mscatalog.dto.ProductBulkUpdateDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.services.ProductBulkService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/productInventory/productManagement/v1/products/bulk")
+public class ProductBulkController {
+
+    private final ProductBulkService productBulkService;
+    private final ObjectMapper objectMapper;
+
+    @Admission(EndpointClass.BULK)
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultDTO> createAll(@RequestBody List<ProductCreateDTO> createDTOs) {
+        checkSize(createDTOs);
+        return ResponseEntity.status(HttpStatus.OK).body(productBulkService.createAll(createDTOs));
+    }
+
+    @Admission(EndpointClass.BULK)
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResultDTO> createAllNdjson(HttpServletRequest request) throws IOException {
+        return createAll(readNdjson(request, ProductCreateDTO.class));
+    }
+
+    @Admission(EndpointClass.BULK)
+    @PutMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultDTO> updateAll(@RequestBody List<ProductBulkUpdateDTO> updateDTOs) {
+        checkSize(updateDTOs);
+        return ResponseEntity.status(HttpStatus.OK).body(productBulkService.updateAll(updateDTOs));
+    }
+
+    @Admission(EndpointClass.BULK)
+    @PutMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BulkResultDTO> updateAllNdjson(HttpServletRequest request) throws IOException {
+        return updateAll(readNdjson(request, ProductBulkUpdateDTO.class));
+    }
+
+    @Admission(EndpointClass.BULK)
+    @PostMapping(value = "/delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkResultDTO> deleteAll(@RequestBody List<Long> ids) {
+        checkSize(ids);
+        return ResponseEntity.status(HttpStatus.OK).body(productBulkService.deleteAll(ids));
+    }
+
+    /**
+     * Reads one JSON object per line. A line that cannot be parsed becomes a {@code null} item, which the bulk
+     * service reports as a failure at that position instead of rejecting the whole request.
+     */
+    private <T> List<T> readNdjson(HttpServletRequest request, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        var reader = objectMapper.readerFor(type);
+
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    items.add(reader.readValue(line));
+                } catch (JsonProcessingException ex) {
+                    items.add(null);
+                }
+                checkSize(items);
+            }
+        }
+        return items;
+    }
+
+    private static void checkSize(List<?> items) {
+        if (items.size() > ProductBulkService.MAX_ITEMS) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    String.format("A requisição excede o limite de %d itens", ProductBulkService.MAX_ITEMS));
+        }
+    }
+}
@@ -1,52 +1,163 @@
 package com.raphael.mscatalog.controllers;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.mscatalog.admission.Admission;
+import com.raphael.mscatalog.admission.EndpointClass;
+import com.raphael.mscatalog.dto.ProductChangeBatchDTO;
 import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductLookupDTO;
 import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
+import com.raphael.mscatalog.json.ProductJsonWriter;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSort;
+import com.raphael.mscatalog.services.CatalogVersion;
+import com.raphael.mscatalog.services.ProductChangeFeed;
 import com.raphael.mscatalog.services.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RequiredArgsConstructor
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/productInventory/productManagement/v1/products")
 public class ProductController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String CHANGE_CURSOR_HEADER = "X-Change-Cursor";
+
+    private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+
     private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final ProductChangeFeed productChangeFeed;
+    private final ObjectMapper objectMapper;
 
+    @Admission(EndpointClass.WRITE)
     @PostMapping
     public ResponseEntity<ProductResponseDTO> create(@Valid @RequestBody ProductCreateDTO createDTO) {
         var newProduct = productService.create(createDTO);
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(newProduct);
+        return ProductETags.versioned(ResponseEntity.status(HttpStatus.CREATED), newProduct);
     }
 
+    @Admission(EndpointClass.LOOKUP)
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
         var product = productService.findById(id);
 
-        return ResponseEntity.status(HttpStatus.OK).body(product);
+        // A matching If-None-Match / If-Modified-Since turns this into a 304 before the body is serialized.
+        return ProductETags.versioned(ResponseEntity.status(HttpStatus.OK), product);
     }
 
+    @Admission(EndpointClass.SCAN)
     @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        List<ProductResponseDTO> products = productService.findAll();
+    public ResponseEntity<List<ProductResponseDTO>> getAllProducts(@RequestParam(required = false) Long after_id,
+                                                                   @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size,
+                                                                   WebRequest webRequest) {
+        return CatalogETags.ifNoneMatch(catalogVersion, webRequest, () -> {
+            List<ProductResponseDTO> products = productService.findPage(after_id, size);
+
+            var response = ResponseEntity.status(HttpStatus.OK);
+            if (!products.isEmpty() && products.size() >= ProductService.pageSize(size)) {
+                Long nextCursor = products.get(products.size() - 1).getId();
+                String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("after_id", nextCursor)
+                        .toUriString();
+                response.header(NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                        .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(products);
+        });
+    }
+
+    /**
+     * Multi-get for a handful of ids ({@code ?ids=1,2,3}); {@code POST /lookup} takes larger sets in the body.
+     */
+    @Admission(EndpointClass.LOOKUP)
+    @GetMapping(params = "ids")
+    public ResponseEntity<ProductLookupDTO> getProductsByIds(@RequestParam List<Long> ids, WebRequest webRequest) {
+        return CatalogETags.ifNoneMatch(catalogVersion, webRequest, () -> lookup(ids));
+    }
+
+    @Admission(EndpointClass.LOOKUP)
+    @PostMapping("/lookup")
+    public ResponseEntity<ProductLookupDTO> lookup(@RequestBody List<Long> ids) {
+        if (ids.size() > ProductService.MAX_LOOKUP_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    String.format("A requisição excede o limite de %d ids", ProductService.MAX_LOOKUP_SIZE));
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(productService.findAllById(ids));
+    }
+
+    /**
+     * Full catalog export. {@code X-Change-Cursor} is taken before the export starts: replaying the change feed from it
+     * brings the copy up to date, re-applying at worst a few changes the export already included.
+     */
+    @Admission(value = EndpointClass.SCAN, latencySampled = false)
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        long changeCursor = productChangeFeed.watermark();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+                generator.setRootValueSeparator(NDJSON_SEPARATOR);
+                ProductJsonWriter writer = new ProductJsonWriter(generator);
+                productService.streamAll(product -> {
+                    try {
+                        writer.write(product);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .header(CHANGE_CURSOR_HEADER, String.valueOf(changeCursor))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 
-        return ResponseEntity.status(HttpStatus.OK).body(products);
+    @GetMapping("/changes")
+    public CompletableFuture<ResponseEntity<ProductChangeBatchDTO>> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "" + ProductChangeFeed.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "0") long wait) {
+        return productChangeFeed.poll(since, limit, Duration.ofSeconds(wait))
+                .thenApply(changes -> ResponseEntity.status(HttpStatus.OK).body(changes));
     }
 
+    @Admission(EndpointClass.WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponseDTO> updateProduct(@PathVariable Long id,
-                                                            @Valid @RequestBody ProductCreateDTO updateDTO) {
-        var product = productService.update(id, updateDTO);
+                                                            @Valid @RequestBody ProductCreateDTO updateDTO,
+                                                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        var product = productService.update(id, updateDTO, ProductETags.expectedVersion(id, ifMatch));
 
-        return ResponseEntity.status(HttpStatus.OK).body(product);
+        return ProductETags.versioned(ResponseEntity.status(HttpStatus.OK), product);
     }
 
+    @Admission(EndpointClass.WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<ProductResponseDTO> deleteProduct(@PathVariable Long id) {
         productService.delete(id);
@@ -54,12 +165,50 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
+    @Admission(EndpointClass.SCAN)
     @GetMapping("/search")
     public ResponseEntity<List<ProductResponseDTO>> search(@RequestParam(name = "q", required = false) String query,
                                                            @RequestParam(required = false) Double min_price,
-                                                           @RequestParam(required = false) Double max_price) {
-        List<ProductResponseDTO> products = productService.search(query, min_price, max_price);
+                                                           @RequestParam(required = false) Double max_price,
+                                                           @RequestParam(required = false) String category,
+                                                           @RequestParam(required = false) String brand,
+                                                           @RequestParam(required = false) List<ProductFilter.Attribute> attr,
+                                                           @RequestParam(required = false) ProductSort sort,
+                                                           WebRequest webRequest) {
+        return CatalogETags.ifNoneMatch(catalogVersion, webRequest, () -> {
+            List<ProductResponseDTO> products = productService.search(query, min_price, max_price,
+                    ProductFilter.of(category, brand, attr), sort);
+
+            return ResponseEntity.status(HttpStatus.OK).body(products);
+        });
+    }
+
+    @Admission(EndpointClass.SCAN)
+    @GetMapping("/search/facets")
+    public ResponseEntity<SearchFacetsDTO> facets(@RequestParam(name = "q", required = false) String query,
+                                                  @RequestParam(required = false) Double min_price,
+                                                  @RequestParam(required = false) Double max_price,
+                                                  @RequestParam(required = false) String category,
+                                                  @RequestParam(required = false) String brand,
+                                                  @RequestParam(required = false) List<ProductFilter.Attribute> attr,
+                                                  WebRequest webRequest) {
+        return CatalogETags.ifNoneMatch(catalogVersion, webRequest, () -> {
+            SearchFacetsDTO facets = productService.facets(query, min_price, max_price,
+                    ProductFilter.of(category, brand, attr));
+
+            return ResponseEntity.status(HttpStatus.OK).body(facets);
+        });
+    }
+
+    @Admission(EndpointClass.LOOKUP)
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam(name = "q", required = false) String query,
+                                                       @RequestParam(defaultValue = "" + ProductService.DEFAULT_SUGGESTIONS) int limit,
+                                                       WebRequest webRequest) {
+        return CatalogETags.ifNoneMatch(catalogVersion, webRequest, () -> {
+            List<SuggestionDTO> suggestions = productService.suggest(query, limit);
 
-        return ResponseEntity.status(HttpStatus.OK).body(products);
+            return ResponseEntity.status(HttpStatus.OK).body(suggestions);
+        });
     }
 }
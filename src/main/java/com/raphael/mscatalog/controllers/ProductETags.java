@@ -0,0 +1,48 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ETag handling shared by the servlet and reactive product controllers. A product's ETag is {@code "id-version"}.
+ */
+final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    static ResponseEntity<ProductResponseDTO> versioned(ResponseEntity.BodyBuilder response, ProductResponseDTO product) {
+        if (product.getVersion() != null) {
+            response.eTag(product.getId() + "-" + product.getVersion());
+        }
+        if (product.getUpdatedAt() != null) {
+            response.lastModified(product.getUpdatedAt());
+        }
+        return response.body(product);
+    }
+
+    /**
+     * Extracts the version from an {@code If-Match} header holding one of this product's ETags. Returns null when
+     * there is no precondition ({@code *} or no header at all).
+     */
+    static Long expectedVersion(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith(prefix) && value.endsWith("\"") && value.length() > prefix.length() + 1) {
+                try {
+                    return Long.valueOf(value.substring(prefix.length(), value.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // not one of ours, keep looking
+                }
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Produto foi alterado por outra requisição, recarregue e tente novamente");
+    }
+}
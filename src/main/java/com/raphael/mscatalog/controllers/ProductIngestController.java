@@ -0,0 +1,51 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.admission.Admission;
+import com.raphael.mscatalog.admission.EndpointClass;
+import com.raphael.mscatalog.dto.IngestStatusDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.ingest.ProductIngestService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "mscatalog.ingest.enabled", havingValue = "true")
+@RequestMapping("/productInventory/productManagement/v1/products/ingest")
+public class ProductIngestController {
+
+    private final ProductIngestService productIngestService;
+
+    @Admission(EndpointClass.WRITE)
+    @PostMapping
+    public ResponseEntity<IngestStatusDTO> create(@Valid @RequestBody ProductCreateDTO createDTO) {
+        return accepted(productIngestService.submit(null, createDTO));
+    }
+
+    @Admission(EndpointClass.WRITE)
+    @PutMapping("/{id}")
+    public ResponseEntity<IngestStatusDTO> update(@PathVariable Long id,
+                                                  @Valid @RequestBody ProductCreateDTO updateDTO) {
+        return accepted(productIngestService.submit(id, updateDTO));
+    }
+
+    @Admission(EndpointClass.LOOKUP)
+    @GetMapping("/requests/{requestId}")
+    public ResponseEntity<IngestStatusDTO> status(@PathVariable long requestId) {
+        return ResponseEntity.ok(productIngestService.status(requestId));
+    }
+
+    private static ResponseEntity<IngestStatusDTO> accepted(IngestStatusDTO status) {
+        var location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/productInventory/productManagement/v1/products/ingest/requests/{requestId}")
+                .buildAndExpand(status.getRequestId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+}
@@ -0,0 +1,130 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.dto.ProductChangeBatchDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSort;
+import com.raphael.mscatalog.services.CatalogVersion;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import com.raphael.mscatalog.services.ProductService;
+import com.raphael.mscatalog.services.ReactiveProductService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Same endpoints as {@link ProductController}, served by WebFlux when the reactive profile is active.
+ */
+@RequiredArgsConstructor
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/productInventory/productManagement/v1/products")
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+    private final CatalogVersion catalogVersion;
+    private final ProductChangeFeed productChangeFeed;
+
+    @PostMapping
+    public Mono<ResponseEntity<ProductResponseDTO>> create(@Valid @RequestBody ProductCreateDTO createDTO) {
+        return reactiveProductService.create(createDTO)
+                .map(newProduct -> ProductETags.versioned(ResponseEntity.status(HttpStatus.CREATED), newProduct));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponseDTO>> getProductById(@PathVariable Long id) {
+        return reactiveProductService.findById(id)
+                .map(product -> ProductETags.versioned(ResponseEntity.status(HttpStatus.OK), product));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<List<ProductResponseDTO>>> getAllProducts(@RequestParam(required = false) Long after_id,
+                                                                         @RequestParam(defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int size,
+                                                                         ServerWebExchange exchange) {
+        if (exchange.checkNotModified(catalogVersion.etag())) {
+            return Mono.empty();
+        }
+        return reactiveProductService.findPage(after_id, size).collectList().map(products -> {
+            var response = ResponseEntity.status(HttpStatus.OK);
+            if (!products.isEmpty() && products.size() >= ProductService.pageSize(size)) {
+                Long nextCursor = products.get(products.size() - 1).getId();
+                String next = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                        .replaceQueryParam("after_id", nextCursor)
+                        .toUriString();
+                response.header(ProductController.NEXT_CURSOR_HEADER, String.valueOf(nextCursor))
+                        .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            }
+            return response.body(products);
+        });
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<ProductResponseDTO>>> streamAllProducts() {
+        return Mono.fromCallable(productChangeFeed::watermark)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(changeCursor -> ResponseEntity.status(HttpStatus.OK)
+                        .header(ProductController.CHANGE_CURSOR_HEADER, String.valueOf(changeCursor))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(reactiveProductService.streamAll()));
+    }
+
+    @GetMapping("/changes")
+    public Mono<ResponseEntity<ProductChangeBatchDTO>> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "" + ProductChangeFeed.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "0") long wait) {
+        return Mono.fromFuture(() -> productChangeFeed.poll(since, limit, Duration.ofSeconds(wait)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(changes -> ResponseEntity.status(HttpStatus.OK).body(changes));
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponseDTO>> updateProduct(@PathVariable Long id,
+                                                                  @Valid @RequestBody ProductCreateDTO updateDTO,
+                                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return reactiveProductService.update(id, updateDTO, ProductETags.expectedVersion(id, ifMatch))
+                .map(product -> ProductETags.versioned(ResponseEntity.status(HttpStatus.OK), product));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable Long id) {
+        return reactiveProductService.delete(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.NO_CONTENT).build()));
+    }
+
+    /**
+     * Emits the matches as a JSON array, or one object per line for {@code application/x-ndjson}, writing each one as
+     * it arrives instead of buffering the whole result.
+     */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<ProductResponseDTO>>> search(@RequestParam(name = "q", required = false) String query,
+                                                                 @RequestParam(required = false) Double min_price,
+                                                                 @RequestParam(required = false) Double max_price,
+                                                                 @RequestParam(required = false) String category,
+                                                                 @RequestParam(required = false) String brand,
+                                                                 @RequestParam(required = false)
+                                                                 List<ProductFilter.Attribute> attr,
+                                                                 @RequestParam(required = false) ProductSort sort,
+                                                                 ServerWebExchange exchange) {
+        if (exchange.checkNotModified(catalogVersion.etag())) {
+            return Mono.empty();
+        }
+        return Mono.just(ResponseEntity.status(HttpStatus.OK)
+                .body(reactiveProductService.search(query, min_price, max_price,
+                        ProductFilter.of(category, brand, attr), sort)));
+    }
+}
@@ -0,0 +1,37 @@
+package com.raphael.mscatalog.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work goes to, read by {@link ShardRoutingDataSource} when a connection is
+ * fetched. Outside any scope connections go to shard 0. Scopes nest and are per thread; use
+ * {@link ProductShards} rather than this class to pick the shard of a product.
+ * <p>
+ * As with {@link PrimaryReads}, connections are fetched lazily, so a scope opened inside a {@code @Transactional}
+ * method decides where the whole transaction runs, provided its first statement runs inside the scope.
+ */
+public final class CurrentShard {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private CurrentShard() {
+    }
+
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer outer = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (outer == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(outer);
+            }
+        }
+    }
+
+    static Integer get() {
+        return SHARD.get();
+    }
+}
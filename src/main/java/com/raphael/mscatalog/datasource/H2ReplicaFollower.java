@@ -0,0 +1,202 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stand-in for database replication when the replicas are local H2 databases (development and tests): copies the
+ * primary into every replica with H2's {@code SCRIPT}, then replays the change feed into them every
+ * {@code interval}, up to the feed's watermark so that changes are applied in order with none skipped. Replaying is
+ * idempotent ({@code MERGE}), so a copy only has to start from the watermark taken before it.
+ * <p>
+ * A snapshot import rewrites the catalog without going through the change feed, so it triggers a new copy.
+ */
+@Slf4j
+public class H2ReplicaFollower implements SmartLifecycle {
+
+    static final int BATCH_SIZE = 1000;
+    private static final int CHANGE_COLUMNS = 11;
+
+    private static final String SELECT_CHANGES = "SELECT id, type, product_id, name, description, price_cents, " +
+            "category, brand, attributes, product_version, changed_at FROM tb_product_change " +
+            "WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+    private static final String MERGE_CHANGE = "MERGE INTO tb_product_change (id, type, product_id, name, description, " +
+            "price_cents, category, brand, attributes, product_version, changed_at) KEY (id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String MERGE_PRODUCT = "MERGE INTO tb_product (id, name, description, price_cents, category, " +
+            "brand, attributes, version, updated_at) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, COALESCE(?, 0), ?)";
+    private static final String DELETE_PRODUCT = "DELETE FROM tb_product WHERE id = ?";
+
+    private final DataSource primary;
+    private final ReplicaRoutingDataSource routing;
+    private final ProductChangeFeed productChangeFeed;
+    private final Duration interval;
+
+    private final AtomicBoolean copyNeeded = new AtomicBoolean(true);
+    private volatile ScheduledExecutorService executor;
+    // Last change id applied to every replica; only touched by the follower thread.
+    private long applied;
+
+    public H2ReplicaFollower(DataSource primary, ReplicaRoutingDataSource routing, ProductChangeFeed productChangeFeed,
+                             Duration interval) {
+        this.primary = primary;
+        this.routing = routing;
+        this.productChangeFeed = productChangeFeed;
+        this.interval = interval;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        copyNeeded.set(true);
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "h2-replica-follower");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::follow, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * One replication round: a full copy if one is pending, then every change up to the current watermark.
+     */
+    void follow() {
+        try {
+            if (copyNeeded.getAndSet(false)) {
+                try {
+                    copy();
+                } catch (SQLException | RuntimeException ex) {
+                    copyNeeded.set(true);
+                    throw ex;
+                }
+            }
+            int replayed;
+            do {
+                replayed = replay(productChangeFeed.watermark());
+            } while (replayed == BATCH_SIZE);
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Failed to replicate the primary into the H2 replicas, retrying in {}", interval, ex);
+        }
+    }
+
+    private void copy() throws SQLException {
+        long position = productChangeFeed.watermark();
+        for (DataSource replica : routing.replicaDataSources()) {
+            try (Connection source = primary.getConnection();
+                 Statement script = source.createStatement();
+                 Connection target = replica.getConnection();
+                 Statement statement = target.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                // Take the emptied replica out of rotation now rather than at the next health check.
+                routing.checkHealth();
+                try (ResultSet statements = script.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+                    while (statements.next()) {
+                        String sql = statements.getString(1);
+                        if (!sql.startsWith("--")) {
+                            statement.execute(sql);
+                        }
+                    }
+                }
+            }
+        }
+        applied = position;
+        log.info("Copied the primary into {} H2 replica(s) at change {}", routing.replicaDataSources().size(), position);
+    }
+
+    /**
+     * Applies the next batch of changes up to {@code watermark} to every replica and returns how many it read.
+     */
+    private int replay(long watermark) throws SQLException {
+        if (watermark <= applied) {
+            return 0;
+        }
+        List<Object[]> changes = new ArrayList<>();
+        try (Connection source = primary.getConnection();
+             PreparedStatement select = source.prepareStatement(SELECT_CHANGES)) {
+            select.setLong(1, applied);
+            select.setLong(2, watermark);
+            select.setInt(3, BATCH_SIZE);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    Object[] change = new Object[CHANGE_COLUMNS];
+                    for (int i = 0; i < change.length; i++) {
+                        change[i] = resultSet.getObject(i + 1);
+                    }
+                    changes.add(change);
+                }
+            }
+        }
+        for (DataSource replica : routing.replicaDataSources()) {
+            apply(replica, changes);
+        }
+        // A short batch means every change up to the watermark has been read; ids that rolled back never show up.
+        applied = changes.size() == BATCH_SIZE ? (Long) changes.get(changes.size() - 1)[0] : watermark;
+        return changes.size();
+    }
+
+    private static void apply(DataSource replica, List<Object[]> changes) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             PreparedStatement mergeChange = connection.prepareStatement(MERGE_CHANGE);
+             PreparedStatement mergeProduct = connection.prepareStatement(MERGE_PRODUCT);
+             PreparedStatement deleteProduct = connection.prepareStatement(DELETE_PRODUCT)) {
+            connection.setAutoCommit(false);
+            try {
+                for (Object[] change : changes) {
+                    for (int i = 0; i < change.length; i++) {
+                        mergeChange.setObject(i + 1, change[i]);
+                    }
+                    mergeChange.executeUpdate();
+                    if (ProductChangedEvent.Type.DELETED.name().equals(change[1])) {
+                        deleteProduct.setObject(1, change[2]);
+                        deleteProduct.executeUpdate();
+                    } else {
+                        // product_id, then name through changed_at, line up with the product columns.
+                        mergeProduct.setObject(1, change[2]);
+                        for (int i = 3; i < change.length; i++) {
+                            mergeProduct.setObject(i - 1, change[i]);
+                        }
+                        mergeProduct.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.raphael.mscatalog.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the reads of a block on the primary database even when read replicas are configured, for reads that are
+ * paired with state only the primary is guaranteed to have: the change feed watermark, the ingest checkpoint, the
+ * cursor returned by {@code /products/stream}, what goes into the products cache. Scopes nest and are per thread, and
+ * {@link ProductShards#scatter} carries them over to its shard queries. Without replicas this is a no-op.
+ * <p>
+ * Connections are fetched lazily, on the first statement of a transaction, so a scope opened inside a
+ * {@code @Transactional(readOnly = true)} method still decides where that transaction reads.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Integer> DEPTH = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> reads) {
+        enter();
+        try {
+            return reads.get();
+        } finally {
+            exit();
+        }
+    }
+
+    public static void run(Runnable reads) {
+        call(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    public static boolean required() {
+        return DEPTH.get() != null;
+    }
+
+    /**
+     * Wraps {@code reads} to run on another thread with the scope of the calling one.
+     */
+    static <T> Supplier<T> inherit(Supplier<T> reads) {
+        return required() ? () -> call(reads) : reads;
+    }
+
+    static void enter() {
+        Integer outer = DEPTH.get();
+        DEPTH.set(outer == null ? 1 : outer + 1);
+    }
+
+    static void exit() {
+        int depth = DEPTH.get();
+        if (depth == 1) {
+            DEPTH.remove();
+        } else {
+            DEPTH.set(depth - 1);
+        }
+    }
+}
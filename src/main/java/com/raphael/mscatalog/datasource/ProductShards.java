@@ -0,0 +1,202 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Where product data lives when the catalog is sharded: a product, and the change log entries about it, belong to the
+ * shard its id hashes to. Point reads and writes run on that one shard; reads over the whole catalog
+ * {@linkplain #scatter scatter} to every shard in parallel and {@linkplain #merge merge} the results.
+ * <p>
+ * Shards are picked by hash modulo the shard count, so changing the count moves most products: export a snapshot with
+ * the old count and import it with the new one. Without {@link ShardRoutingDataSource} there is a single shard and
+ * every method simply runs the work on the calling thread.
+ */
+@Component
+public class ProductShards implements DisposableBean {
+
+    private final int count;
+    private final ExecutorService executor;
+    private final CatalogMetrics catalogMetrics;
+
+    @Autowired
+    public ProductShards(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                         @Value("${mscatalog.datasource.shards.query-threads:0}") int queryThreads,
+                         CatalogMetrics catalogMetrics) {
+        this(shardRoutingDataSource.stream().mapToInt(ShardRoutingDataSource::shardCount).findFirst().orElse(1),
+                queryThreads, catalogMetrics);
+    }
+
+    /**
+     * {@code queryThreads} bounds the shard queries running at once for scatter reads; 0 means four per shard.
+     */
+    public ProductShards(int count, int queryThreads, CatalogMetrics catalogMetrics) {
+        this.count = count;
+        this.catalogMetrics = catalogMetrics;
+        if (count == 1) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(queryThreads > 0 ? queryThreads : 4 * count, task -> {
+            Thread thread = new Thread(task, "shard-query-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(long productId) {
+        return shardOf(productId, count);
+    }
+
+    public static int shardOf(long productId, int count) {
+        if (count == 1) {
+            return 0;
+        }
+        // Ids of the same millisecond differ only in their low bits: mix every bit in (MurmurHash3's finalizer).
+        long hash = productId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) count);
+    }
+
+    /**
+     * Runs {@code work} against one shard, on the calling thread.
+     */
+    public <T> T call(int shard, Supplier<T> work) {
+        return count == 1 ? work.get() : CurrentShard.call(shard, work);
+    }
+
+    public void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public <T> T callForProduct(long productId, Supplier<T> work) {
+        return call(shardOf(productId), work);
+    }
+
+    public void runForProduct(long productId, Runnable work) {
+        run(shardOf(productId), work);
+    }
+
+    /**
+     * Runs {@code query} against every shard in parallel and returns the results by shard. Each shard gets its own
+     * connection and transaction, so the calling thread's transaction, if any, plays no part; its {@link PrimaryReads}
+     * and {@link ReplicaReads} scopes do. If a shard fails, so does the whole read.
+     */
+    public <T> List<T> scatter(IntFunction<T> query) {
+        if (count == 1) {
+            return Collections.singletonList(query.apply(0));
+        }
+        List<CompletableFuture<T>> queries = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            Supplier<T> shardQuery = ReplicaReads.inherit(PrimaryReads.inherit(
+                    () -> CurrentShard.call(target, () -> query.apply(target))));
+            queries.add(CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return shardQuery.get();
+                } finally {
+                    catalogMetrics.shardQuery(target, System.nanoTime() - start);
+                }
+            }, executor));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (CompletableFuture<T> shardQuery : queries) {
+            try {
+                results.add(shardQuery.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Splits {@code items} by shard, keeping their order within each shard. Returns one list per shard, some of them
+     * possibly empty.
+     */
+    public <T> List<List<T>> partition(Collection<T> items, ToLongFunction<T> productIdOf) {
+        if (count == 1) {
+            return List.of(items instanceof List<T> list ? list : new ArrayList<>(items));
+        }
+        List<List<T>> shards = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            shards.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            shards.get(shardOf(productIdOf.applyAsLong(item))).add(item);
+        }
+        return shards;
+    }
+
+    /**
+     * Merges per-shard results that are each sorted by {@code order} into the first {@code limit} overall.
+     */
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        if (sorted.size() == 1) {
+            List<T> only = sorted.get(0);
+            return only.size() <= limit ? only : only.subList(0, limit);
+        }
+        // Heads of the lists not yet exhausted, as [shard, position] pairs.
+        PriorityQueue<int[]> heads = new PriorityQueue<>(sorted.size(),
+                (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int shard = 0; shard < sorted.size(); shard++) {
+            if (!sorted.get(shard).isEmpty()) {
+                heads.add(new int[]{shard, 0});
+                total += sorted.get(shard).size();
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(total, limit));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> shard = sorted.get(head[0]);
+            merged.add(shard.get(head[1]));
+            if (++head[1] < shard.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.admission.AdmissionInterceptor;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Runs every request in a {@link ReplicaRoutingDataSource.ClientScope} for its client, told apart the way admission
+ * control does it ({@value AdmissionInterceptor#CLIENT_ID_HEADER}, else the remote address), so that a client reads
+ * its own writes while the other clients keep reading the replicas.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    public ReadYourWritesFilter(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (var scope = replicaRoutingDataSource.openClientScope(AdmissionInterceptor.clientId(request))) {
+            chain.doFilter(request, response);
+        }
+    }
+}
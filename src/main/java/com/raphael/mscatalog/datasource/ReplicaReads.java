@@ -0,0 +1,86 @@
+package com.raphael.mscatalog.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Tells whether the reads of a block were served by a read replica. A replica may be behind the primary, so what it
+ * returns goes to the request that asked for it but not into state shared by every client: the compressed response
+ * cache and the catalog ETag. Scopes nest (a replica read counts for every enclosing scope) and are per thread, and
+ * {@link ProductShards#scatter} carries them over to its shard queries. Without replicas nothing is ever recorded.
+ * <pre>{@code
+ * try (ReplicaReads reads = ReplicaReads.track()) {
+ *     products = productService.findPage(afterId, size);
+ *     cacheable = !reads.served();
+ * }
+ * }</pre>
+ */
+public final class ReplicaReads implements AutoCloseable {
+
+    private static final ThreadLocal<ReplicaReads> CURRENT = new ThreadLocal<>();
+
+    private final ReplicaReads outer;
+    private volatile boolean served;
+
+    private ReplicaReads(ReplicaReads outer) {
+        this.outer = outer;
+    }
+
+    public static ReplicaReads track() {
+        ReplicaReads reads = new ReplicaReads(CURRENT.get());
+        CURRENT.set(reads);
+        return reads;
+    }
+
+    /**
+     * Whether a replica handed out a connection in this scope so far.
+     */
+    public boolean served() {
+        return served;
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+            if (served) {
+                outer.served = true;
+            }
+        }
+    }
+
+    /**
+     * Records a replica read in the current scope, if any. Called by the routing datasource, and by code handing a
+     * result read by another thread from a replica to this one.
+     */
+    public static void recordServed() {
+        ReplicaReads reads = CURRENT.get();
+        if (reads != null) {
+            reads.served = true;
+        }
+    }
+
+    /**
+     * Wraps {@code reads} to run on another thread, recording into the scope of the calling one.
+     */
+    static <T> Supplier<T> inherit(Supplier<T> reads) {
+        ReplicaReads scope = CURRENT.get();
+        if (scope == null) {
+            return reads;
+        }
+        return () -> {
+            ReplicaReads previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return reads.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+}
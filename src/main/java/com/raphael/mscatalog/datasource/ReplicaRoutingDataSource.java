@@ -0,0 +1,389 @@
+package com.raphael.mscatalog.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Read side of the datasource when read replicas are configured: the read-only target of a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so every {@code readOnly} transaction
+ * takes its connection from here and everything else from {@link #primaryForWrites()}.
+ * <p>
+ * Connections are spread round-robin over the replicas in rotation. A background check puts a replica in rotation
+ * only if it answers and has replayed everything the primary had {@code maxLag} ago, comparing the result of the
+ * position query on both (the highest change feed id by default). A replica that fails to hand out a connection
+ * leaves the rotation until the next check; with none left, reads fall back to the primary.
+ * <p>
+ * Read-your-writes is per client: inside a {@linkplain #openClientScope client scope}, a write restarts that client's
+ * window, and until every replica in rotation must have replayed it ({@code maxLag} plus two check intervals) the
+ * client's reads stay on the primary. Other clients keep reading the replicas. Reads in {@link PrimaryReads} scopes
+ * always go to the primary, and replica reads are recorded in {@link ReplicaReads} scopes, so that state shared by
+ * every client (the products cache, the compressed response cache, the catalog ETag) is never built from a replica.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public static final String DEFAULT_POSITION_QUERY = "SELECT COALESCE(MAX(id), 0) FROM tb_product_change";
+
+    private static final long MAX_TRACKED_CLIENTS = 100_000;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final String positionQuery;
+    private final long maxLagNanos;
+    private final long checkIntervalNanos;
+    private final long readYourWritesNanos;
+    private final LongSupplier clock;
+    private final CatalogMetrics catalogMetrics;
+
+    private final DataSource primaryForWrites;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Cache<String, Long> lastWrites;
+    private final ThreadLocal<ClientScope> clientScope = new ThreadLocal<>();
+    private volatile List<Replica> inRotation = List.of();
+
+    // Primary positions sampled by the health check that are not yet maxLag old, oldest first, and the newest one
+    // that is; both guarded by this.
+    private final Deque<Position> primaryPositions = new ArrayDeque<>();
+    private Position agedPosition;
+    private ScheduledExecutorService healthChecks;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String positionQuery,
+                                    Duration maxLag, Duration checkInterval, CatalogMetrics catalogMetrics) {
+        this(primary, replicas, positionQuery, maxLag, checkInterval, catalogMetrics, System::nanoTime);
+    }
+
+    ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, String positionQuery,
+                             Duration maxLag, Duration checkInterval, CatalogMetrics catalogMetrics,
+                             LongSupplier clock) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream().map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.positionQuery = positionQuery;
+        this.maxLagNanos = maxLag.toNanos();
+        this.checkIntervalNanos = checkInterval.toNanos();
+        this.readYourWritesNanos = maxLagNanos + 2 * checkIntervalNanos;
+        this.clock = clock;
+        this.catalogMetrics = catalogMetrics;
+        this.primaryForWrites = new WriteTrackingDataSource(primary);
+        this.lastWrites = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_CLIENTS)
+                .expireAfterWrite(Duration.ofNanos(readYourWritesNanos))
+                .ticker(clock::getAsLong)
+                .build();
+        catalogMetrics.replicasInRotation(this, routing -> routing.inRotation.size());
+    }
+
+    /**
+     * The primary, watching the connections taken from it so that a write restarts the read-your-writes window of the
+     * client it was made for.
+     */
+    public DataSource primaryForWrites() {
+        return primaryForWrites;
+    }
+
+    public List<DataSource> replicaDataSources() {
+        return replicas.stream().map(Replica::dataSource).toList();
+    }
+
+    public int replicasInRotation() {
+        return inRotation.size();
+    }
+
+    /**
+     * Runs the rest of the calling thread's work, until the scope is closed, for {@code clientId}: its reads stay on
+     * the primary if the client wrote within the read-your-writes window, or as soon as it writes.
+     */
+    public ClientScope openClientScope(String clientId) {
+        ClientScope scope = new ClientScope(clientId, clientScope.get());
+        clientScope.set(scope);
+        if (lastWrites.getIfPresent(clientId) != null) {
+            scope.pinToPrimary();
+        }
+        return scope;
+    }
+
+    /**
+     * Runs {@link #checkHealth()} every check interval on a daemon thread. The first check waits one interval, so
+     * that the schema exists by then.
+     */
+    public synchronized void start() {
+        if (healthChecks != null) {
+            return;
+        }
+        healthChecks = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(() -> {
+            try {
+                checkHealth();
+            } catch (RuntimeException ex) {
+                log.warn("Read replica health check failed", ex);
+            }
+        }, checkIntervalNanos, checkIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!PrimaryReads.required()) {
+            List<Replica> candidates = inRotation;
+            for (int attempt = 0; attempt < candidates.size(); attempt++) {
+                Replica replica = candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+                try {
+                    Connection connection = replica.dataSource().getConnection();
+                    ReplicaReads.recordServed();
+                    catalogMetrics.routedRead(replica.name());
+                    return connection;
+                } catch (SQLTransientConnectionException ex) {
+                    // Pool exhausted: the replica is busy, not broken.
+                    log.debug("Read replica {} has no free connection", replica.name(), ex);
+                } catch (SQLException ex) {
+                    log.warn("Read replica {} failed to hand out a connection, taking it out of rotation",
+                            replica.name(), ex);
+                    takeOutOfRotation(replica);
+                }
+            }
+        }
+        catalogMetrics.routedRead("primary");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica connections use the configured credentials");
+    }
+
+    /**
+     * Samples the primary position and puts back in rotation the replicas that answer and are at most
+     * {@code maxLag} behind it; takes the others out. If the primary cannot be read the last samples are kept.
+     */
+    public synchronized void checkHealth() {
+        long now = clock.getAsLong();
+        try {
+            primaryPositions.addLast(new Position(now, position(primary)));
+        } catch (SQLException ex) {
+            if (primaryPositions.isEmpty() && agedPosition == null) {
+                // Startup: the schema is not there yet, and no replica is in rotation anyway.
+                log.debug("Could not read the primary position yet", ex);
+            } else {
+                log.warn("Could not read the primary position, checking replicas against the last one", ex);
+            }
+        }
+        // Every replica must have reached the newest sample that is at least maxLag old (the oldest one until then).
+        while (!primaryPositions.isEmpty() && now - primaryPositions.getFirst().at() >= maxLagNanos) {
+            agedPosition = primaryPositions.removeFirst();
+        }
+        Position reference = agedPosition != null ? agedPosition : primaryPositions.peekFirst();
+        long required = reference == null ? Long.MAX_VALUE : reference.position();
+
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                long position = position(replica.dataSource());
+                healthy = position >= required;
+                if (!healthy && replica.healthy()) {
+                    log.warn("Read replica {} is lagging (at {}, needs {}), taking it out of rotation",
+                            replica.name(), position, required);
+                }
+            } catch (SQLException ex) {
+                healthy = false;
+                if (replica.healthy()) {
+                    log.warn("Read replica {} is unreachable, taking it out of rotation", replica.name(), ex);
+                }
+            }
+            if (healthy && !replica.healthy()) {
+                log.info("Read replica {} is in rotation", replica.name());
+            }
+            replica.healthy(healthy);
+        }
+        inRotation = replicas.stream().filter(Replica::healthy).toList();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("Failed to close read replica {}", replica.name(), ex);
+                }
+            }
+        }
+    }
+
+    private void recordWrite() {
+        ClientScope scope = clientScope.get();
+        if (scope != null) {
+            lastWrites.put(scope.clientId, clock.getAsLong());
+            scope.pinToPrimary();
+        }
+    }
+
+    /**
+     * Not synchronized: request threads must not wait behind a health check. A check running concurrently may put the
+     * replica back, which only means one more failed attempt before the next check.
+     */
+    private void takeOutOfRotation(Replica replica) {
+        replica.healthy(false);
+        inRotation = replicas.stream().filter(Replica::healthy).toList();
+    }
+
+    private long position(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(positionQuery)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0L;
+        }
+    }
+
+    private record Position(long at, long position) {
+    }
+
+    /**
+     * A client's share of a request thread; see {@link #openClientScope}. Must be closed on the thread that opened it.
+     */
+    public final class ClientScope implements AutoCloseable {
+
+        private final String clientId;
+        private final ClientScope outer;
+        private boolean pinned;
+
+        private ClientScope(String clientId, ClientScope outer) {
+            this.clientId = clientId;
+            this.outer = outer;
+        }
+
+        private void pinToPrimary() {
+            if (!pinned) {
+                pinned = true;
+                PrimaryReads.enter();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (pinned) {
+                PrimaryReads.exit();
+            }
+            if (outer == null) {
+                clientScope.remove();
+            } else {
+                clientScope.set(outer);
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private DataSource dataSource() {
+            return dataSource;
+        }
+
+        private boolean healthy() {
+            return healthy;
+        }
+
+        private void healthy(boolean healthy) {
+            this.healthy = healthy;
+        }
+    }
+
+    /**
+     * Hands out primary connections wrapped so that closing one that ran statements, which happens after its
+     * transaction has committed or rolled back, restarts the read-your-writes window of the current client. Connections
+     * only taken to probe defaults or metadata do not.
+     */
+    private final class WriteTrackingDataSource extends DelegatingDataSource {
+
+        private WriteTrackingDataSource(DataSource primary) {
+            super(primary);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return track(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return track(super.getConnection(username, password));
+        }
+
+        private Connection track(Connection connection) {
+            AtomicBoolean used = new AtomicBoolean();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                    new Class<?>[]{ConnectionProxy.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "getTargetConnection" -> connection;
+                        case "close" -> {
+                            if (closed.compareAndSet(false, true)) {
+                                try {
+                                    connection.close();
+                                } finally {
+                                    if (used.get()) {
+                                        recordWrite();
+                                    }
+                                }
+                            }
+                            yield null;
+                        }
+                        default -> {
+                            if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                                used.set(true);
+                            }
+                            try {
+                                yield method.invoke(connection, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getTargetException();
+                            }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.raphael.mscatalog.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard of the current {@link CurrentShard} scope, and to shard 0 outside of one. Meant
+ * to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, so that the shard is
+ * picked on a transaction's first statement rather than when it begins.
+ * <p>
+ * Shard 0 is the application's own datasource and also keeps the tables that are not sharded (the ingest
+ * checkpoint). {@link #close()} closes the other shards.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            targets.put(shard, shards.get(shard));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        // An unknown shard is a bug, not a reason to quietly use shard 0.
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CurrentShard.get();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public List<DataSource> shardDataSources() {
+        return shards;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : shards.subList(1, shards.size())) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
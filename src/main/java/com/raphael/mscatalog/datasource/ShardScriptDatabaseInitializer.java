@@ -0,0 +1,67 @@
+package com.raphael.mscatalog.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Spring Boot's SQL script initialization ({@code spring.sql.init.*}) run on every shard, where Boot's own would only
+ * reach shard 0. Being a {@link SqlDataSourceScriptDatabaseInitializer}, it takes the place of Boot's.
+ * <p>
+ * Every shard runs the same {@code data.sql}, so each gets all of its sample products and then deletes those whose
+ * id hashes to another shard.
+ */
+@Slf4j
+public class ShardScriptDatabaseInitializer extends SqlDataSourceScriptDatabaseInitializer {
+
+    private final List<DataSource> shards;
+    private final DatabaseInitializationSettings settings;
+    private ResourceLoader resourceLoader;
+
+    public ShardScriptDatabaseInitializer(List<DataSource> shards, DatabaseInitializationSettings settings) {
+        super(shards.get(0), settings);
+        this.shards = shards;
+        this.settings = settings;
+    }
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        super.setResourceLoader(resourceLoader);
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public boolean initializeDatabase() {
+        boolean initialized = false;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            DataSourceScriptDatabaseInitializer initializer =
+                    new DataSourceScriptDatabaseInitializer(shards.get(shard), settings);
+            if (resourceLoader != null) {
+                initializer.setResourceLoader(resourceLoader);
+            }
+            if (initializer.initializeDatabase()) {
+                initialized = true;
+                deleteOtherShardsProducts(shard);
+            }
+        }
+        return initialized;
+    }
+
+    private void deleteOtherShardsProducts(int shard) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.get(shard));
+        List<Object[]> others = jdbcTemplate.queryForList("SELECT id FROM tb_product", Long.class).stream()
+                .filter(id -> ProductShards.shardOf(id, shards.size()) != shard)
+                .map(id -> new Object[]{id})
+                .toList();
+        if (!others.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM tb_product WHERE id = ?", others);
+            log.debug("Deleted {} products of other shards from shard {}", others.size(), shard);
+        }
+    }
+}
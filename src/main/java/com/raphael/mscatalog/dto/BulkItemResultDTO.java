@@ -0,0 +1,31 @@
+package com.raphael.mscatalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDTO {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, FAILED
+    }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String message;
+    private Map<String, String> errors;
+
+    public static BulkItemResultDTO success(int index, Long id, Status status) {
+        return new BulkItemResultDTO(index, id, status, null, null);
+    }
+
+    public static BulkItemResultDTO failure(int index, Long id, String message, Map<String, String> errors) {
+        return new BulkItemResultDTO(index, id, Status.FAILED, message, errors);
+    }
+}
@@ -0,0 +1,20 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.List;
+
+@Getter
+public class BulkResultDTO {
+
+    private final int succeeded;
+    private final int failed;
+    private final List<BulkItemResultDTO> items;
+
+    public BulkResultDTO(List<BulkItemResultDTO> items) {
+        this.items = items.stream().sorted(Comparator.comparingInt(BulkItemResultDTO::getIndex)).toList();
+        this.failed = (int) items.stream().filter(item -> item.getStatus() == BulkItemResultDTO.Status.FAILED).count();
+        this.succeeded = items.size() - failed;
+    }
+}
@@ -0,0 +1,32 @@
+package com.raphael.mscatalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestStatusDTO {
+
+    public enum Status {
+        PENDING, APPLIED, FAILED
+    }
+
+    private long requestId;
+    private Status status;
+    private Long productId;
+    private String message;
+
+    public static IngestStatusDTO pending(long requestId, Long productId) {
+        return new IngestStatusDTO(requestId, Status.PENDING, productId, null);
+    }
+
+    public static IngestStatusDTO applied(long requestId, Long productId) {
+        return new IngestStatusDTO(requestId, Status.APPLIED, productId, null);
+    }
+
+    public static IngestStatusDTO failed(long requestId, Long productId, String message) {
+        return new IngestStatusDTO(requestId, Status.FAILED, productId, message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.raphael.mscatalog.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductBulkUpdateDTO extends ProductCreateDTO {
+
+    @NotNull(message = "O campo 'id' é obrigatório")
+    private Long id;
+
+    public ProductBulkUpdateDTO(Long id, String name, String description, Double price) {
+        super(name, description, price);
+        this.id = id;
+    }
+}
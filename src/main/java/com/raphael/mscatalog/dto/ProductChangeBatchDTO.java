@@ -0,0 +1,19 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class ProductChangeBatchDTO {
+
+    private final List<ProductChangeDTO> changes;
+    private final long nextCursor;
+    private final boolean hasMore;
+
+    public ProductChangeBatchDTO(List<ProductChangeDTO> changes, long since, int limit) {
+        this.changes = changes;
+        this.nextCursor = changes.isEmpty() ? since : changes.get(changes.size() - 1).getCursor();
+        this.hasMore = changes.size() >= limit;
+    }
+}
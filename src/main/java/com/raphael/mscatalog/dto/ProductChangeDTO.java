@@ -0,0 +1,34 @@
+package com.raphael.mscatalog.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChangeDTO {
+
+    private final Long cursor;
+    private final ProductChangedEvent.Type type;
+    private final Long productId;
+    private final Long productVersion;
+    private final ProductResponseDTO product;
+    private final Instant changedAt;
+
+    public ProductChangeDTO(Long cursor, ProductChangedEvent.Type type, Long productId, String name,
+                            String description, Long priceCents, String category, String brand,
+                            Map<String, String> attributes, Long productVersion, Instant changedAt) {
+        this.cursor = cursor;
+        this.type = type;
+        this.productId = productId;
+        this.productVersion = productVersion;
+        this.product = type == ProductChangedEvent.Type.DELETED
+                ? null
+                : new ProductResponseDTO(productId, name, description, priceCents, category, brand, attributes,
+                        productVersion, null);
+        this.changedAt = changedAt;
+    }
+}
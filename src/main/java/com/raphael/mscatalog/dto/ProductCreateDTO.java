@@ -1,13 +1,17 @@
 package com.raphael.mscatalog.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Map;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,6 +25,25 @@ public class ProductCreateDTO {
     private String description;
 
     @Positive(message = "O preço deve ser maior que zero")
+    @Digits(integer = 13, fraction = 2, message = "O preço deve ter no máximo 13 dígitos inteiros e 2 casas decimais")
     @NotNull(message = "O campo 'price' é obrigatório")
     private Double price;
+
+    @Size(max = 100, message = "O campo 'category' deve ter no máximo 100 caracteres")
+    private String category;
+
+    @Size(max = 100, message = "O campo 'brand' deve ter no máximo 100 caracteres")
+    private String brand;
+
+    @Size(max = 20, message = "O produto pode ter no máximo 20 atributos")
+    private Map<@NotBlank(message = "O nome do atributo é obrigatório")
+                @Size(max = 50, message = "O nome do atributo deve ter no máximo 50 caracteres") String,
+                @NotBlank(message = "O valor do atributo é obrigatório")
+                @Size(max = 100, message = "O valor do atributo deve ter no máximo 100 caracteres") String> attributes;
+
+    public ProductCreateDTO(String name, String description, Double price) {
+        this.name = name;
+        this.description = description;
+        this.price = price;
+    }
 }
@@ -0,0 +1,20 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: the products found, in the order they were asked for, and the ids that do not exist.
+ */
+@Getter
+public class ProductLookupDTO {
+
+    private final List<ProductResponseDTO> products;
+    private final List<Long> missing;
+
+    public ProductLookupDTO(List<ProductResponseDTO> products, List<Long> missing) {
+        this.products = products;
+        this.missing = missing;
+    }
+}
@@ -1,8 +1,16 @@
 package com.raphael.mscatalog.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.raphael.mscatalog.entities.Prices;
 import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.entities.ProductAttributes;
+import com.raphael.mscatalog.entities.ProductRow;
 import lombok.Data;
 
+import java.time.Instant;
+import java.util.Map;
+
 @Data
 public class ProductResponseDTO {
 
@@ -10,11 +18,66 @@ public class ProductResponseDTO {
     private String name;
     private String description;
     private Double price;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String category;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String brand;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private Map<String, String> attributes;
+
+    @JsonIgnore
+    private Long version;
+    @JsonIgnore
+    private Instant updatedAt;
+
+    public ProductResponseDTO(Long id, String name, String description, Double price) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+    }
+
+    public ProductResponseDTO(Long id, String name, String description, Long priceCents, Long version, Instant updatedAt) {
+        this(id, name, description, priceCents, null, null, null, version, updatedAt);
+    }
+
+    /**
+     * Read-model constructor used by the query projections, which hand over the price as stored, in cents.
+     */
+    public ProductResponseDTO(Long id, String name, String description, Long priceCents, String category, String brand,
+                              Map<String, String> attributes, Long version, Instant updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = priceCents == null ? null : Prices.fromCents(priceCents);
+        this.category = category;
+        this.brand = brand;
+        this.attributes = attributes;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
 
     public ProductResponseDTO(Product product) {
         this.id = product.getId();
         this.name = product.getName();
         this.description = product.getDescription();
         this.price = product.getPrice();
+        this.category = product.getCategory();
+        this.brand = product.getBrand();
+        this.attributes = product.getAttributes();
+        this.version = product.getVersion();
+        this.updatedAt = product.getUpdatedAt();
+    }
+
+    public ProductResponseDTO(ProductRow product) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.description = product.getDescription();
+        this.price = product.getPriceCents() == null ? null : Prices.fromCents(product.getPriceCents());
+        this.category = product.getCategory();
+        this.brand = product.getBrand();
+        this.attributes = ProductAttributes.fromJson(product.getAttributes());
+        this.version = product.getVersion();
+        this.updatedAt = product.getUpdatedAt() == null ? null : product.getUpdatedAt().toInstant();
     }
 }
@@ -0,0 +1,42 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts of a search: how many of its matches fall in each category, brand, attribute value and price bucket.
+ * Values are listed by count, most frequent first; price buckets are fixed and always all present.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchFacetsDTO {
+
+    private long total;
+    private List<FacetValue> categories;
+    private List<FacetValue> brands;
+    private Map<String, List<FacetValue>> attributes;
+    private List<PriceBucket> prices;
+
+    @Getter
+    @AllArgsConstructor
+    public static class FacetValue {
+
+        private String value;
+        private long count;
+    }
+
+    /**
+     * Products priced from {@code from} (inclusive) up to {@code to} (exclusive); {@code to} is null for the last bucket.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PriceBucket {
+
+        private Double from;
+        private Double to;
+        private long count;
+    }
+}
@@ -0,0 +1,12 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SnapshotImportDTO {
+
+    private int products;
+    private long elapsedMillis;
+}
@@ -0,0 +1,16 @@
+package com.raphael.mscatalog.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A completion for the search box: the query with its last word completed, and how many products have that word in
+ * their name.
+ */
+@Getter
+@AllArgsConstructor
+public class SuggestionDTO {
+
+    private String text;
+    private long count;
+}
@@ -0,0 +1,26 @@
+package com.raphael.mscatalog.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Highest ingest request id whose outcome is in the database. It is written in the same transaction as the products,
+ * so replaying the ingest journal after a crash never applies a request twice.
+ */
+@Entity
+@Table(name = "tb_ingest_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestCheckpoint {
+
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+    private Long lastRequestId;
+}
@@ -0,0 +1,53 @@
+package com.raphael.mscatalog.entities;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Prices are stored as whole cents ({@code price_cents BIGINT}) so comparisons, sorting and indexes are exact; the API
+ * keeps exposing them as decimal numbers with at most two fraction digits.
+ */
+public final class Prices {
+
+    public static final int SCALE = 2;
+
+    private static final double MAX_PRICE = Long.MAX_VALUE / 100d;
+
+    private Prices() {
+    }
+
+    /**
+     * Converts an API price to cents. Exact for prices with up to two decimals, which is what validation accepts.
+     */
+    public static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    public static double fromCents(long cents) {
+        return cents / 100d;
+    }
+
+    /**
+     * Smallest cent amount that satisfies {@code price >= minPrice}.
+     */
+    public static long ceilCents(double minPrice) {
+        return boundToCents(minPrice, RoundingMode.CEILING);
+    }
+
+    /**
+     * Largest cent amount that satisfies {@code price <= maxPrice}.
+     */
+    public static long floorCents(double maxPrice) {
+        return boundToCents(maxPrice, RoundingMode.FLOOR);
+    }
+
+    private static long boundToCents(double price, RoundingMode roundingMode) {
+        if (price >= MAX_PRICE) {
+            return Long.MAX_VALUE;
+        }
+        if (price <= -MAX_PRICE) {
+            return Long.MIN_VALUE;
+        }
+        return BigDecimal.valueOf(price).movePointRight(SCALE).setScale(0, roundingMode).longValue();
+    }
+}
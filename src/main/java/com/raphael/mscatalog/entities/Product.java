@@ -2,35 +2,81 @@ package com.raphael.mscatalog.entities;
 
 import com.raphael.mscatalog.dto.ProductCreateDTO;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.time.Instant;
+import java.util.Map;
 import java.util.Objects;
 
 @Entity
-@Table(name = "tb_product")
+@Table(name = "tb_product", indexes = {
+        @Index(name = "idx_product_price", columnList = "price_cents, id"),
+        @Index(name = "idx_product_name", columnList = "name, id"),
+        @Index(name = "idx_product_category", columnList = "category, id")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Product implements Serializable {
 
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Picks the product's shard, so the services assign it before writing rather than leaving it to the generator.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
     private String name;
     private String description;
-    private Double price;
+    /**
+     * Price in cents; exposed as a decimal through {@link #getPrice()} and {@link #setPrice(Double)}.
+     */
+    @Column(name = "price_cents")
+    private Long priceCents;
+    private String category;
+    private String brand;
+    @Convert(converter = ProductAttributes.class)
+    private Map<String, String> attributes;
+
+    /**
+     * Optimistic-lock version, bumped by Hibernate on every update. Doubles as the product's ETag.
+     */
+    @Version
+    private Long version;
+    private Instant updatedAt;
+
+    public Product(Long id, String name, String description, Double price) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        setPrice(price);
+    }
 
     public Product(ProductCreateDTO productCreateDTO) {
         this.name = productCreateDTO.getName();
         this.description = productCreateDTO.getDescription();
-        this.price = productCreateDTO.getPrice();
+        setPrice(productCreateDTO.getPrice());
+        this.category = productCreateDTO.getCategory();
+        this.brand = productCreateDTO.getBrand();
+        this.attributes = productCreateDTO.getAttributes();
+    }
+
+    public Double getPrice() {
+        return priceCents == null ? null : Prices.fromCents(priceCents);
+    }
+
+    public void setPrice(Double price) {
+        this.priceCents = price == null ? null : Prices.toCents(price);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = Instant.now();
     }
 
     @Override
@@ -0,0 +1,59 @@
+package com.raphael.mscatalog.entities;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Free-form product attributes ({@code "cor" -> "azul"}) are stored as a single JSON object column, with keys in
+ * sorted order so equal attribute sets always have the same text. An empty set is stored as {@code NULL}.
+ */
+@Converter
+public class ProductAttributes implements AttributeConverter<Map<String, String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<TreeMap<String, String>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, String> attributes) {
+        return toJson(attributes);
+    }
+
+    @Override
+    public Map<String, String> convertToEntityAttribute(String json) {
+        return fromJson(json);
+    }
+
+    public static String toJson(Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(new TreeMap<>(attributes));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Could not serialize product attributes", ex);
+        }
+    }
+
+    /**
+     * Parses a stored attribute set; {@code null} comes back as an empty, unmodifiable map.
+     */
+    public static SortedMap<String, String> fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return Collections.emptySortedMap();
+        }
+        try {
+            return Collections.unmodifiableSortedMap(MAPPER.readValue(json, TYPE));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Invalid product attributes: " + json, ex);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.raphael.mscatalog.entities;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One row of the append-only product change log. The id doubles as the feed cursor; the product columns hold the
+ * state right after the change and stay empty for deletions.
+ */
+@Entity
+@Table(name = "tb_product_change")
+@Data
+@NoArgsConstructor
+public class ProductChange implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @SnowflakeId
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    private ProductChangedEvent.Type type;
+    private Long productId;
+    private String name;
+    private String description;
+    @Column(name = "price_cents")
+    private Long priceCents;
+    private String category;
+    private String brand;
+    @Convert(converter = ProductAttributes.class)
+    private Map<String, String> attributes;
+    private Long productVersion;
+    private Instant changedAt;
+
+    public ProductChange(ProductChangedEvent event) {
+        this.type = event.type();
+        this.productId = event.productId();
+        this.changedAt = Instant.now();
+
+        ProductResponseDTO product = event.product();
+        if (product != null) {
+            this.name = product.getName();
+            this.description = product.getDescription();
+            this.priceCents = Prices.toCents(product.getPrice());
+            this.category = product.getCategory();
+            this.brand = product.getBrand();
+            this.attributes = product.getAttributes();
+            this.productVersion = product.getVersion();
+        }
+    }
+}
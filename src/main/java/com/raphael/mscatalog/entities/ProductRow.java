@@ -0,0 +1,32 @@
+package com.raphael.mscatalog.entities;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.OffsetDateTime;
+
+/**
+ * R2DBC read model of {@code tb_product} for the reactive stack. Writes still go through {@link Product} and JPA, so
+ * the change log, search index and cache see every change.
+ */
+@Table("tb_product")
+@Data
+@NoArgsConstructor
+public class ProductRow {
+
+    @Id
+    private Long id;
+    private String name;
+    private String description;
+    private Long priceCents;
+    private String category;
+    private String brand;
+    /**
+     * JSON object, see {@link ProductAttributes}.
+     */
+    private String attributes;
+    private Long version;
+    private OffsetDateTime updatedAt;
+}
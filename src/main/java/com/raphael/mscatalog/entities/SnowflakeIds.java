@@ -0,0 +1,117 @@
+package com.raphael.mscatalog.entities;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Globally unique, time-ordered ids, Snowflake style: milliseconds since {@link #EPOCH}, then the worker id, then a
+ * per-millisecond sequence. They are assigned without a database round trip, so the id of a new product, and with it
+ * its shard, is known before any connection is taken. Ids fit in 53 bits and stay exact as JSON numbers in
+ * JavaScript clients.
+ * <p>
+ * Ids from one worker only ever increase. Past {@value #SEQUENCE_BITS} bits of sequence in a millisecond the
+ * generator moves on to the next millisecond instead of waiting for it, and it never goes back when the clock does.
+ * Every instance of the application needs its own worker id ({@code mscatalog.ids.worker-id}).
+ */
+public final class SnowflakeIds {
+
+    public static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+    public static final int TIMESTAMP_BITS = 41;
+    public static final int WORKER_BITS = 4;
+    public static final int SEQUENCE_BITS = 8;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    /**
+     * Hibernate setting the {@link SnowflakeId} generator reads its worker id from.
+     */
+    public static final String WORKER_ID_SETTING = "mscatalog.ids.worker-id";
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+    private static final Map<Integer, SnowflakeIds> WORKERS = new ConcurrentHashMap<>();
+
+    private final long worker;
+    private final LongSupplier clock;
+    private long lastMillis = -1;
+    private long sequence;
+
+    SnowflakeIds(int workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+        this.worker = (long) workerId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * The generator of a worker. There is one per worker id and JVM, shared by the entities and the services that
+     * assign ids up front: two generators with the same worker id would hand out the same ids.
+     */
+    public static SnowflakeIds forWorker(int workerId) {
+        return WORKERS.computeIfAbsent(workerId, id -> new SnowflakeIds(id, System::currentTimeMillis));
+    }
+
+    public synchronized long next() {
+        long millis = Math.max(clock.getAsLong() - EPOCH.toEpochMilli(), lastMillis);
+        if (millis == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                millis++;
+            }
+        } else {
+            sequence = 0;
+        }
+        if (millis > MAX_TIMESTAMP) {
+            throw new IllegalStateException("Snowflake timestamp overflow");
+        }
+        lastMillis = millis;
+        return millis << (WORKER_BITS + SEQUENCE_BITS) | worker | sequence;
+    }
+
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(id >>> (WORKER_BITS + SEQUENCE_BITS));
+    }
+
+    /**
+     * Hibernate side of {@link SnowflakeId}. Keeps an id the application already assigned.
+     */
+    public static class Generator implements BeforeExecutionGenerator {
+
+        private final SnowflakeIds ids;
+
+        public Generator(SnowflakeId config, Member member, CustomIdGeneratorCreationContext context) {
+            Object workerId = context.getServiceRegistry().requireService(ConfigurationService.class)
+                    .getSettings().get(WORKER_ID_SETTING);
+            this.ids = forWorker(workerId == null ? 0 : Integer.parseInt(workerId.toString()));
+        }
+
+        @Override
+        public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                               EventType eventType) {
+            // Hibernate passes no current value to persist(): look at the entity itself.
+            Object assigned = session.getEntityPersister(null, owner).getIdentifier(owner, session);
+            return assigned != null ? assigned : ids.next();
+        }
+
+        @Override
+        public EnumSet<EventType> getEventTypes() {
+            return EventTypeSets.INSERT_ONLY;
+        }
+
+        @Override
+        public boolean allowAssignedIdentifiers() {
+            return true;
+        }
+    }
+}
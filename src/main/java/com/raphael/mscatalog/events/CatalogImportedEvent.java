@@ -0,0 +1,8 @@
+package com.raphael.mscatalog.events;
+
+/**
+ * Published when a snapshot is loaded into the catalog. Unlike {@link ProductChangedEvent} it carries no products:
+ * listeners that keep derived views of the catalog rebuild them from the database.
+ */
+public record CatalogImportedEvent(long products) {
+}
@@ -0,0 +1,26 @@
+package com.raphael.mscatalog.events;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+
+/**
+ * Published by the service layer whenever a product is written. Listeners that keep derived, in-memory views of
+ * the catalog should consume it after the surrounding transaction commits.
+ */
+public record ProductChangedEvent(Type type, Long productId, ProductResponseDTO product) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    public static ProductChangedEvent created(ProductResponseDTO product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent updated(ProductResponseDTO product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+}
@@ -1,24 +1,38 @@
 package com.raphael.mscatalog.exceptions;
 
+import com.raphael.mscatalog.admission.AdmissionRejectedException;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.server.ResponseStatusException;
 
 @Slf4j
+@RequiredArgsConstructor
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ApiExceptionHandler {
 
+    private final CatalogMetrics catalogMetrics;
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorMessage> entityNotFoundException(RuntimeException ex, HttpServletRequest request) {
         log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.NOT_FOUND.value());
         return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -28,6 +42,7 @@ public class ApiExceptionHandler {
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorMessage> methodArgumentTypeMismatchException(RuntimeException ex, HttpServletRequest request) {
         log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.BAD_REQUEST.value());
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -39,9 +54,63 @@ public class ApiExceptionHandler {
                                                                         HttpServletRequest request,
                                                                         BindingResult result) {
         log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.UNPROCESSABLE_ENTITY.value());
         return ResponseEntity
                 .status(HttpStatus.UNPROCESSABLE_ENTITY)
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(new ErrorMessage(request, HttpStatus.UNPROCESSABLE_ENTITY, "Campo(s) inválido(s)", result));
     }
+
+    /**
+     * Load shedding: logged without a stack trace, since it happens by the thousands exactly when the service is busiest.
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorMessage> admissionRejectedException(AdmissionRejectedException ex,
+                                                                   HttpServletRequest request) {
+        log.debug("Api Error - request rejected: {}", ex.getReason());
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        catalogMetrics.error(ex, status.value());
+        return ResponseEntity
+                .status(status)
+                .headers(ex.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, status, ex.getReason()));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorMessage> responseStatusException(ResponseStatusException ex, HttpServletRequest request) {
+        log.error("Api Error - ", ex);
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        catalogMetrics.error(ex, status.value());
+        return ResponseEntity
+                .status(status)
+                .headers(ex.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, status, ex.getReason()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorMessage> optimisticLockingFailureException(RuntimeException ex, HttpServletRequest request) {
+        log.warn("Api Error - concurrent update: {}", ex.getMessage());
+        // With If-Match the client asked for a precondition; without it, another writer simply won the race.
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        catalogMetrics.error(ex, status.value());
+        return ResponseEntity
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, status, "Produto foi alterado por outra requisição, recarregue e tente novamente"));
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<ErrorMessage> connectionUnavailableException(RuntimeException ex, HttpServletRequest request) {
+        log.warn("Api Error - no database connection available: {}", ex.getMessage());
+        catalogMetrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE.value());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, HttpStatus.SERVICE_UNAVAILABLE, "Serviço sobrecarregado, tente novamente"));
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
@@ -40,6 +41,19 @@ public class ErrorMessage {
         addErrors(result);
     }
 
+    public ErrorMessage(ServerHttpRequest request, HttpStatus status, String message) {
+        this.path = request.getPath().value();
+        this.method = request.getMethod().name();
+        this.status = status.value();
+        this.statusText = status.getReasonPhrase();
+        this.message = message;
+    }
+
+    public ErrorMessage(ServerHttpRequest request, HttpStatus status, String message, BindingResult result) {
+        this(request, status, message);
+        addErrors(result);
+    }
+
     private void addErrors(BindingResult result) {
         this.errors = new HashMap<>();
         for (FieldError fieldError : result.getFieldErrors()) {
@@ -0,0 +1,98 @@
+package com.raphael.mscatalog.exceptions;
+
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * WebFlux twin of {@link ApiExceptionHandler}: same statuses and messages for the reactive profile.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveApiExceptionHandler {
+
+    private final CatalogMetrics catalogMetrics;
+
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ErrorMessage> entityNotFoundException(RuntimeException ex, ServerHttpRequest request) {
+        log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.NOT_FOUND.value());
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, HttpStatus.NOT_FOUND, ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorMessage> serverWebInputException(RuntimeException ex, ServerHttpRequest request) {
+        log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.BAD_REQUEST.value());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, "Parâmetros informados estão inválidos"));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorMessage> webExchangeBindException(WebExchangeBindException ex, ServerHttpRequest request) {
+        log.error("Api Error - ", ex);
+        catalogMetrics.error(ex, HttpStatus.UNPROCESSABLE_ENTITY.value());
+        return ResponseEntity
+                .status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, HttpStatus.UNPROCESSABLE_ENTITY, "Campo(s) inválido(s)", ex));
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ErrorMessage> responseStatusException(ResponseStatusException ex, ServerHttpRequest request) {
+        log.error("Api Error - ", ex);
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        catalogMetrics.error(ex, status.value());
+        return ResponseEntity
+                .status(status)
+                .headers(ex.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, status, ex.getReason()));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorMessage> optimisticLockingFailureException(RuntimeException ex, ServerHttpRequest request) {
+        log.warn("Api Error - concurrent update: {}", ex.getMessage());
+        HttpStatus status = request.getHeaders().containsKey(HttpHeaders.IF_MATCH)
+                ? HttpStatus.PRECONDITION_FAILED
+                : HttpStatus.CONFLICT;
+        catalogMetrics.error(ex, status.value());
+        return ResponseEntity
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, status, "Produto foi alterado por outra requisição, recarregue e tente novamente"));
+    }
+
+    @ExceptionHandler({CannotCreateTransactionException.class, CannotGetJdbcConnectionException.class})
+    public ResponseEntity<ErrorMessage> connectionUnavailableException(RuntimeException ex, ServerHttpRequest request) {
+        log.warn("Api Error - no database connection available: {}", ex.getMessage());
+        catalogMetrics.error(ex, HttpStatus.SERVICE_UNAVAILABLE.value());
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new ErrorMessage(request, HttpStatus.SERVICE_UNAVAILABLE, "Serviço sobrecarregado, tente novamente"));
+    }
+}
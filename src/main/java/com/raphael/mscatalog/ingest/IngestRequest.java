@@ -0,0 +1,14 @@
+package com.raphael.mscatalog.ingest;
+
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+
+/**
+ * An accepted write waiting to reach the database: a create when {@code productId} is null, otherwise a full update
+ * of that product. {@code journalEnd} is the journal offset right after its record.
+ */
+record IngestRequest(long requestId, Long productId, ProductCreateDTO product, long journalEnd) {
+
+    boolean isCreate() {
+        return productId == null;
+    }
+}
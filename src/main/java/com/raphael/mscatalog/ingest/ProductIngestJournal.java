@@ -0,0 +1,262 @@
+package com.raphael.mscatalog.ingest;
+
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.entities.ProductAttributes;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only file holding the ingest requests that were acknowledged but may not be in the database yet.
+ * <p>
+ * Each record is {@code [int length][int crc32c][payload]}; a torn or corrupt tail left by a crash is cut off on
+ * {@link #replay(long)}. Fields added after the first release (category, brand, attributes) sit at the end of the
+ * payload, so records written before them still decode. Request ids are assigned under the append lock, so they grow with the file offset. With
+ * {@code fsync} on, {@link #append} returns only once the record is on disk; callers arriving while a force is running
+ * share the next one (group commit) instead of each paying for their own.
+ * <p>
+ * The file is emptied whenever everything appended has been applied, so it only ever holds the backlog.
+ */
+@Slf4j
+final class ProductIngestJournal implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean fsync;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private long size;
+    private long lastRequestId;
+    private volatile long synced;
+
+    ProductIngestJournal(Path path, boolean fsync) throws IOException {
+        this.path = path;
+        this.fsync = fsync;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Reads every intact record, truncates whatever follows the last one and positions the journal for appending.
+     * Request ids continue after {@code lastKnownRequestId} or the highest id in the file, whichever is greater.
+     */
+    List<IngestRequest> replay(long lastKnownRequestId) throws IOException {
+        synchronized (appendLock) {
+            List<IngestRequest> requests = new ArrayList<>();
+            long position = 0;
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (position + HEADER_SIZE <= fileSize) {
+                header.clear();
+                readFully(header, position);
+                int length = header.getInt(0);
+                int crc = header.getInt(4);
+                if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > fileSize) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(payload, position + HEADER_SIZE);
+                if (crc(payload.array()) != crc) {
+                    break;
+                }
+                position += HEADER_SIZE + length;
+                requests.add(decode(payload.flip(), position));
+            }
+            if (position < fileSize) {
+                log.warn("Ingest journal {}: discarding {} bytes after the last intact record", path, fileSize - position);
+                channel.truncate(position);
+                channel.force(false);
+            }
+            size = position;
+            synced = position;
+            channel.position(position);
+            lastRequestId = Math.max(lastKnownRequestId,
+                    requests.isEmpty() ? 0 : requests.get(requests.size() - 1).requestId());
+            return requests;
+        }
+    }
+
+    /**
+     * Assigns the next request id, appends the record and, with fsync on, waits until it is durable. {@code onAppended}
+     * runs under the append lock, so requests reach it in id order, possibly before they are durable: consumers call
+     * {@link #awaitDurable(long)} before acting on them.
+     */
+    IngestRequest append(Long productId, ProductCreateDTO product, Consumer<IngestRequest> onAppended)
+            throws IOException {
+        IngestRequest request;
+        synchronized (appendLock) {
+            long requestId = lastRequestId + 1;
+            ByteBuffer record = encode(requestId, productId, product);
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            lastRequestId = requestId;
+            size += record.limit();
+            request = new IngestRequest(requestId, productId, product, size);
+            onAppended.accept(request);
+        }
+        awaitDurable(request.journalEnd());
+        return request;
+    }
+
+    long lastRequestId() {
+        synchronized (appendLock) {
+            return lastRequestId;
+        }
+    }
+
+    /**
+     * Empties the file if every appended request is covered by {@code appliedRequestId}.
+     */
+    void truncateIfApplied(long appliedRequestId) throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                if (lastRequestId > appliedRequestId || size == 0) {
+                    return;
+                }
+                channel.truncate(0);
+                channel.position(0);
+                size = 0;
+                synced = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Returns once the journal is durable up to {@code end}, forcing it if no one else is.
+     */
+    void awaitDurable(long end) throws IOException {
+        if (!fsync || synced >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            long target;
+            synchronized (appendLock) {
+                target = size;
+            }
+            channel.force(false);
+            synced = target;
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of ingest journal " + path);
+            }
+        }
+    }
+
+    private static ByteBuffer encode(long requestId, Long productId, ProductCreateDTO product) {
+        byte[] name = product.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] description = product.getDescription().getBytes(StandardCharsets.UTF_8);
+        byte[] category = bytes(product.getCategory());
+        byte[] brand = bytes(product.getBrand());
+        byte[] attributes = bytes(ProductAttributes.toJson(product.getAttributes()));
+        int length = Long.BYTES * 2 + Integer.BYTES + name.length + Integer.BYTES + description.length + Double.BYTES
+                + Integer.BYTES * 3 + length(category) + length(brand) + length(attributes);
+        if (length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Ingest request too large: " + length + " bytes");
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + length);
+        record.position(HEADER_SIZE);
+        record.putLong(requestId);
+        record.putLong(productId == null ? 0 : productId);
+        record.putInt(name.length).put(name);
+        record.putInt(description.length).put(description);
+        record.putDouble(product.getPrice());
+        putNullable(record, category);
+        putNullable(record, brand);
+        putNullable(record, attributes);
+        record.putInt(0, length);
+        record.putInt(4, crc(record.array(), HEADER_SIZE, length));
+        return record.flip();
+    }
+
+    private static IngestRequest decode(ByteBuffer payload, long journalEnd) {
+        long requestId = payload.getLong();
+        long productId = payload.getLong();
+        String name = getString(payload);
+        String description = getString(payload);
+        double price = payload.getDouble();
+        ProductCreateDTO product = new ProductCreateDTO(name, description, price);
+        if (payload.hasRemaining()) {
+            product.setCategory(getNullable(payload));
+            product.setBrand(getNullable(payload));
+            product.setAttributes(ProductAttributes.fromJson(getNullable(payload)));
+        }
+        return new IngestRequest(requestId, productId == 0 ? null : productId, product, journalEnd);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    /**
+     * Writes a length-prefixed string, with length -1 for null.
+     */
+    private static void putNullable(ByteBuffer record, byte[] bytes) {
+        if (bytes == null) {
+            record.putInt(-1);
+        } else {
+            record.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getNullable(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] bytes) {
+        return crc(bytes, 0, bytes.length);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,339 @@
+package com.raphael.mscatalog.ingest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.datasource.PrimaryReads;
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.dto.BulkItemResultDTO;
+import com.raphael.mscatalog.dto.IngestStatusDTO;
+import com.raphael.mscatalog.dto.ProductBulkUpdateDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.entities.IngestCheckpoint;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.repositories.IngestCheckpointRepository;
+import com.raphael.mscatalog.services.ProductBulkService;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion of product creates and updates. A request is acknowledged once it is validated and durable in
+ * the {@link ProductIngestJournal}; a background thread then writes the backlog in batches, keeping only the last
+ * update of each product in a batch, through {@link ProductBulkService#writeAll}.
+ * <p>
+ * Every batch also moves the {@link IngestCheckpoint} forward in the same transaction. On startup the journal is
+ * replayed from the checkpoint, so requests acknowledged before a crash are applied exactly once. That takes the
+ * batch and the checkpoint in one transaction, so ingestion is not available when the catalog is sharded.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "mscatalog.ingest.enabled", havingValue = "true")
+public class ProductIngestService implements SmartLifecycle {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final ProductBulkService productBulkService;
+    private final IngestCheckpointRepository checkpointRepository;
+    private final ProductIngestJournal journal;
+    private final int batchSize;
+    private final Duration maxDelay;
+    private final int maxPending;
+    private final CatalogMetrics catalogMetrics;
+
+    private final BlockingDeque<IngestRequest> queue = new LinkedBlockingDeque<>();
+    private final Cache<Long, IngestStatusDTO> statuses;
+    private volatile long appliedRequestId;
+    private volatile boolean running;
+    private Thread worker;
+
+    public ProductIngestService(ProductBulkService productBulkService,
+                                IngestCheckpointRepository checkpointRepository,
+                                ProductShards productShards,
+                                @Value("${mscatalog.ingest.journal:data/product-ingest.journal}") Path journalPath,
+                                @Value("${mscatalog.ingest.fsync:true}") boolean fsync,
+                                @Value("${mscatalog.ingest.batch-size:500}") int batchSize,
+                                @Value("${mscatalog.ingest.max-delay:20ms}") Duration maxDelay,
+                                @Value("${mscatalog.ingest.max-pending:100000}") int maxPending,
+                                CatalogMetrics catalogMetrics) throws IOException {
+        if (productShards.count() > 1) {
+            throw new IllegalStateException("Write-behind ingestion (mscatalog.ingest.enabled) does not support "
+                    + productShards.count() + " shards: a batch and its checkpoint must commit together");
+        }
+        this.productBulkService = productBulkService;
+        this.catalogMetrics = catalogMetrics;
+        this.checkpointRepository = checkpointRepository;
+        this.journal = new ProductIngestJournal(journalPath, fsync);
+        this.batchSize = batchSize;
+        this.maxDelay = maxDelay;
+        this.maxPending = maxPending;
+        // Room for twice the backlog, so finished requests stay queryable for a while after they are written.
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(2L * maxPending)
+                .expireAfterWrite(Duration.ofHours(1))
+                .build();
+        catalogMetrics.ingestBacklog(queue);
+    }
+
+    /**
+     * Appends the request to the journal and queues it. Returns once the request is durable.
+     */
+    public IngestStatusDTO submit(Long productId, ProductCreateDTO product) {
+        if (!running) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Ingestão indisponível no momento");
+        }
+        if (queue.size() >= maxPending) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Fila de ingestão cheia, tente novamente");
+        }
+        try {
+            IngestRequest request = journal.append(productId, product, appended -> {
+                statuses.put(appended.requestId(), IngestStatusDTO.pending(appended.requestId(), productId));
+                queue.add(appended);
+            });
+            return IngestStatusDTO.pending(request.requestId(), productId);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write to the ingest journal", ex);
+        }
+    }
+
+    /**
+     * Status of a request. Requests whose status has expired are still reported as applied when the checkpoint covers
+     * them, just without the product id.
+     */
+    public IngestStatusDTO status(long requestId) {
+        IngestStatusDTO status = statuses.getIfPresent(requestId);
+        if (status != null) {
+            return status;
+        }
+        if (requestId > 0 && requestId <= appliedRequestId) {
+            return IngestStatusDTO.applied(requestId, null);
+        }
+        throw new EntityNotFoundException(String.format("Requisição de ingestão %s não encontrada", requestId));
+    }
+
+    @Override
+    public void start() {
+        // From the primary: a stale checkpoint would replay requests that are already applied.
+        long checkpoint = PrimaryReads.call(() -> checkpointRepository.findById(IngestCheckpoint.SINGLETON_ID))
+                .map(IngestCheckpoint::getLastRequestId)
+                .orElse(0L);
+        try {
+            for (IngestRequest request : journal.replay(checkpoint)) {
+                if (request.requestId() > checkpoint) {
+                    statuses.put(request.requestId(), IngestStatusDTO.pending(request.requestId(), request.productId()));
+                    queue.add(request);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not replay the ingest journal", ex);
+        }
+        if (!queue.isEmpty()) {
+            log.info("Replaying {} ingest requests after request {}", queue.size(), checkpoint);
+        }
+        appliedRequestId = checkpoint;
+        running = true;
+        worker = new Thread(this::run, "product-ingest");
+        worker.start();
+    }
+
+    /**
+     * Stops after the batch in progress. Whatever is still queued stays in the journal for the next start.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            worker.join(Duration.ofSeconds(30).toMillis());
+            journal.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            log.warn("Could not close the ingest journal", ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<IngestRequest> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException ex) {
+                log.error("Ingest worker failed, retrying in {}", RETRY_DELAY, ex);
+                sleep(RETRY_DELAY);
+            }
+        }
+    }
+
+    /**
+     * Waits for a first request, then gathers more for up to {@code max-delay} or until the batch is full.
+     */
+    private List<IngestRequest> nextBatch() throws InterruptedException {
+        IngestRequest first = queue.poll(POLL_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        List<IngestRequest> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            IngestRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    /**
+     * Writes the batch in one transaction. If that fails, each write gets its own transaction so a single bad request
+     * only fails itself; if the database cannot even take the checkpoint, the rest goes back to the queue.
+     */
+    private void apply(List<IngestRequest> batch) throws IOException, InterruptedException {
+        journal.awaitDurable(batch.get(batch.size() - 1).journalEnd());
+        List<List<IngestRequest>> writes = coalesce(batch);
+        long last = writes.get(writes.size() - 1).get(0).requestId();
+        try {
+            write(writes, lastRequestId(writes));
+            catalogMetrics.ingestBatch(batch.size(), writes.size());
+            applied(lastRequestId(writes));
+            return;
+        } catch (RuntimeException ex) {
+            log.warn("Ingest batch of {} requests failed at request {}, retrying one write at a time", batch.size(),
+                    last, ex);
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            List<List<IngestRequest>> single = List.of(writes.get(i));
+            long checkpoint = lastRequestId(single);
+            try {
+                write(single, checkpoint);
+            } catch (RuntimeException ex) {
+                try {
+                    write(List.of(), checkpoint);
+                } catch (RuntimeException unavailable) {
+                    log.error("Could not write ingest requests to the database, retrying in {}", RETRY_DELAY,
+                            unavailable);
+                    requeue(writes.subList(i, writes.size()));
+                    sleep(RETRY_DELAY);
+                    return;
+                }
+                String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+                for (IngestRequest request : writes.get(i)) {
+                    statuses.put(request.requestId(),
+                            IngestStatusDTO.failed(request.requestId(), request.productId(), message));
+                }
+            }
+            applied(checkpoint);
+        }
+    }
+
+    /**
+     * Groups the batch into writes: each create on its own, and all updates of a product together (the last one wins).
+     * Writes are ordered by their last request id, so applying them in order moves the checkpoint forward.
+     */
+    private static List<List<IngestRequest>> coalesce(List<IngestRequest> batch) {
+        List<List<IngestRequest>> writes = new ArrayList<>(batch.size());
+        Map<Long, List<IngestRequest>> updates = new LinkedHashMap<>();
+        for (IngestRequest request : batch) {
+            if (request.isCreate()) {
+                writes.add(List.of(request));
+            } else {
+                updates.computeIfAbsent(request.productId(), id -> new ArrayList<>()).add(request);
+            }
+        }
+        writes.addAll(updates.values());
+        writes.sort(Comparator.comparingLong(write -> write.get(write.size() - 1).requestId()));
+        return writes;
+    }
+
+    private void write(List<List<IngestRequest>> writes, long checkpoint) {
+        List<List<IngestRequest>> creates = new ArrayList<>();
+        List<List<IngestRequest>> updates = new ArrayList<>();
+        for (List<IngestRequest> write : writes) {
+            (write.get(0).isCreate() ? creates : updates).add(write);
+        }
+        List<ProductCreateDTO> createDTOs = creates.stream().map(write -> write.get(0).product()).toList();
+        List<ProductBulkUpdateDTO> updateDTOs = updates.stream().map(write -> {
+            IngestRequest last = write.get(write.size() - 1);
+            ProductBulkUpdateDTO update = new ProductBulkUpdateDTO(last.productId(), last.product().getName(),
+                    last.product().getDescription(), last.product().getPrice());
+            update.setCategory(last.product().getCategory());
+            update.setBrand(last.product().getBrand());
+            update.setAttributes(last.product().getAttributes());
+            return update;
+        }).toList();
+
+        List<BulkItemResultDTO> results = productBulkService.writeAll(createDTOs, updateDTOs,
+                () -> checkpointRepository.save(new IngestCheckpoint(IngestCheckpoint.SINGLETON_ID, checkpoint)));
+
+        for (BulkItemResultDTO result : results) {
+            int index = result.getIndex();
+            List<IngestRequest> write = index < creates.size() ? creates.get(index) : updates.get(index - creates.size());
+            for (IngestRequest request : write) {
+                statuses.put(request.requestId(), result.getStatus() == BulkItemResultDTO.Status.FAILED
+                        ? IngestStatusDTO.failed(request.requestId(), result.getId(), result.getMessage())
+                        : IngestStatusDTO.applied(request.requestId(), result.getId()));
+            }
+        }
+    }
+
+    private void applied(long checkpoint) throws IOException {
+        appliedRequestId = Math.max(appliedRequestId, checkpoint);
+        journal.truncateIfApplied(appliedRequestId);
+    }
+
+    private void requeue(List<List<IngestRequest>> writes) {
+        List<IngestRequest> requests = new ArrayList<>();
+        writes.forEach(requests::addAll);
+        requests.sort(Comparator.comparingLong(IngestRequest::requestId).reversed());
+        requests.forEach(queue::addFirst);
+    }
+
+    private static long lastRequestId(List<List<IngestRequest>> writes) {
+        List<IngestRequest> last = writes.get(writes.size() - 1);
+        return last.get(last.size() - 1).requestId();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.raphael.mscatalog.json;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes {@link ProductResponseDTO} and {@code Collection<ProductResponseDTO>} response bodies with
+ * {@link ProductJsonWriter}, streaming each product into the response instead of going through Jackson's reflective
+ * bean serializer. One instance per Jackson format (JSON, CBOR, Smile); every other body, and anything read from
+ * requests, stays with the regular Jackson converters.
+ */
+public class ProductHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    public ProductHttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType) {
+        super(mediaType);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == ProductResponseDTO.class || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * Collections are only claimed when their declared element type is {@link ProductResponseDTO}; the element type is
+     * erased at runtime, so a raw {@code List} falls through to Jackson.
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        return clazz == ProductResponseDTO.class
+                || type != null && ResolvableType.forType(type).asCollection().resolveGeneric(0) == ProductResponseDTO.class;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    /**
+     * Spring asks for the producible media types with the raw return class only. Collections advertise this converter's
+     * type too, so that JSON, registered first, stays the default when the client accepts anything.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : Collections.emptyList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            if (objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+                generator.useDefaultPrettyPrinter();
+            }
+            ProductJsonWriter writer = new ProductJsonWriter(generator);
+            if (body instanceof ProductResponseDTO product) {
+                writer.write(product);
+            } else {
+                writer.writeAll((Collection<ProductResponseDTO>) body);
+            }
+        }
+    }
+
+    /**
+     * Never called, since {@link #canRead} declines every body; fails like an unreadable body if it ever is.
+     */
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        return readInternal(Object.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Product responses are write-only", inputMessage);
+    }
+}
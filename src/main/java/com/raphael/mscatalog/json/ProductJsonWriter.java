@@ -0,0 +1,115 @@
+package com.raphael.mscatalog.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.Prices;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Hand-written serializer for {@link ProductResponseDTO}, producing the same object as Jackson's bean serializer
+ * without reflection or per-product allocation: field names are pre-encoded, ids are written unboxed and prices are
+ * rendered from cents into a reused buffer. Writes go straight into the generator's recycled output buffer. Works with
+ * any Jackson generator, so the same code writes JSON, CBOR and Smile.
+ * <p>
+ * One instance per generator; not thread-safe.
+ */
+public final class ProductJsonWriter {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+    private static final SerializedString PRICE = new SerializedString("price");
+    private static final SerializedString CATEGORY = new SerializedString("category");
+    private static final SerializedString BRAND = new SerializedString("brand");
+    private static final SerializedString ATTRIBUTES = new SerializedString("attributes");
+
+    private final JsonGenerator generator;
+    private final char[] priceBuffer = new char[24];
+
+    public ProductJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    public void write(ProductResponseDTO product) throws IOException {
+        generator.writeStartObject();
+
+        generator.writeFieldName(ID);
+        if (product.getId() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(product.getId().longValue());
+        }
+        generator.writeFieldName(NAME);
+        generator.writeString(product.getName());
+        generator.writeFieldName(DESCRIPTION);
+        generator.writeString(product.getDescription());
+        generator.writeFieldName(PRICE);
+        writePrice(product.getPrice());
+        if (product.getCategory() != null) {
+            generator.writeFieldName(CATEGORY);
+            generator.writeString(product.getCategory());
+        }
+        if (product.getBrand() != null) {
+            generator.writeFieldName(BRAND);
+            generator.writeString(product.getBrand());
+        }
+        if (product.getAttributes() != null && !product.getAttributes().isEmpty()) {
+            generator.writeFieldName(ATTRIBUTES);
+            generator.writeStartObject();
+            for (Map.Entry<String, String> attribute : product.getAttributes().entrySet()) {
+                generator.writeStringField(attribute.getKey(), attribute.getValue());
+            }
+            generator.writeEndObject();
+        }
+
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the products as a JSON array.
+     */
+    public void writeAll(Iterable<ProductResponseDTO> products) throws IOException {
+        generator.writeStartArray();
+        for (ProductResponseDTO product : products) {
+            write(product);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes the price as a plain decimal with one or two fraction digits ("4000.0", "4000.9", "4000.99"). Binary formats
+     * and prices that are not a whole number of cents take the generator's regular double encoding.
+     */
+    private void writePrice(Double price) throws IOException {
+        if (price == null) {
+            generator.writeNull();
+            return;
+        }
+        double value = price;
+        long cents = Prices.toCents(value);
+        if (generator.canWriteBinaryNatively() || Prices.fromCents(cents) != value || cents == Long.MIN_VALUE) {
+            generator.writeNumber(value);
+            return;
+        }
+
+        long units = Math.abs(cents) / 100;
+        int fraction = (int) (Math.abs(cents) % 100);
+        int position = priceBuffer.length;
+        if (fraction % 10 != 0) {
+            priceBuffer[--position] = (char) ('0' + fraction % 10);
+        }
+        priceBuffer[--position] = (char) ('0' + fraction / 10);
+        priceBuffer[--position] = '.';
+        do {
+            priceBuffer[--position] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        if (cents < 0) {
+            priceBuffer[--position] = '-';
+        }
+        generator.writeNumber(priceBuffer, position, priceBuffer.length - position);
+    }
+}
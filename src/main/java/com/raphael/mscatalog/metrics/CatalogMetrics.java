@@ -0,0 +1,198 @@
+package com.raphael.mscatalog.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Catalog-specific meters, registered on the application's {@link MeterRegistry}. Several of them are recorded on
+ * every read, so each meter is built and registered once and then kept here by its tags: recording is a map lookup
+ * and an increment, with no builder or registry lookup per call.
+ */
+@Component
+public class CatalogMetrics {
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentMap<String, DistributionSummary> resultSizes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> searchScanned = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> searchReturned = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> coalescedLeaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> coalescedFollowers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Tags, Counter> admissionRejections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> routedReads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Timer> shardQueries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ErrorTags, Counter> errors = new ConcurrentHashMap<>();
+    private final DistributionSummary ingestBatchRequests;
+    private final DistributionSummary ingestBatchWrites;
+
+    public CatalogMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.ingestBatchRequests = DistributionSummary.builder("catalog.ingest.batch.requests")
+                .description("Ingest requests per batch")
+                .baseUnit("requests")
+                .register(registry);
+        this.ingestBatchWrites = DistributionSummary.builder("catalog.ingest.batch.writes")
+                .description("Product writes per ingest batch after coalescing")
+                .baseUnit("products")
+                .register(registry);
+    }
+
+    /**
+     * Number of products returned by a read operation (findPage, search, ...).
+     */
+    public void resultSize(String operation, int size) {
+        meter(resultSizes, operation, tag -> DistributionSummary.builder("catalog.products.returned")
+                .description("Products returned per read operation")
+                .baseUnit("products")
+                .tag("operation", tag)
+                .serviceLevelObjectives(1, 10, 100, 1_000, 10_000, 100_000)
+                .register(registry)).record(size);
+    }
+
+    /**
+     * Search selectivity: how many candidate products a search had to look at versus how many it returned.
+     */
+    public void searchSelectivity(String backend, long scanned, int returned) {
+        meter(searchScanned, backend, tag -> DistributionSummary.builder("catalog.search.scanned")
+                .description("Candidate products examined per search")
+                .baseUnit("products")
+                .tag("backend", tag)
+                .register(registry)).record(scanned);
+        meter(searchReturned, backend, tag -> DistributionSummary.builder("catalog.search.returned")
+                .description("Products returned per search")
+                .baseUnit("products")
+                .tag("backend", tag)
+                .register(registry)).record(returned);
+    }
+
+    /**
+     * Reads that went through request coalescing, split into the callers that ran the load ({@code leader}) and those
+     * that waited for it ({@code follower}). The coalescing ratio is followers / all calls.
+     */
+    public void coalesced(String operation, boolean follower) {
+        if (follower) {
+            meter(coalescedFollowers, operation, tag -> coalescedCounter(tag, "follower")).increment();
+        } else {
+            meter(coalescedLeaders, operation, tag -> coalescedCounter(tag, "leader")).increment();
+        }
+    }
+
+    /**
+     * Ingest requests acknowledged but not yet written to the database.
+     */
+    public void ingestBacklog(Collection<?> queue) {
+        Gauge.builder("catalog.ingest.pending", queue, Collection::size)
+                .description("Acknowledged ingest requests waiting to be written")
+                .baseUnit("requests")
+                .register(registry);
+    }
+
+    /**
+     * One ingest batch: the requests it took from the queue and the writes left after coalescing updates.
+     */
+    public void ingestBatch(int requests, int writes) {
+        ingestBatchRequests.record(requests);
+        ingestBatchWrites.record(writes);
+    }
+
+    /**
+     * Adaptive concurrency limit of an endpoint class and the requests of that class currently in flight.
+     */
+    public <T> void admissionLimit(String endpointClass, T limit, ToDoubleFunction<T> current,
+                                   ToDoubleFunction<T> inFlight) {
+        Gauge.builder("catalog.admission.limit", limit, current)
+                .description("Current concurrency limit per endpoint class")
+                .baseUnit("requests")
+                .tag("class", endpointClass)
+                .register(registry);
+        Gauge.builder("catalog.admission.inflight", limit, inFlight)
+                .description("Admitted requests in flight per endpoint class")
+                .baseUnit("requests")
+                .tag("class", endpointClass)
+                .register(registry);
+    }
+
+    /**
+     * A request turned away by admission control, by endpoint class and by limit hit ({@code rate_limit} or
+     * {@code concurrency}).
+     */
+    public void admissionRejected(String endpointClass, String reason) {
+        Tags key = new Tags(endpointClass, reason);
+        meter(admissionRejections, key, tags -> Counter.builder("catalog.admission.rejected")
+                .description("Requests rejected by admission control")
+                .tag("class", tags.first())
+                .tag("reason", tags.second())
+                .register(registry)).increment();
+    }
+
+    /**
+     * Where a read-only transaction took its connection: a replica by name, or {@code primary}.
+     */
+    public void routedRead(String target) {
+        meter(routedReads, target, tag -> Counter.builder("catalog.datasource.reads")
+                .description("Read-only connections handed out, by database")
+                .tag("target", tag)
+                .register(registry)).increment();
+    }
+
+    /**
+     * Read replicas currently healthy and caught up enough to serve reads.
+     */
+    public <T> void replicasInRotation(T routing, ToDoubleFunction<T> inRotation) {
+        Gauge.builder("catalog.datasource.replicas", routing, inRotation)
+                .description("Read replicas in rotation")
+                .baseUnit("replicas")
+                .register(registry);
+    }
+
+    /**
+     * One shard's part of a scatter read. The read takes as long as the slowest shard, so compare them by shard.
+     */
+    public void shardQuery(int shard, long nanos) {
+        meter(shardQueries, shard, tag -> Timer.builder("catalog.shards.queries")
+                .description("Per-shard queries of scatter reads")
+                .tag("shard", String.valueOf(tag))
+                .register(registry)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void error(Throwable ex, int status) {
+        meter(errors, new ErrorTags(ex.getClass(), status), tags -> Counter.builder("catalog.api.errors")
+                .description("Requests answered with an error, by exception type")
+                .tag("exception", tags.exception().getSimpleName())
+                .tag("status", String.valueOf(tags.status()))
+                .register(registry)).increment();
+    }
+
+    private Counter coalescedCounter(String operation, String role) {
+        return Counter.builder("catalog.singleflight.calls")
+                .description("Coalesced reads, by whether the caller ran the load or shared another's")
+                .tag("operation", operation)
+                .tag("role", role)
+                .register(registry);
+    }
+
+    /**
+     * A plain {@code get} first: {@code computeIfAbsent} may lock the bin even when the meter is already there.
+     */
+    private static <K, M> M meter(ConcurrentMap<K, M> meters, K key, Function<K, M> register) {
+        M meter = meters.get(key);
+        return meter != null ? meter : meters.computeIfAbsent(key, register);
+    }
+
+    private record Tags(String first, String second) {
+    }
+
+    private record ErrorTags(Class<?> exception, int status) {
+    }
+}
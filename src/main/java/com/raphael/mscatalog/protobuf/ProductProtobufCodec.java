@@ -0,0 +1,257 @@
+package com.raphael.mscatalog.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written encoder/decoder for the messages in {@code src/main/proto/product.proto}. Products are written field by
+ * field straight from the DTOs, with no generated message objects in between. Fields holding the proto3 default (null,
+ * zero or empty) are left out, as generated code would do.
+ */
+public final class ProductProtobufCodec {
+
+    private static final int PRODUCT_ID = 1;
+    private static final int PRODUCT_NAME = 2;
+    private static final int PRODUCT_DESCRIPTION = 3;
+    private static final int PRODUCT_PRICE = 4;
+    private static final int PRODUCT_CATEGORY = 5;
+    private static final int PRODUCT_BRAND = 6;
+    private static final int PRODUCT_ATTRIBUTES = 7;
+
+    private static final int PRODUCT_LIST_PRODUCTS = 1;
+
+    private static final int PRODUCT_CREATE_NAME = 1;
+    private static final int PRODUCT_CREATE_DESCRIPTION = 2;
+    private static final int PRODUCT_CREATE_PRICE = 3;
+    private static final int PRODUCT_CREATE_CATEGORY = 4;
+    private static final int PRODUCT_CREATE_BRAND = 5;
+    private static final int PRODUCT_CREATE_ATTRIBUTES = 6;
+
+    private static final int MAP_ENTRY_KEY = 1;
+    private static final int MAP_ENTRY_VALUE = 2;
+
+    private ProductProtobufCodec() {
+    }
+
+    /**
+     * Writes a {@code Product} message as the whole payload.
+     */
+    public static void writeProduct(CodedOutputStream output, ProductResponseDTO product) throws IOException {
+        if (product.getId() != null && product.getId() != 0) {
+            output.writeInt64(PRODUCT_ID, product.getId());
+        }
+        if (product.getName() != null && !product.getName().isEmpty()) {
+            output.writeString(PRODUCT_NAME, product.getName());
+        }
+        if (product.getDescription() != null && !product.getDescription().isEmpty()) {
+            output.writeString(PRODUCT_DESCRIPTION, product.getDescription());
+        }
+        if (product.getPrice() != null && Double.doubleToRawLongBits(product.getPrice()) != 0) {
+            output.writeDouble(PRODUCT_PRICE, product.getPrice());
+        }
+        writeString(output, PRODUCT_CATEGORY, product.getCategory());
+        writeString(output, PRODUCT_BRAND, product.getBrand());
+        writeMap(output, PRODUCT_ATTRIBUTES, product.getAttributes());
+    }
+
+    /**
+     * Writes a {@code ProductList} message, one length-delimited {@code Product} at a time.
+     */
+    public static void writeProducts(CodedOutputStream output, Iterable<ProductResponseDTO> products) throws IOException {
+        for (ProductResponseDTO product : products) {
+            output.writeTag(PRODUCT_LIST_PRODUCTS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(productSize(product));
+            writeProduct(output, product);
+        }
+    }
+
+    /**
+     * Reads a {@code ProductCreate} message. Missing fields stay null so bean validation reports them as required.
+     */
+    public static ProductCreateDTO readProductCreate(CodedInputStream input) throws IOException {
+        ProductCreateDTO product = new ProductCreateDTO();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (tag) {
+                case (PRODUCT_CREATE_NAME << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        product.setName(input.readStringRequireUtf8());
+                case (PRODUCT_CREATE_DESCRIPTION << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        product.setDescription(input.readStringRequireUtf8());
+                case (PRODUCT_CREATE_PRICE << 3) | WireFormat.WIRETYPE_FIXED64 -> product.setPrice(input.readDouble());
+                case (PRODUCT_CREATE_CATEGORY << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        product.setCategory(input.readStringRequireUtf8());
+                case (PRODUCT_CREATE_BRAND << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        product.setBrand(input.readStringRequireUtf8());
+                case (PRODUCT_CREATE_ATTRIBUTES << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> {
+                    if (product.getAttributes() == null) {
+                        product.setAttributes(new LinkedHashMap<>());
+                    }
+                    readMapEntry(input, product.getAttributes());
+                }
+                default -> input.skipField(tag);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Writes a {@code ProductCreate} message; the client side of {@link #readProductCreate(CodedInputStream)}.
+     */
+    public static void writeProductCreate(CodedOutputStream output, ProductCreateDTO product) throws IOException {
+        if (product.getName() != null && !product.getName().isEmpty()) {
+            output.writeString(PRODUCT_CREATE_NAME, product.getName());
+        }
+        if (product.getDescription() != null && !product.getDescription().isEmpty()) {
+            output.writeString(PRODUCT_CREATE_DESCRIPTION, product.getDescription());
+        }
+        if (product.getPrice() != null && Double.doubleToRawLongBits(product.getPrice()) != 0) {
+            output.writeDouble(PRODUCT_CREATE_PRICE, product.getPrice());
+        }
+        writeString(output, PRODUCT_CREATE_CATEGORY, product.getCategory());
+        writeString(output, PRODUCT_CREATE_BRAND, product.getBrand());
+        writeMap(output, PRODUCT_CREATE_ATTRIBUTES, product.getAttributes());
+    }
+
+    /**
+     * Reads a {@code Product} message that spans the rest of the input (or the current length limit).
+     */
+    public static ProductResponseDTO readProduct(CodedInputStream input) throws IOException {
+        long id = 0;
+        String name = "";
+        String description = "";
+        double price = 0;
+        String category = null;
+        String brand = null;
+        Map<String, String> attributes = null;
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (tag) {
+                case (PRODUCT_ID << 3) | WireFormat.WIRETYPE_VARINT -> id = input.readInt64();
+                case (PRODUCT_NAME << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> name = input.readStringRequireUtf8();
+                case (PRODUCT_DESCRIPTION << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        description = input.readStringRequireUtf8();
+                case (PRODUCT_PRICE << 3) | WireFormat.WIRETYPE_FIXED64 -> price = input.readDouble();
+                case (PRODUCT_CATEGORY << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED ->
+                        category = input.readStringRequireUtf8();
+                case (PRODUCT_BRAND << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> brand = input.readStringRequireUtf8();
+                case (PRODUCT_ATTRIBUTES << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> {
+                    if (attributes == null) {
+                        attributes = new LinkedHashMap<>();
+                    }
+                    readMapEntry(input, attributes);
+                }
+                default -> input.skipField(tag);
+            }
+        }
+        ProductResponseDTO product = new ProductResponseDTO(id, name, description, price);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setAttributes(attributes);
+        return product;
+    }
+
+    /**
+     * Reads a {@code ProductList} message; the client side of {@link #writeProducts(CodedOutputStream, Iterable)}.
+     */
+    public static List<ProductResponseDTO> readProducts(CodedInputStream input) throws IOException {
+        List<ProductResponseDTO> products = new ArrayList<>();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            if (tag == ((PRODUCT_LIST_PRODUCTS << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                products.add(readProduct(input));
+                input.popLimit(limit);
+            } else {
+                input.skipField(tag);
+            }
+        }
+        return products;
+    }
+
+    private static int productSize(ProductResponseDTO product) {
+        int size = 0;
+        if (product.getId() != null && product.getId() != 0) {
+            size += CodedOutputStream.computeInt64Size(PRODUCT_ID, product.getId());
+        }
+        if (product.getName() != null && !product.getName().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(PRODUCT_NAME, product.getName());
+        }
+        if (product.getDescription() != null && !product.getDescription().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(PRODUCT_DESCRIPTION, product.getDescription());
+        }
+        if (product.getPrice() != null && Double.doubleToRawLongBits(product.getPrice()) != 0) {
+            size += CodedOutputStream.computeDoubleSize(PRODUCT_PRICE, product.getPrice());
+        }
+        if (product.getCategory() != null && !product.getCategory().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(PRODUCT_CATEGORY, product.getCategory());
+        }
+        if (product.getBrand() != null && !product.getBrand().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(PRODUCT_BRAND, product.getBrand());
+        }
+        if (product.getAttributes() != null) {
+            for (Map.Entry<String, String> entry : product.getAttributes().entrySet()) {
+                int entrySize = mapEntrySize(entry);
+                size += CodedOutputStream.computeTagSize(PRODUCT_ATTRIBUTES)
+                        + CodedOutputStream.computeUInt32SizeNoTag(entrySize) + entrySize;
+            }
+        }
+        return size;
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            output.writeString(field, value);
+        }
+    }
+
+    /**
+     * Writes a proto3 {@code map<string, string>}: one length-delimited entry message per pair.
+     */
+    private static void writeMap(CodedOutputStream output, int field, Map<String, String> map) throws IOException {
+        if (map == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(mapEntrySize(entry));
+            writeString(output, MAP_ENTRY_KEY, entry.getKey());
+            writeString(output, MAP_ENTRY_VALUE, entry.getValue());
+        }
+    }
+
+    private static int mapEntrySize(Map.Entry<String, String> entry) {
+        int size = 0;
+        if (!entry.getKey().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(MAP_ENTRY_KEY, entry.getKey());
+        }
+        if (!entry.getValue().isEmpty()) {
+            size += CodedOutputStream.computeStringSize(MAP_ENTRY_VALUE, entry.getValue());
+        }
+        return size;
+    }
+
+    private static void readMapEntry(CodedInputStream input, Map<String, String> map) throws IOException {
+        int limit = input.pushLimit(input.readRawVarint32());
+        String key = "";
+        String value = "";
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (tag) {
+                case (MAP_ENTRY_KEY << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> key = input.readStringRequireUtf8();
+                case (MAP_ENTRY_VALUE << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED -> value = input.readStringRequireUtf8();
+                default -> input.skipField(tag);
+            }
+        }
+        input.popLimit(limit);
+        map.put(key, value);
+    }
+}
@@ -0,0 +1,103 @@
+package com.raphael.mscatalog.protobuf;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@code application/x-protobuf} representation of the product API: reads {@code ProductCreate} request bodies and
+ * writes {@code Product} / {@code ProductList} responses with {@link ProductProtobufCodec}.
+ */
+public class ProductProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    public ProductProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == ProductCreateDTO.class || clazz == ProductResponseDTO.class
+                || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return ResolvableType.forType(type).resolve() == ProductCreateDTO.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == ProductCreateDTO.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        return clazz == ProductResponseDTO.class
+                || Collection.class.isAssignableFrom(clazz) && type != null
+                && ResolvableType.forType(type).asCollection().resolveGeneric(0) == ProductResponseDTO.class;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    /**
+     * Spring asks for the producible media types with the raw return class only; advertise protobuf for any collection
+     * and let {@link #canWrite(Type, Class, MediaType)} check the element type when the body is written.
+     */
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return supports(clazz) ? getSupportedMediaTypes() : Collections.emptyList();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(ProductCreateDTO.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return ProductProtobufCodec.readProductCreate(CodedInputStream.newInstance(inputMessage.getBody()));
+        } catch (InvalidProtocolBufferException ex) {
+            throw new HttpMessageNotReadableException("Invalid ProductCreate message: " + ex.getMessage(), ex,
+                    inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(StreamUtils.nonClosing(outputMessage.getBody()),
+                BUFFER_SIZE);
+        if (body instanceof ProductResponseDTO product) {
+            ProductProtobufCodec.writeProduct(output, product);
+        } else {
+            ProductProtobufCodec.writeProducts(output, (Collection<ProductResponseDTO>) body);
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,9 @@
+package com.raphael.mscatalog.repositories;
+
+import com.raphael.mscatalog.entities.IngestCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, Integer> {
+}
@@ -0,0 +1,25 @@
+package com.raphael.mscatalog.repositories;
+
+import com.raphael.mscatalog.dto.ProductChangeDTO;
+import com.raphael.mscatalog.entities.ProductChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    @Query("SELECT new com.raphael.mscatalog.dto.ProductChangeDTO(" +
+            "c.id, c.type, c.productId, c.name, c.description, c.priceCents, c.category, c.brand, c.attributes, " +
+            "c.productVersion, c.changedAt) " +
+            "FROM ProductChange c WHERE c.id > :since AND c.id <= :upTo ORDER BY c.id")
+    List<ProductChangeDTO> findChanges(Long since, Long upTo, Limit limit);
+
+    @Query("SELECT coalesce(max(c.id), 0) FROM ProductChange c")
+    Long findLastId();
+}
@@ -1,19 +1,84 @@
 package com.raphael.mscatalog.repositories;
 
+import com.raphael.mscatalog.dto.ProductResponseDTO;
 import com.raphael.mscatalog.entities.Product;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Read queries project straight into {@link ProductResponseDTO}: no managed entities, no dirty-checking snapshots and
+ * no persistence-context bookkeeping. Write paths still load {@link Product} entities through the inherited methods.
+ * <p>
+ * Declared queries run in read-only transactions when called outside one, so that they can be served by a read
+ * replica; the inherited methods keep Spring Data's own transaction settings.
+ */
 @Repository
+@Transactional(readOnly = true)
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-    @Query("SELECT p FROM Product p " +
+    String RESPONSE_PROJECTION = "SELECT new com.raphael.mscatalog.dto.ProductResponseDTO(" +
+            "p.id, p.name, p.description, p.priceCents, p.category, p.brand, p.attributes, p.version, p.updatedAt) " +
+            "FROM Product p ";
+
+    @Query(RESPONSE_PROJECTION + "WHERE p.id = :id")
+    Optional<ProductResponseDTO> findResponseById(Long id);
+
+    @Query(RESPONSE_PROJECTION + "ORDER BY p.id")
+    List<ProductResponseDTO> findAllResponses();
+
+    /**
+     * Multi-get in a single round trip. No particular order; callers put the rows back in request order.
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE p.id IN :ids")
+    List<ProductResponseDTO> findResponsesByIdIn(Collection<Long> ids);
+
+    /**
+     * Text, price-range, category and brand search. Price bounds are in cents and always bound (open ends as
+     * {@code Long.MIN_VALUE} / {@code Long.MAX_VALUE}): a {@code :bound IS NULL OR ...} guard would keep the planner from
+     * seeking the price index. Attribute filters are applied by the caller.
+     */
+    @Query(RESPONSE_PROJECTION +
             "WHERE (:query IS NULL OR lower(p.name) LIKE %:query% " +
             " OR lower(p.description) LIKE %:query%)" +
-            " AND (:minPrice IS NULL OR p.price >= :minPrice)" +
-            " AND (:maxPrice IS NULL OR p.price <= :maxPrice)")
-    List<Product> findByNameOrDescriptionAndPrice(String query, Double minPrice, Double maxPrice);
+            " AND p.priceCents BETWEEN :minPriceCents AND :maxPriceCents" +
+            " AND (:category IS NULL OR p.category = :category)" +
+            " AND (:brand IS NULL OR p.brand = :brand)")
+    List<ProductResponseDTO> findByNameOrDescriptionAndPrice(String query, long minPriceCents, long maxPriceCents,
+                                                             String category, String brand, Sort sort);
+
+    /**
+     * Keyset pagination: returns the next {@code limit} products whose id is greater than {@code afterId}.
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductResponseDTO> findPageAfter(Long afterId, Limit limit);
+
+    /**
+     * Forward-only cursor over the whole catalog. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(RESPONSE_PROJECTION + "ORDER BY p.id")
+    Stream<ProductResponseDTO> streamAllResponses();
+
+    /**
+     * Walks {@link #streamAllResponses()} in a read-only transaction of its own.
+     */
+    default void forEachResponse(Consumer<ProductResponseDTO> consumer) {
+        try (Stream<ProductResponseDTO> products = streamAllResponses()) {
+            products.forEach(consumer);
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.raphael.mscatalog.repositories;
+
+import com.raphael.mscatalog.entities.ProductRow;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveProductRepository extends R2dbcRepository<ProductRow, Long> {
+
+    /**
+     * Keyset pagination: returns the next {@code limit} products whose id is greater than {@code afterId}.
+     */
+    @Query("SELECT * FROM tb_product WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<ProductRow> findPageAfter(long afterId, int limit);
+
+    @Query("SELECT * FROM tb_product ORDER BY id")
+    Flux<ProductRow> streamAll();
+}
@@ -0,0 +1,103 @@
+package com.raphael.mscatalog.search;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.entities.Prices;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Accumulates facet counts and turns them into a {@link SearchFacetsDTO}. {@link ProductSearchIndex} adds whole counts
+ * read off its bitmaps; the database fallback adds matching products one at a time.
+ */
+public final class FacetCounter {
+
+    /**
+     * Values kept per facet, most frequent first.
+     */
+    public static final int MAX_VALUES = 20;
+
+    /**
+     * Upper bounds, exclusive and in cents, of every price bucket but the last, which is open-ended.
+     */
+    static final long[] PRICE_BUCKET_BOUNDS = {5_000, 10_000, 50_000, 100_000, 500_000};
+
+    private static final Comparator<SearchFacetsDTO.FacetValue> BY_COUNT =
+            Comparator.comparingLong(SearchFacetsDTO.FacetValue::getCount).reversed()
+                    .thenComparing(SearchFacetsDTO.FacetValue::getValue);
+
+    private long total;
+    private final Map<String, Long> categories = new HashMap<>();
+    private final Map<String, Long> brands = new HashMap<>();
+    private final Map<String, Map<String, Long>> attributes = new TreeMap<>();
+    private final long[] prices = new long[PRICE_BUCKET_BOUNDS.length + 1];
+
+    static int priceBucket(long cents) {
+        int bucket = 0;
+        while (bucket < PRICE_BUCKET_BOUNDS.length && cents >= PRICE_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    public void add(ProductResponseDTO product) {
+        total++;
+        if (product.getCategory() != null) {
+            addCategory(product.getCategory(), 1);
+        }
+        if (product.getBrand() != null) {
+            addBrand(product.getBrand(), 1);
+        }
+        if (product.getAttributes() != null) {
+            product.getAttributes().forEach((name, value) -> addAttribute(name, value, 1));
+        }
+        addPrice(priceBucket(Prices.toCents(product.getPrice())), 1);
+    }
+
+    void setTotal(long total) {
+        this.total = total;
+    }
+
+    void addCategory(String category, long count) {
+        categories.merge(category, count, Long::sum);
+    }
+
+    void addBrand(String brand, long count) {
+        brands.merge(brand, count, Long::sum);
+    }
+
+    void addAttribute(String name, String value, long count) {
+        attributes.computeIfAbsent(name, key -> new HashMap<>()).merge(value, count, Long::sum);
+    }
+
+    void addPrice(int bucket, long count) {
+        prices[bucket] += count;
+    }
+
+    public SearchFacetsDTO toFacets() {
+        Map<String, List<SearchFacetsDTO.FacetValue>> attributeFacets = new TreeMap<>();
+        attributes.forEach((name, counts) -> attributeFacets.put(name, top(counts)));
+
+        List<SearchFacetsDTO.PriceBucket> priceBuckets = new ArrayList<>(prices.length);
+        for (int bucket = 0; bucket < prices.length; bucket++) {
+            Double from = bucket == 0 ? 0D : Prices.fromCents(PRICE_BUCKET_BOUNDS[bucket - 1]);
+            Double to = bucket == PRICE_BUCKET_BOUNDS.length ? null : Prices.fromCents(PRICE_BUCKET_BOUNDS[bucket]);
+            priceBuckets.add(new SearchFacetsDTO.PriceBucket(from, to, prices[bucket]));
+        }
+        return new SearchFacetsDTO(total, top(categories), top(brands), attributeFacets, priceBuckets);
+    }
+
+    private static List<SearchFacetsDTO.FacetValue> top(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(entry -> new SearchFacetsDTO.FacetValue(entry.getKey(), entry.getValue()))
+                .sorted(BY_COUNT)
+                .limit(MAX_VALUES)
+                .toList();
+    }
+}
@@ -0,0 +1,226 @@
+package com.raphael.mscatalog.search;
+
+import java.util.Arrays;
+
+/**
+ * Products sorted by (price in cents, id), kept in parallel primitive arrays so lookups never box. A range query is two
+ * binary searches plus a walk over the k hits: O(log n + k). Single inserts and removals shift the tail with
+ * {@link System#arraycopy}; bulk loads append unsorted between {@link #beginBulk()} and {@link #endBulk()} and sort
+ * once at the end.
+ * <p>
+ * Not thread-safe: {@link ProductSearchIndex} guards it with its read/write lock.
+ */
+final class PriceIndex<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size;
+    private boolean sorted = true;
+
+    int size() {
+        return size;
+    }
+
+    long priceAt(int index) {
+        return prices[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    T valueAt(int index) {
+        return (T) values[index];
+    }
+
+    void add(long price, long id, T value) {
+        ensureCapacity(size + 1);
+        int at = sorted ? position(price, id) : size;
+        if (at < 0) {
+            values[-at - 1] = value;
+            return;
+        }
+        if (at < size) {
+            System.arraycopy(prices, at, prices, at + 1, size - at);
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(values, at, values, at + 1, size - at);
+        }
+        prices[at] = price;
+        ids[at] = id;
+        values[at] = value;
+        size++;
+    }
+
+    void remove(long price, long id) {
+        int at = sorted ? position(price, id) : scan(price, id);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        if (sorted) {
+            System.arraycopy(prices, at + 1, prices, at, size - at - 1);
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(values, at + 1, values, at, size - at - 1);
+        } else {
+            prices[at] = prices[size - 1];
+            ids[at] = ids[size - 1];
+            values[at] = values[size - 1];
+        }
+        values[--size] = null;
+    }
+
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        sorted = true;
+    }
+
+    /**
+     * Switches to append-only mode; the index must not be queried until {@link #endBulk()}.
+     */
+    void beginBulk() {
+        sorted = false;
+    }
+
+    void endBulk() {
+        if (!sorted) {
+            sort(0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * First position whose price is at least {@code price}.
+     */
+    int lowerBound(long price) {
+        checkSorted();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose price is greater than {@code price}.
+     */
+    int upperBound(long price) {
+        checkSorted();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary search for (price, id): returns {@code -(position + 1)} when present, or the insertion point otherwise.
+     */
+    private int position(long price, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(prices[mid], ids[mid], price, id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid;
+            } else {
+                return -mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private int scan(long price, long id) {
+        for (int i = 0; i < size; i++) {
+            if (prices[i] == price && ids[i] == id) {
+                return -i - 1;
+            }
+        }
+        return size;
+    }
+
+    private void checkSorted() {
+        if (!sorted) {
+            throw new IllegalStateException("Price index is being bulk loaded");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > prices.length) {
+            int newCapacity = Math.max(capacity, prices.length + (prices.length >> 1));
+            prices = Arrays.copyOf(prices, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+
+    /**
+     * Quicksort over [from, to) on the (price, id) key, recursing into the smaller half so the stack stays O(log n).
+     */
+    private void sort(int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int mid = (from + to - 1) >>> 1;
+            long pivotPrice = prices[mid];
+            long pivotId = ids[mid];
+            int i = from - 1;
+            int j = to;
+            while (true) {
+                do {
+                    i++;
+                } while (compare(prices[i], ids[i], pivotPrice, pivotId) < 0);
+                do {
+                    j--;
+                } while (compare(prices[j], ids[j], pivotPrice, pivotId) > 0);
+                if (i >= j) {
+                    break;
+                }
+                swap(i, j);
+            }
+            if (j + 1 - from < to - j - 1) {
+                sort(from, j + 1);
+                from = j + 1;
+            } else {
+                sort(j + 1, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(prices[j - 1], ids[j - 1], prices[j], ids[j]) > 0; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        long price = prices[i];
+        prices[i] = prices[j];
+        prices[j] = price;
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        Object value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private static int compare(long price, long id, long otherPrice, long otherId) {
+        int cmp = Long.compare(price, otherPrice);
+        return cmp != 0 ? cmp : Long.compare(id, otherId);
+    }
+}
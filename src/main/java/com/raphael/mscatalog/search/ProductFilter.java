@@ -0,0 +1,56 @@
+package com.raphael.mscatalog.search;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact-match filters of a search: {@code category}, {@code brand} and any number of {@code attr=name:value}. Every
+ * filter given must match. Values are compared as stored, case included.
+ */
+public record ProductFilter(String category, String brand, List<Attribute> attributes) {
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, List.of());
+
+    public record Attribute(String name, String value) {
+
+        /**
+         * Parses one {@code attr=name:value} request parameter; Spring calls it to convert the parameter.
+         */
+        public static Attribute valueOf(String value) {
+            int separator = value.indexOf(':');
+            if (separator <= 0 || separator == value.length() - 1) {
+                throw new IllegalArgumentException("Invalid attribute filter: " + value);
+            }
+            return new Attribute(value.substring(0, separator), value.substring(separator + 1));
+        }
+    }
+
+    public static ProductFilter of(String category, String brand, List<Attribute> attributes) {
+        if (category == null && brand == null && (attributes == null || attributes.isEmpty())) {
+            return NONE;
+        }
+        return new ProductFilter(category, brand, attributes == null ? List.of() : List.copyOf(attributes));
+    }
+
+    public boolean isEmpty() {
+        return category == null && brand == null && attributes.isEmpty();
+    }
+
+    public boolean matches(ProductResponseDTO product) {
+        if (category != null && !category.equals(product.getCategory())) {
+            return false;
+        }
+        if (brand != null && !brand.equals(product.getBrand())) {
+            return false;
+        }
+        Map<String, String> productAttributes = product.getAttributes();
+        for (Attribute attribute : attributes) {
+            if (productAttributes == null || !attribute.value().equals(productAttributes.get(attribute.name()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,572 @@
+package com.raphael.mscatalog.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
+import com.raphael.mscatalog.entities.Prices;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.services.CatalogVersion;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over product name and description, kept in sync through {@link ProductChangedEvent}s.
+ * <p>
+ * Query tokens are matched as prefixes of indexed terms (so "mon" finds "Monitor") and every token must match.
+ * Results are ranked by a tf-idf style score where name hits weigh more than description hits, unless a
+ * {@link ProductSort} is requested. Price filters are answered from a {@link PriceIndex} over prices in cents, so a
+ * price-only search never touches the term dictionary and costs O(log n + k).
+ * <p>
+ * For filters and facets every product also gets a dense int ordinal (freed ordinals are reused), and each category,
+ * brand, attribute value and price bucket keeps a compressed {@link RoaringBitmap} of the ordinals holding it. A facet
+ * count is then the cardinality of that bitmap intersected with the bitmap of the query's matches, computed container
+ * by container without materializing the intersection.
+ * <p>
+ * The terms of product names also go into a {@link SuggestionTrie}, which completes what a user is typing.
+ * <p>
+ * Change events run after their transactions commit, not necessarily in commit order, so an event only replaces a
+ * document of an older version, and a deleted id is remembered for {@value #DELETED_RETENTION_SECONDS} seconds so that
+ * a late update cannot bring it back.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    /**
+     * Up to this many matches, facets are counted by walking the matching products: intersecting every facet bitmap
+     * with a handful of ordinals costs more than reading the products themselves.
+     */
+    private static final int SCAN_FACETS_LIMIT = 4096;
+    /**
+     * Typed prefixes shorter than this are only completed exactly; from here one typo is tolerated, and two from
+     * {@link #TWO_EDITS_PREFIX_LENGTH} characters.
+     */
+    private static final int ONE_EDIT_PREFIX_LENGTH = 4;
+    private static final int TWO_EDITS_PREFIX_LENGTH = 8;
+    static final long DELETED_RETENTION_SECONDS = 60;
+    private static final long MAX_TRACKED_DELETIONS = 100_000;
+    private static final Comparator<ProductResponseDTO> PRICE_ORDER =
+            new ProductSort(ProductSort.Field.PRICE, Sort.Direction.ASC).comparator();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, ProductResponseDTO> documents = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final PriceIndex<ProductResponseDTO> byPrice = new PriceIndex<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<ProductResponseDTO> byOrdinal = new ArrayList<>();
+    private final RoaringBitmap freeOrdinals = new RoaringBitmap();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byBrand = new HashMap<>();
+    private final Map<String, Map<String, RoaringBitmap>> byAttribute = new HashMap<>();
+    private final RoaringBitmap[] byPriceBucket = new RoaringBitmap[FacetCounter.PRICE_BUCKET_BOUNDS.length + 1];
+    private final SuggestionTrie nameTerms = new SuggestionTrie();
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+    private final Cache<Long, Boolean> deleted = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_DELETIONS)
+            .expireAfterWrite(Duration.ofSeconds(DELETED_RETENTION_SECONDS))
+            .build();
+    private volatile boolean loading;
+    private volatile boolean ready;
+
+    private final CatalogMetrics catalogMetrics;
+
+    public ProductSearchIndex(CatalogMetrics catalogMetrics) {
+        this.catalogMetrics = catalogMetrics;
+        Arrays.setAll(byPriceBucket, bucket -> new RoaringBitmap());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Order(CatalogVersion.BEFORE_VERSION_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (loading) {
+                changedWhileLoading.add(event.productId());
+            }
+            if (event.type() == ProductChangedEvent.Type.DELETED) {
+                deleted.put(event.productId(), Boolean.TRUE);
+                removeDocument(event.productId());
+            } else if (isNewer(event.product())) {
+                addDocument(event.product());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            loading = true;
+            changedWhileLoading.clear();
+            deleted.invalidateAll();
+            clear();
+            byPrice.beginBulk();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a product read by the bulk loader, unless a change event for it arrived after loading started.
+     */
+    public void load(ProductResponseDTO product) {
+        lock.writeLock().lock();
+        try {
+            if (!changedWhileLoading.contains(product.getId())) {
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            byPrice.endBulk();
+            ready = true;
+            log.info("Product search index ready with {} products and {} terms", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = false;
+            changedWhileLoading.clear();
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductResponseDTO> search(String query, Double minPrice, Double maxPrice, ProductSort sort) {
+        return search(query, minPrice, maxPrice, ProductFilter.NONE, sort);
+    }
+
+    public List<ProductResponseDTO> search(String query, Double minPrice, Double maxPrice, ProductFilter filter,
+                                           ProductSort sort) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        long minCents = minPrice == null ? Long.MIN_VALUE : Prices.ceilCents(minPrice);
+        long maxCents = maxPrice == null ? Long.MAX_VALUE : Prices.floorCents(maxPrice);
+        long[] scanned = new long[1];
+        List<ProductResponseDTO> results;
+        boolean priceOrdered = false;
+
+        lock.readLock().lock();
+        try {
+            if (!tokens.isEmpty()) {
+                results = rankedMatches(tokens, minCents, maxCents, filter, scanned);
+            } else if (!filter.isEmpty()) {
+                results = filtered(filter, minCents, maxCents, scanned);
+            } else {
+                results = priceRange(minCents, maxCents, sort);
+                priceOrdered = true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (sort != null && !(priceOrdered && sort.field() == ProductSort.Field.PRICE)) {
+            results.sort(sort.comparator());
+        } else if (sort == null && tokens.isEmpty() && !priceOrdered) {
+            results.sort(PRICE_ORDER);
+        }
+
+        catalogMetrics.searchSelectivity("index", priceOrdered ? results.size() : scanned[0], results.size());
+        return results;
+    }
+
+    /**
+     * Facet counts over everything the same search would return: the cardinality of each facet bitmap intersected with
+     * the bitmap of the matches, or a walk over the matches when there are only a few.
+     */
+    public SearchFacetsDTO facets(String query, Double minPrice, Double maxPrice, ProductFilter filter) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        long minCents = minPrice == null ? Long.MIN_VALUE : Prices.ceilCents(minPrice);
+        long maxCents = maxPrice == null ? Long.MAX_VALUE : Prices.floorCents(maxPrice);
+        FacetCounter counter = new FacetCounter();
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = matchSet(tokens, minCents, maxCents, filter);
+            if (matches.getCardinality() <= SCAN_FACETS_LIMIT) {
+                for (int ordinal : matches) {
+                    counter.add(byOrdinal.get(ordinal));
+                }
+            } else {
+                counter.setTotal(matches.getLongCardinality());
+                byCategory.forEach((category, bitmap) -> counter.addCategory(category, count(bitmap, matches)));
+                byBrand.forEach((brand, bitmap) -> counter.addBrand(brand, count(bitmap, matches)));
+                byAttribute.forEach((name, values) -> values.forEach((value, bitmap) ->
+                        counter.addAttribute(name, value, count(bitmap, matches))));
+                for (int bucket = 0; bucket < byPriceBucket.length; bucket++) {
+                    counter.addPrice(bucket, count(byPriceBucket[bucket], matches));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counter.toFacets();
+    }
+
+    /**
+     * Completions of the last word of {@code query} among the terms of product names, each with the number of products
+     * using it. Completions of the exact prefix come first, then those needing one edit and then two; within each, the
+     * terms found in more products rank higher. The earlier words of the query are kept as they were typed.
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String prefix = tokens.get(tokens.size() - 1);
+        String context = String.join(" ", tokens.subList(0, tokens.size() - 1));
+        int maxEdits = prefix.length() >= TWO_EDITS_PREFIX_LENGTH ? 2 : prefix.length() >= ONE_EDIT_PREFIX_LENGTH ? 1 : 0;
+
+        List<SuggestionTrie.Suggestion> completions;
+        lock.readLock().lock();
+        try {
+            completions = nameTerms.complete(prefix, maxEdits, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<SuggestionDTO> suggestions = new ArrayList<>(completions.size());
+        for (SuggestionTrie.Suggestion completion : completions) {
+            String text = context.isEmpty() ? completion.term() : context + " " + completion.term();
+            suggestions.add(new SuggestionDTO(text, completion.count()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Products of a facet value among the matches. Without any query or filter every product matches, and the count is
+     * the bitmap's own cardinality.
+     */
+    private long count(RoaringBitmap facet, RoaringBitmap matches) {
+        return matches == live ? facet.getLongCardinality() : RoaringBitmap.andCardinality(facet, matches);
+    }
+
+    /**
+     * Ordinals of the products matching the search. May return {@link #live} itself, so callers must not modify it.
+     */
+    private RoaringBitmap matchSet(List<String> tokens, long minCents, long maxCents, ProductFilter filter) {
+        RoaringBitmap matches = tokens.isEmpty() ? filterMatches(filter) : textMatches(tokens);
+        if (!tokens.isEmpty() && !filter.isEmpty()) {
+            matches = RoaringBitmap.and(matches, filterMatches(filter));
+        }
+        if (minCents == Long.MIN_VALUE && maxCents == Long.MAX_VALUE) {
+            return matches;
+        }
+        if (matches != live) {
+            RoaringBitmap inRange = new RoaringBitmap();
+            for (int ordinal : matches) {
+                long cents = Prices.toCents(byOrdinal.get(ordinal).getPrice());
+                if (cents >= minCents && cents <= maxCents) {
+                    inRange.add(ordinal);
+                }
+            }
+            return inRange;
+        }
+        if (minCents > maxCents) {
+            return new RoaringBitmap();
+        }
+        int from = byPrice.lowerBound(minCents);
+        int[] inRange = new int[Math.max(byPrice.upperBound(maxCents) - from, 0)];
+        for (int i = 0; i < inRange.length; i++) {
+            inRange[i] = ordinals.get(byPrice.valueAt(from + i).getId());
+        }
+        return RoaringBitmap.bitmapOfUnordered(inRange);
+    }
+
+    /**
+     * Intersection of the filter's bitmaps, or every product when there is no filter.
+     */
+    private RoaringBitmap filterMatches(ProductFilter filter) {
+        List<RoaringBitmap> clauses = new ArrayList<>();
+        if (filter.category() != null) {
+            clauses.add(byCategory.get(filter.category()));
+        }
+        if (filter.brand() != null) {
+            clauses.add(byBrand.get(filter.brand()));
+        }
+        for (ProductFilter.Attribute attribute : filter.attributes()) {
+            clauses.add(byAttribute.getOrDefault(attribute.name(), Map.of()).get(attribute.value()));
+        }
+        if (clauses.isEmpty()) {
+            return live;
+        }
+        if (clauses.contains(null)) {
+            return new RoaringBitmap();
+        }
+        clauses.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+        RoaringBitmap matches = clauses.get(0).clone();
+        for (int clause = 1; clause < clauses.size() && !matches.isEmpty(); clause++) {
+            matches.and(clauses.get(clause));
+        }
+        return matches;
+    }
+
+    /**
+     * Ordinals of the products matching every token, unranked.
+     */
+    private RoaringBitmap textMatches(List<String> tokens) {
+        RoaringBitmap matches = null;
+        for (String token : tokens) {
+            RoaringBitmap tokenMatches = new RoaringBitmap();
+            for (Map<Long, Float> docs : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                int[] termMatches = new int[docs.size()];
+                int count = 0;
+                for (Long id : docs.keySet()) {
+                    termMatches[count++] = ordinals.get(id);
+                }
+                // Postings are hashed by id; adding the ordinals unsorted would shift array containers on every insert.
+                tokenMatches.or(RoaringBitmap.bitmapOfUnordered(termMatches));
+            }
+            matches = matches == null ? tokenMatches : RoaringBitmap.and(matches, tokenMatches);
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Products passing the filter and price range, in no particular order; the caller sorts them.
+     */
+    private List<ProductResponseDTO> filtered(ProductFilter filter, long minCents, long maxCents, long[] scanned) {
+        RoaringBitmap matches = filterMatches(filter);
+        scanned[0] = matches.getLongCardinality();
+        List<ProductResponseDTO> results = new ArrayList<>(matches.getCardinality());
+        for (int ordinal : matches) {
+            ProductResponseDTO product = byOrdinal.get(ordinal);
+            long cents = Prices.toCents(product.getPrice());
+            if (cents >= minCents && cents <= maxCents) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    private List<ProductResponseDTO> rankedMatches(List<String> tokens, long minCents, long maxCents,
+                                                   ProductFilter filter, long[] scanned) {
+        Map<Long, Float> scores = null;
+        for (String token : tokens) {
+            Map<Long, Float> tokenScores = score(token);
+            scanned[0] += tokenScores.size();
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Map.Entry<Long, Float>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        List<ProductResponseDTO> results = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Float> entry : ranked) {
+            ProductResponseDTO product = documents.get(entry.getKey());
+            long cents = Prices.toCents(product.getPrice());
+            if (cents >= minCents && cents <= maxCents && filter.matches(product)) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    private Map<Long, Float> score(String token) {
+        Map<Long, Float> tokenScores = new HashMap<>();
+        int totalDocuments = Math.max(documents.size(), 1);
+
+        for (Map.Entry<String, Map<Long, Float>> term : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            Map<Long, Float> docs = term.getValue();
+            float idf = (float) Math.log(1.0 + (double) totalDocuments / docs.size());
+            float exactBoost = term.getKey().length() == token.length() ? 1.5f : 1.0f;
+            for (Map.Entry<Long, Float> doc : docs.entrySet()) {
+                tokenScores.merge(doc.getKey(), doc.getValue() * idf * exactBoost, Math::max);
+            }
+        }
+        return tokenScores;
+    }
+
+    /**
+     * Products in the price range, walked straight off the price index in price order (descending when asked to).
+     */
+    private List<ProductResponseDTO> priceRange(long minCents, long maxCents, ProductSort sort) {
+        if (minCents > maxCents) {
+            return new ArrayList<>();
+        }
+        int from = byPrice.lowerBound(minCents);
+        int to = byPrice.upperBound(maxCents);
+
+        List<ProductResponseDTO> results = new ArrayList<>(Math.max(to - from, 0));
+        if (sort != null && sort.field() == ProductSort.Field.PRICE && sort.isDescending()) {
+            for (int i = to - 1; i >= from; i--) {
+                results.add(byPrice.valueAt(i));
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                results.add(byPrice.valueAt(i));
+            }
+        }
+        return results;
+    }
+
+    private boolean isNewer(ProductResponseDTO product) {
+        if (deleted.getIfPresent(product.getId()) != null) {
+            return false;
+        }
+        ProductResponseDTO indexed = documents.get(product.getId());
+        return indexed == null || indexed.getVersion() == null || product.getVersion() == null
+                || product.getVersion() > indexed.getVersion();
+    }
+
+    private void addDocument(ProductResponseDTO product) {
+        removeDocument(product.getId());
+        documents.put(product.getId(), product);
+
+        Map<String, Float> weights = new HashMap<>();
+        for (String token : TextNormalizer.tokenize(product.getName())) {
+            // Names come first, so the term is new to this product exactly when its weight is a single name hit.
+            if (weights.merge(token, NAME_WEIGHT, Float::sum) == NAME_WEIGHT) {
+                nameTerms.add(token);
+            }
+        }
+        for (String token : TextNormalizer.tokenize(product.getDescription())) {
+            weights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+        }
+        for (Map.Entry<String, Float> weight : weights.entrySet()) {
+            postings.computeIfAbsent(weight.getKey(), term -> new HashMap<>()).put(product.getId(), weight.getValue());
+        }
+        long cents = Prices.toCents(product.getPrice());
+        byPrice.add(cents, product.getId(), product);
+
+        int ordinal = freeOrdinals.isEmpty() ? byOrdinal.size() : freeOrdinals.first();
+        if (ordinal == byOrdinal.size()) {
+            byOrdinal.add(product);
+        } else {
+            freeOrdinals.remove(ordinal);
+            byOrdinal.set(ordinal, product);
+        }
+        ordinals.put(product.getId(), ordinal);
+        live.add(ordinal);
+        if (product.getCategory() != null) {
+            byCategory.computeIfAbsent(product.getCategory(), key -> new RoaringBitmap()).add(ordinal);
+        }
+        if (product.getBrand() != null) {
+            byBrand.computeIfAbsent(product.getBrand(), key -> new RoaringBitmap()).add(ordinal);
+        }
+        if (product.getAttributes() != null) {
+            product.getAttributes().forEach((name, value) -> byAttribute.computeIfAbsent(name, key -> new HashMap<>())
+                    .computeIfAbsent(value, key -> new RoaringBitmap()).add(ordinal));
+        }
+        byPriceBucket[FacetCounter.priceBucket(cents)].add(ordinal);
+    }
+
+    private void removeDocument(Long id) {
+        ProductResponseDTO previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String token : TextNormalizer.tokenize(previous.getName() + " " + previous.getDescription())) {
+            Map<Long, Float> docs = postings.get(token);
+            if (docs != null) {
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+        for (String token : new HashSet<>(TextNormalizer.tokenize(previous.getName()))) {
+            nameTerms.remove(token);
+        }
+        long cents = Prices.toCents(previous.getPrice());
+        byPrice.remove(cents, id);
+
+        int ordinal = ordinals.remove(id);
+        byOrdinal.set(ordinal, null);
+        freeOrdinals.add(ordinal);
+        live.remove(ordinal);
+        if (previous.getCategory() != null) {
+            removeOrdinal(byCategory, previous.getCategory(), ordinal);
+        }
+        if (previous.getBrand() != null) {
+            removeOrdinal(byBrand, previous.getBrand(), ordinal);
+        }
+        if (previous.getAttributes() != null) {
+            previous.getAttributes().forEach((name, value) -> {
+                Map<String, RoaringBitmap> values = byAttribute.get(name);
+                removeOrdinal(values, value, ordinal);
+                if (values.isEmpty()) {
+                    byAttribute.remove(name);
+                }
+            });
+        }
+        byPriceBucket[FacetCounter.priceBucket(cents)].remove(ordinal);
+    }
+
+    private static void removeOrdinal(Map<String, RoaringBitmap> bitmaps, String value, int ordinal) {
+        RoaringBitmap bitmap = bitmaps.get(value);
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(value);
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        postings.clear();
+        byPrice.clear();
+        ordinals.clear();
+        byOrdinal.clear();
+        freeOrdinals.clear();
+        live.clear();
+        byCategory.clear();
+        byBrand.clear();
+        byAttribute.clear();
+        nameTerms.clear();
+        for (RoaringBitmap bucket : byPriceBucket) {
+            bucket.clear();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.raphael.mscatalog.search;
+
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import com.raphael.mscatalog.services.CatalogVersion;
+import com.raphael.mscatalog.services.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fills the {@link ProductSearchIndex} from the database once the application is up, and again in the background after
+ * a snapshot import. Until it finishes, searches keep going to the database.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "mscatalog.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class ProductSearchIndexLoader {
+
+    private final ProductService productService;
+    private final ProductSearchIndex productSearchIndex;
+    private volatile boolean started;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        started = true;
+        productSearchIndex.beginLoad();
+        fill();
+    }
+
+    /**
+     * An import that runs before the application is ready (the command-line mode) is picked up by the startup load.
+     * The index is emptied before the catalog version moves, so searches go to the database until the reload is done
+     * instead of answering from the old catalog under the new tag.
+     */
+    @Order(CatalogVersion.BEFORE_VERSION_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        if (started) {
+            productSearchIndex.beginLoad();
+            CompletableFuture.runAsync(this::fill);
+        }
+    }
+
+    private void fill() {
+        long start = System.nanoTime();
+        try {
+            productService.streamAll(productSearchIndex::load);
+            productSearchIndex.endLoad();
+            log.info("Product search index loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            productSearchIndex.abortLoad();
+            log.error("Could not load product search index, searches will use the database", ex);
+        }
+    }
+}
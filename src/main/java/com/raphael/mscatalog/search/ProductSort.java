@@ -0,0 +1,53 @@
+package com.raphael.mscatalog.search;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Result order requested with {@code sort=price|name[,asc|desc]}. Ties are broken by id in the same direction, so the
+ * in-memory index and the database return the same order. Without it, text searches keep relevance order.
+ */
+public record ProductSort(Field field, Sort.Direction direction) {
+
+    public enum Field {
+        PRICE("priceCents", Comparator.comparingDouble(ProductResponseDTO::getPrice)),
+        NAME("name", Comparator.comparing(ProductResponseDTO::getName));
+
+        private final String property;
+        private final Comparator<ProductResponseDTO> comparator;
+
+        Field(String property, Comparator<ProductResponseDTO> comparator) {
+            this.property = property;
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * Parses the {@code sort} request parameter; Spring calls it to convert the parameter.
+     */
+    public static ProductSort valueOf(String value) {
+        String[] parts = value.trim().toUpperCase(Locale.ROOT).split("\\s*,\\s*");
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("Invalid sort: " + value);
+        }
+        Field field = Field.valueOf(parts[0]);
+        Sort.Direction direction = parts.length == 2 ? Sort.Direction.fromString(parts[1]) : Sort.Direction.ASC;
+        return new ProductSort(field, direction);
+    }
+
+    public boolean isDescending() {
+        return direction.isDescending();
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, field.property, "id");
+    }
+
+    public Comparator<ProductResponseDTO> comparator() {
+        Comparator<ProductResponseDTO> comparator = field.comparator.thenComparing(ProductResponseDTO::getId);
+        return isDescending() ? comparator.reversed() : comparator;
+    }
+}
@@ -0,0 +1,255 @@
+package com.raphael.mscatalog.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Character trie over the terms of product names, counting how many products use each term. Children are kept in
+ * sorted parallel arrays rather than maps, and every node remembers the highest count and the number of terms in its
+ * subtree, so the most used completions of a prefix are found best-first without walking the whole subtree.
+ * <p>
+ * Completion tolerates typos: the typed prefix is matched against trie paths with an edit distance (insertions,
+ * deletions, substitutions and transpositions) computed one trie level at a time, pruning a branch as soon as every
+ * alignment exceeds the allowed edits.
+ * <p>
+ * Not thread-safe: {@link ProductSearchIndex} guards it with its read/write lock.
+ */
+final class SuggestionTrie {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Comparator<Candidate> RANKING = Comparator.comparingInt(Candidate::edits)
+            .thenComparing(Comparator.comparingInt(Candidate::weight).reversed())
+            .thenComparing(Candidate::path);
+
+    private final Node root = new Node();
+    private int size;
+
+    /**
+     * Number of distinct terms.
+     */
+    int size() {
+        return size;
+    }
+
+    void add(String term) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(term.charAt(i));
+        }
+        Node node = path[term.length()];
+        if (node.count++ == 0) {
+            size++;
+            for (Node onPath : path) {
+                onPath.terms++;
+            }
+        }
+        for (int i = term.length(); i >= 0 && path[i].best < node.count; i--) {
+            path[i].best = node.count;
+        }
+    }
+
+    void remove(String term) {
+        Node[] path = new Node[term.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < term.length(); i++) {
+            path[i + 1] = path[i].child(term.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node node = path[term.length()];
+        if (node.count == 0) {
+            return;
+        }
+        if (--node.count == 0) {
+            size--;
+            for (Node onPath : path) {
+                onPath.terms--;
+            }
+        }
+        for (int i = term.length(); i >= 0; i--) {
+            path[i].updateBest();
+            if (i > 0 && path[i].best == 0) {
+                path[i - 1].removeChild(term.charAt(i - 1));
+            }
+        }
+    }
+
+    void clear() {
+        root.labels = NO_LABELS;
+        root.children = NO_CHILDREN;
+        root.count = 0;
+        root.best = 0;
+        root.terms = 0;
+        size = 0;
+    }
+
+    /**
+     * Up to {@code limit} terms starting with {@code prefix} give or take {@code maxEdits} edits, fewest edits first,
+     * then the most used, then alphabetically. Typos are only looked for when the exact prefix has fewer than
+     * {@code limit} completions, since they would rank after all of those anyway.
+     */
+    List<Suggestion> complete(String prefix, int maxEdits, int limit) {
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(RANKING);
+        Node exact = root;
+        for (int i = 0; i < prefix.length() && exact != null; i++) {
+            exact = exact.child(prefix.charAt(i));
+        }
+        if (exact != null) {
+            queue.add(new Candidate(exact, prefix, 0, exact.best, false));
+        }
+        if (maxEdits > 0 && (exact == null || exact.terms < limit)) {
+            new FuzzyWalk(prefix, maxEdits, queue).collect(root, 0, maxEdits + 1);
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        while (!queue.isEmpty() && suggestions.size() < limit) {
+            Candidate candidate = queue.poll();
+            Node node = candidate.node();
+            if (candidate.term()) {
+                if (seen.add(candidate.path())) {
+                    suggestions.add(new Suggestion(candidate.path(), candidate.edits(), node.count));
+                }
+                continue;
+            }
+            if (node.count > 0) {
+                queue.add(new Candidate(node, candidate.path(), candidate.edits(), node.count, true));
+            }
+            for (int i = 0; i < node.labels.length; i++) {
+                Node child = node.children[i];
+                queue.add(new Candidate(child, candidate.path() + node.labels[i], candidate.edits(), child.best, false));
+            }
+        }
+        return suggestions;
+    }
+
+    record Suggestion(String term, int edits, int count) {
+    }
+
+    /**
+     * A queue entry: either a subtree still to expand, ranked by the best count inside it, or a finished term. A
+     * subtree's path sorts before every term in it, so terms come out in exact ranking order.
+     */
+    private record Candidate(Node node, String path, int edits, int weight, boolean term) {
+    }
+
+    /**
+     * Walks the trie carrying the edit distance row of the path so far against the prefix ({@code row[j]} is the
+     * distance to its first {@code j} characters). A node whose path is within {@code maxEdits} of the whole prefix is a
+     * completion root, unless an ancestor already was with as few edits. Every row is at least {@code depth - prefix
+     * length}, so the walk never goes deeper than {@code prefix length + maxEdits} and the rows and path are preallocated.
+     */
+    private static final class FuzzyWalk {
+
+        private final String prefix;
+        private final int maxEdits;
+        private final PriorityQueue<Candidate> queue;
+        private final int[][] rows;
+        private final char[] path;
+
+        private FuzzyWalk(String prefix, int maxEdits, PriorityQueue<Candidate> queue) {
+            this.prefix = prefix;
+            this.maxEdits = maxEdits;
+            this.queue = queue;
+            this.rows = new int[prefix.length() + maxEdits + 1][prefix.length() + 1];
+            this.path = new char[prefix.length() + maxEdits];
+            Arrays.setAll(rows[0], j -> j);
+        }
+
+        private void collect(Node node, int depth, int ancestorEdits) {
+            int[] row = rows[depth];
+            int edits = row[prefix.length()];
+            if (edits <= maxEdits && edits < ancestorEdits) {
+                // The exact prefix, the only path with no edits, is queued by the caller.
+                if (edits > 0) {
+                    queue.add(new Candidate(node, new String(path, 0, depth), edits, node.best, false));
+                }
+                ancestorEdits = edits;
+            }
+            if (depth == path.length) {
+                return;
+            }
+            int[] nextRow = rows[depth + 1];
+            for (int i = 0; i < node.labels.length; i++) {
+                char next = node.labels[i];
+                nextRow[0] = depth + 1;
+                int smallest = nextRow[0];
+                for (int j = 1; j < row.length; j++) {
+                    char typed = prefix.charAt(j - 1);
+                    nextRow[j] = Math.min(Math.min(row[j] + 1, nextRow[j - 1] + 1), row[j - 1] + (typed == next ? 0 : 1));
+                    if (depth > 0 && j > 1 && typed == path[depth - 1] && prefix.charAt(j - 2) == next) {
+                        nextRow[j] = Math.min(nextRow[j], rows[depth - 1][j - 2] + 1);
+                    }
+                    smallest = Math.min(smallest, nextRow[j]);
+                }
+                if (smallest <= maxEdits) {
+                    path[depth] = next;
+                    collect(node.children[i], depth + 1, ancestorEdits);
+                }
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private int count;
+        private int best;
+        private int terms;
+
+        private Node child(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            return at >= 0 ? children[at] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at >= 0) {
+                return children[at];
+            }
+            at = -at - 1;
+            char[] grownLabels = new char[labels.length + 1];
+            Node[] grownChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, grownLabels, 0, at);
+            System.arraycopy(children, 0, grownChildren, 0, at);
+            System.arraycopy(labels, at, grownLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, grownChildren, at + 1, children.length - at);
+            grownLabels[at] = label;
+            grownChildren[at] = new Node();
+            labels = grownLabels;
+            children = grownChildren;
+            return grownChildren[at];
+        }
+
+        private void removeChild(char label) {
+            int at = Arrays.binarySearch(labels, label);
+            if (at < 0) {
+                return;
+            }
+            char[] shrunkLabels = labels.length == 1 ? NO_LABELS : new char[labels.length - 1];
+            Node[] shrunkChildren = children.length == 1 ? NO_CHILDREN : new Node[children.length - 1];
+            System.arraycopy(labels, 0, shrunkLabels, 0, at);
+            System.arraycopy(children, 0, shrunkChildren, 0, at);
+            System.arraycopy(labels, at + 1, shrunkLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, shrunkChildren, at, children.length - at - 1);
+            labels = shrunkLabels;
+            children = shrunkChildren;
+        }
+
+        private void updateBest() {
+            best = count;
+            for (Node child : children) {
+                best = Math.max(best, child.best);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide version used to tag list and search responses. It moves forward after every committed product change,
+ * so a client that already holds the current tag can be answered with 304 without touching the database.
+ * <p>
+ * The tag embeds this instance's start time: tags issued before a restart, or by another instance, never match.
+ * Read the tag <em>before</em> querying, so a response is never labelled newer than its data.
+ * <p>
+ * The tag is weak: it names the catalog state, not the bytes, which differ by format ({@code Accept}) and content
+ * coding. Tomcat also refuses to gzip a response carrying a strong ETag.
+ * <p>
+ * The version moves last among the commit listeners: the search index, the products cache and the compressed response
+ * cache are brought up to date first (they listen with {@link #BEFORE_VERSION_BUMP}), so a request that reads the new
+ * tag can no longer be answered from their old state.
+ */
+@Component
+public class CatalogVersion {
+
+    public static final int BEFORE_VERSION_BUMP = Ordered.LOWEST_PRECEDENCE - 1;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong version = new AtomicLong();
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public String etag() {
+        return "W/\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header holds {@code etag}, compared weakly.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && ifNoneMatch.contains(etag.substring(etag.indexOf('"')));
+    }
+}
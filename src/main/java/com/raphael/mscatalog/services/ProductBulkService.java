@@ -0,0 +1,291 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.dto.BulkItemResultDTO;
+import com.raphael.mscatalog.dto.BulkResultDTO;
+import com.raphael.mscatalog.dto.ProductBulkUpdateDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.repositories.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Validates every item up front and writes the valid ones in chunks, one transaction per chunk, so Hibernate can
+ * group the statements into JDBC batches. If a chunk fails, its items are retried one by one to find the culprit.
+ * Items are split by shard first, so every chunk writes to a single shard.
+ */
+@Slf4j
+@Service
+@Timed(value = "catalog.service", histogram = true)
+public class ProductBulkService {
+
+    public static final int MAX_ITEMS = 10_000;
+    public static final int CHUNK_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductChangeFeed productChangeFeed;
+    private final ProductShards productShards;
+    private final SnowflakeIds snowflakeIds;
+
+    public ProductBulkService(ProductRepository productRepository,
+                              EntityManager entityManager,
+                              Validator validator,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              ProductChangeFeed productChangeFeed,
+                              ProductShards productShards,
+                              SnowflakeIds snowflakeIds) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.productChangeFeed = productChangeFeed;
+        this.productShards = productShards;
+        this.snowflakeIds = snowflakeIds;
+    }
+
+    public BulkResultDTO createAll(List<? extends ProductCreateDTO> createDTOs) {
+        List<BulkItemResultDTO> results = new ArrayList<>(createDTOs.size());
+        List<Item<Create>> valid = validate(createDTOs, dto -> null, results).stream()
+                .map(item -> new Item<>(item.index(), new Create(snowflakeIds.next(), item.value())))
+                .toList();
+
+        write(valid, Create::id, this::insertChunk, create -> null, results);
+        return new BulkResultDTO(results);
+    }
+
+    public BulkResultDTO updateAll(List<ProductBulkUpdateDTO> updateDTOs) {
+        List<BulkItemResultDTO> results = new ArrayList<>(updateDTOs.size());
+        List<Item<ProductBulkUpdateDTO>> valid = validate(updateDTOs, ProductBulkUpdateDTO::getId, results);
+
+        write(valid, ProductBulkUpdateDTO::getId, this::updateChunk, ProductBulkUpdateDTO::getId, results);
+        return new BulkResultDTO(results);
+    }
+
+    public BulkResultDTO deleteAll(List<Long> ids) {
+        List<BulkItemResultDTO> results = new ArrayList<>(ids.size());
+        List<Item<Long>> valid = new ArrayList<>(ids.size());
+        for (int index = 0; index < ids.size(); index++) {
+            if (ids.get(index) == null) {
+                results.add(BulkItemResultDTO.failure(index, null, "Item inválido", null));
+            } else {
+                valid.add(new Item<>(index, ids.get(index)));
+            }
+        }
+
+        write(valid, Long::longValue, this::deleteChunk, Function.identity(), results);
+        return new BulkResultDTO(results);
+    }
+
+    /**
+     * Writes already validated creates and updates in a single transaction and runs {@code beforeCommit} inside it.
+     * Unlike the other bulk operations nothing is retried item by item: any failure rolls the whole call back and is
+     * thrown. Result indexes count the creates first, then the updates.
+     * <p>
+     * Takes a single transaction, so it needs an unsharded catalog.
+     */
+    public List<BulkItemResultDTO> writeAll(List<? extends ProductCreateDTO> createDTOs,
+                                            List<ProductBulkUpdateDTO> updateDTOs,
+                                            Runnable beforeCommit) {
+        List<Item<Create>> creates = new ArrayList<>(createDTOs.size());
+        for (int index = 0; index < createDTOs.size(); index++) {
+            creates.add(new Item<>(index, new Create(snowflakeIds.next(), createDTOs.get(index))));
+        }
+        List<Item<ProductBulkUpdateDTO>> updates = new ArrayList<>(updateDTOs.size());
+        for (int index = 0; index < updateDTOs.size(); index++) {
+            updates.add(new Item<>(creates.size() + index, updateDTOs.get(index)));
+        }
+
+        List<BulkItemResultDTO> written = transactionTemplate.execute(status -> {
+            List<BulkItemResultDTO> results = new ArrayList<>(creates.size() + updates.size());
+            if (!creates.isEmpty()) {
+                results.addAll(insertChunk(creates));
+            }
+            if (!updates.isEmpty()) {
+                results.addAll(updateChunk(updates));
+            }
+            beforeCommit.run();
+            return results;
+        });
+        return written;
+    }
+
+    private <T> List<Item<T>> validate(List<? extends T> values, Function<T, Long> idOf, List<BulkItemResultDTO> results) {
+        List<Item<T>> valid = new ArrayList<>(values.size());
+
+        for (int index = 0; index < values.size(); index++) {
+            T value = values.get(index);
+            if (value == null) {
+                results.add(BulkItemResultDTO.failure(index, null, "Item inválido", null));
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(value);
+            if (violations.isEmpty()) {
+                valid.add(new Item<>(index, value));
+            } else {
+                Map<String, String> errors = new HashMap<>();
+                for (ConstraintViolation<T> violation : violations) {
+                    errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+                }
+                results.add(BulkItemResultDTO.failure(index, idOf.apply(value), "Campo(s) inválido(s)", errors));
+            }
+        }
+        return valid;
+    }
+
+    private <T> void write(List<Item<T>> items,
+                           ToLongFunction<T> productIdOf,
+                           Function<List<Item<T>>, List<BulkItemResultDTO>> writer,
+                           Function<T, Long> idOf,
+                           List<BulkItemResultDTO> results) {
+        List<List<Item<T>>> byShard = productShards.partition(items, item -> productIdOf.applyAsLong(item.value()));
+        for (int shard = 0; shard < byShard.size(); shard++) {
+            List<Item<T>> shardItems = byShard.get(shard);
+            for (int from = 0; from < shardItems.size(); from += CHUNK_SIZE) {
+                List<Item<T>> chunk = shardItems.subList(from, Math.min(from + CHUNK_SIZE, shardItems.size()));
+                productShards.run(shard, () -> writeChunk(chunk, writer, idOf, results));
+            }
+        }
+    }
+
+    private <T> void writeChunk(List<Item<T>> chunk,
+                                Function<List<Item<T>>, List<BulkItemResultDTO>> writer,
+                                Function<T, Long> idOf,
+                                List<BulkItemResultDTO> results) {
+        try {
+            List<BulkItemResultDTO> written = transactionTemplate.execute(status -> writer.apply(chunk));
+            results.addAll(written);
+        } catch (RuntimeException ex) {
+            if (chunk.size() == 1) {
+                Item<T> item = chunk.get(0);
+                String message = NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+                results.add(BulkItemResultDTO.failure(item.index(), idOf.apply(item.value()), message, null));
+                return;
+            }
+            log.warn("Bulk chunk of {} items failed, retrying item by item", chunk.size(), ex);
+            for (Item<T> item : chunk) {
+                writeChunk(List.of(item), writer, idOf, results);
+            }
+        }
+    }
+
+    private List<BulkItemResultDTO> insertChunk(List<Item<Create>> chunk) {
+        List<Product> products = new ArrayList<>(chunk.size());
+        for (Item<Create> item : chunk) {
+            Product product = new Product(item.value().product());
+            product.setId(item.value().id());
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+        productRepository.flush();
+
+        List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+        List<ProductChangedEvent> events = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Product product = products.get(i);
+            events.add(ProductChangedEvent.created(new ProductResponseDTO(product)));
+            results.add(BulkItemResultDTO.success(chunk.get(i).index(), product.getId(), BulkItemResultDTO.Status.CREATED));
+        }
+        publish(events);
+        entityManager.clear();
+        return results;
+    }
+
+    private List<BulkItemResultDTO> updateChunk(List<Item<ProductBulkUpdateDTO>> chunk) {
+        Map<Long, Product> existing = findExisting(chunk.stream().map(item -> item.value().getId()).toList());
+
+        List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+        List<Product> updated = new ArrayList<>(chunk.size());
+        for (Item<ProductBulkUpdateDTO> item : chunk) {
+            ProductBulkUpdateDTO updateDTO = item.value();
+            Product product = existing.get(updateDTO.getId());
+            if (product == null) {
+                results.add(notFound(item.index(), updateDTO.getId()));
+                continue;
+            }
+            product.setName(updateDTO.getName());
+            product.setDescription(updateDTO.getDescription());
+            product.setPrice(updateDTO.getPrice());
+            product.setCategory(updateDTO.getCategory());
+            product.setBrand(updateDTO.getBrand());
+            product.setAttributes(updateDTO.getAttributes());
+            updated.add(product);
+            results.add(BulkItemResultDTO.success(item.index(), product.getId(), BulkItemResultDTO.Status.UPDATED));
+        }
+        productRepository.flush();
+        // Published after the flush so the events carry the versions Hibernate just bumped.
+        List<ProductChangedEvent> events = new ArrayList<>(updated.size());
+        for (Product product : updated) {
+            events.add(ProductChangedEvent.updated(new ProductResponseDTO(product)));
+        }
+        publish(events);
+        entityManager.clear();
+        return results;
+    }
+
+    private List<BulkItemResultDTO> deleteChunk(List<Item<Long>> chunk) {
+        Map<Long, Product> existing = findExisting(chunk.stream().map(Item::value).toList());
+
+        List<BulkItemResultDTO> results = new ArrayList<>(chunk.size());
+        List<ProductChangedEvent> events = new ArrayList<>(existing.size());
+        for (Item<Long> item : chunk) {
+            if (existing.containsKey(item.value())) {
+                events.add(ProductChangedEvent.deleted(item.value()));
+                results.add(BulkItemResultDTO.success(item.index(), item.value(), BulkItemResultDTO.Status.DELETED));
+            } else {
+                results.add(notFound(item.index(), item.value()));
+            }
+        }
+        productRepository.deleteAllInBatch(existing.values());
+        publish(events);
+        entityManager.clear();
+        return results;
+    }
+
+    private void publish(List<ProductChangedEvent> events) {
+        productChangeFeed.appendAll(events);
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    private Map<Long, Product> findExisting(List<Long> ids) {
+        Map<Long, Product> existing = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            existing.put(product.getId(), product);
+        }
+        return existing;
+    }
+
+    private static BulkItemResultDTO notFound(int index, Long id) {
+        return BulkItemResultDTO.failure(index, id, String.format("Produto com id %s não encontrado", id), null);
+    }
+
+    private record Item<T>(int index, T value) {
+    }
+
+    /**
+     * A product to create. Its id is assigned before writing: it decides the product's shard.
+     */
+    private record Create(long id, ProductCreateDTO product) {
+    }
+}
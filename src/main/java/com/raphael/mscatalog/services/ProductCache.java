@@ -0,0 +1,70 @@
+package com.raphael.mscatalog.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * The products cache. A read that loaded a product before a write committed can finish after the write's eviction and
+ * put the old version back, where it would stay until it expires. {@link #invalidate} therefore also remembers, for
+ * {@value #COMMITTED_VERSION_RETENTION_SECONDS} seconds, the version each write committed, and puts of an older
+ * version are dropped.
+ */
+public class ProductCache extends CaffeineCache {
+
+    static final long COMMITTED_VERSION_RETENTION_SECONDS = 60;
+    private static final long MAX_TRACKED_PRODUCTS = 100_000;
+
+    private final Cache<Object, Long> committedVersions = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_PRODUCTS)
+            .expireAfterWrite(Duration.ofSeconds(COMMITTED_VERSION_RETENTION_SECONDS))
+            .build();
+
+    public ProductCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    /**
+     * Evicts a product after a write commits. A deleted product passes {@link Long#MAX_VALUE}: no version of it may be
+     * cached again.
+     */
+    public void invalidate(Object key, long committedVersion) {
+        committedVersions.asMap().merge(key, committedVersion, Math::max);
+        evict(key);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!isStale(key, value)) {
+            super.put(key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return isStale(key, value) ? get(key) : super.putIfAbsent(key, value);
+    }
+
+    /**
+     * Backs {@code @Cacheable(sync = true)}. The loaded value is always returned to the caller, which read it in its
+     * own transaction, but not kept if a newer version committed meanwhile.
+     */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = super.get(key, valueLoader);
+        if (isStale(key, value)) {
+            getNativeCache().asMap().remove(key, value);
+        }
+        return value;
+    }
+
+    private boolean isStale(Object key, Object value) {
+        Long committed = committedVersions.getIfPresent(key);
+        return committed != null && value instanceof ProductResponseDTO product
+                && (product.getVersion() == null || product.getVersion() < committed);
+    }
+}
@@ -0,0 +1,36 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.config.CacheConfig;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts written products from the products cache once their transaction has committed, for single and bulk writes
+ * alike. Evicting earlier would let a concurrent read cache the row as it was before the commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCacheInvalidator {
+
+    private final CacheManager cacheManager;
+
+    @Order(CatalogVersion.BEFORE_VERSION_BUMP)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.type() == ProductChangedEvent.Type.CREATED) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        if (cache instanceof ProductCache productCache) {
+            productCache.invalidate(event.productId(), event.type() == ProductChangedEvent.Type.DELETED
+                    ? Long.MAX_VALUE : event.product().getVersion());
+        } else if (cache != null) {
+            cache.evict(event.productId());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.PrimaryReads;
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.dto.ProductChangeBatchDTO;
+import com.raphael.mscatalog.dto.ProductChangeDTO;
+import com.raphael.mscatalog.entities.ProductChange;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.repositories.ProductChangeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Append-only change log behind {@code GET /products/changes}.
+ * <p>
+ * Changes are written in the same transaction as the product write, and so on the product's shard. Cursor ids are
+ * Snowflake ids assigned under the feed lock, so they are handed out in order but may commit out of order; readers
+ * therefore only see changes up to the {@linkplain #watermark() watermark}, the highest id below which no transaction
+ * is still in flight. That guarantee holds for writes made through this instance.
+ */
+@Slf4j
+@Service
+public class ProductChangeFeed {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final Duration MAX_WAIT = Duration.ofSeconds(30);
+
+    private final ProductChangeRepository productChangeRepository;
+    private final ProductShards productShards;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    private final NavigableSet<Long> inFlight = new TreeSet<>();
+    private long lastAssigned = -1;
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+
+    public ProductChangeFeed(ProductChangeRepository productChangeRepository,
+                             ProductShards productShards,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.productChangeRepository = productChangeRepository;
+        this.productShards = productShards;
+        this.executor = executor;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(ProductChangedEvent event) {
+        appendAll(List.of(event));
+    }
+
+    /**
+     * Records the changes in the current transaction. Ids are assigned under the feed lock and stay in flight until
+     * the transaction completes, which keeps the watermark below them.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(List<ProductChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(events.size());
+        synchronized (lock) {
+            initialize();
+            for (ProductChangedEvent event : events) {
+                ProductChange change = productChangeRepository.save(new ProductChange(event));
+                ids.add(change.getId());
+                lastAssigned = Math.max(lastAssigned, change.getId());
+            }
+            inFlight.addAll(ids);
+        }
+        // Write the rows now: callers may clear the persistence context before the transaction commits.
+        productChangeRepository.flush();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (lock) {
+                    ids.forEach(inFlight::remove);
+                }
+                if (status == STATUS_COMMITTED) {
+                    wakeUpWaiters();
+                }
+            }
+        });
+    }
+
+    /**
+     * Highest cursor whose changes are all settled, either committed or rolled back.
+     */
+    public long watermark() {
+        synchronized (lock) {
+            initialize();
+            return inFlight.isEmpty() ? lastAssigned : inFlight.first() - 1;
+        }
+    }
+
+    /**
+     * Reads from the primary: a replica may not have every change below the watermark yet, and a client that skipped
+     * one would never see it. Every shard returns its first {@code limit} changes after {@code since}; the batch is
+     * the first {@code limit} of those.
+     */
+    public ProductChangeBatchDTO read(long since, int limit) {
+        int batchSize = limit(limit);
+        long watermark = watermark();
+        List<ProductChangeDTO> changes = ProductShards.merge(productShards.scatter(shard -> PrimaryReads.call(
+                        () -> productChangeRepository.findChanges(since, watermark, Limit.of(batchSize)))),
+                Comparator.comparing(ProductChangeDTO::getCursor), batchSize);
+        return new ProductChangeBatchDTO(changes, since, batchSize);
+    }
+
+    /**
+     * Reads the changes after {@code since}; if there are none yet, waits up to {@code wait} for the next commit
+     * instead of making the client poll again.
+     */
+    public CompletableFuture<ProductChangeBatchDTO> poll(long since, int limit, Duration wait) {
+        ProductChangeBatchDTO batch = read(since, limit);
+        if (!batch.getChanges().isEmpty() || wait.isZero() || wait.isNegative()) {
+            return CompletableFuture.completedFuture(batch);
+        }
+
+        Waiter waiter = new Waiter(since, limit, new CompletableFuture<>());
+        waiter.result()
+                .completeOnTimeout(batch, Math.min(wait.toMillis(), MAX_WAIT.toMillis()), TimeUnit.MILLISECONDS)
+                .whenComplete((result, ex) -> waiters.remove(waiter));
+        waiters.add(waiter);
+        // A commit may have landed between the read above and the registration.
+        wake(waiter);
+        return waiter.result();
+    }
+
+    public static int limit(int requestedLimit) {
+        return Math.min(Math.max(requestedLimit, 1), MAX_LIMIT);
+    }
+
+    private void wakeUpWaiters() {
+        if (waiters.isEmpty() || !wakeUpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            wakeUpScheduled.set(false);
+            for (Waiter waiter : waiters) {
+                wake(waiter);
+            }
+        });
+    }
+
+    private void wake(Waiter waiter) {
+        if (waiter.result().isDone()) {
+            return;
+        }
+        try {
+            ProductChangeBatchDTO batch = read(waiter.since(), waiter.limit());
+            if (!batch.getChanges().isEmpty()) {
+                waiter.result().complete(batch);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Failed to read product changes for a waiting client", ex);
+            waiter.result().completeExceptionally(ex);
+        }
+    }
+
+    private void initialize() {
+        if (lastAssigned < 0) {
+            lastAssigned = productShards.scatter(shard -> PrimaryReads.call(productChangeRepository::findLastId))
+                    .stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+    }
+
+    private record Waiter(long since, int limit, CompletableFuture<ProductChangeBatchDTO> result) {
+    }
+}
@@ -1,74 +1,329 @@
 package com.raphael.mscatalog.services;
 
+import com.raphael.mscatalog.config.CacheConfig;
+import com.raphael.mscatalog.datasource.PrimaryReads;
+import com.raphael.mscatalog.datasource.ProductShards;
 import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductLookupDTO;
 import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
+import com.raphael.mscatalog.entities.Prices;
 import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
 import com.raphael.mscatalog.repositories.ProductRepository;
+import com.raphael.mscatalog.search.FacetCounter;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSearchIndex;
+import com.raphael.mscatalog.search.ProductSort;
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
-@RequiredArgsConstructor
 @Service
+@Timed(value = "catalog.service", histogram = true)
 public class ProductService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_LOOKUP_SIZE = 10_000;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+    static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private static final ProductSort DEFAULT_SEARCH_SORT = new ProductSort(ProductSort.Field.PRICE, Sort.Direction.ASC);
+    private static final Comparator<ProductResponseDTO> BY_ID = Comparator.comparing(ProductResponseDTO::getId);
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductChangeFeed productChangeFeed;
+    private final CacheManager cacheManager;
+    private final ProductShards productShards;
+    private final SnowflakeIds snowflakeIds;
+    private final CatalogMetrics catalogMetrics;
+
+    private final SingleFlight<PageKey, List<ProductResponseDTO>> pageFlights;
+    private final SingleFlight<SearchKey, List<ProductResponseDTO>> searchFlights;
 
+    public ProductService(ProductRepository productRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ApplicationEventPublisher eventPublisher,
+                          ProductChangeFeed productChangeFeed,
+                          CacheManager cacheManager,
+                          ProductShards productShards,
+                          SnowflakeIds snowflakeIds,
+                          CatalogMetrics catalogMetrics) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.productChangeFeed = productChangeFeed;
+        this.cacheManager = cacheManager;
+        this.productShards = productShards;
+        this.snowflakeIds = snowflakeIds;
+        this.catalogMetrics = catalogMetrics;
+        this.pageFlights = new SingleFlight<>("findPage", catalogMetrics);
+        this.searchFlights = new SingleFlight<>("search", catalogMetrics);
+    }
+
+    /**
+     * The id is assigned up front: it picks the shard the transaction writes to.
+     */
     @Transactional
     public ProductResponseDTO create(ProductCreateDTO createDTO) {
         Product product = new Product(createDTO);
-        productRepository.save(product);
-        return new ProductResponseDTO(product);
+        product.setId(snowflakeIds.next());
+        return productShards.callForProduct(product.getId(), () -> {
+            productRepository.saveAndFlush(product);
+
+            var productResponseDTO = new ProductResponseDTO(product);
+            publish(ProductChangedEvent.created(productResponseDTO));
+            return productResponseDTO;
+        });
     }
 
+    /**
+     * Reads through the products cache. The cache is shared by every client, so it is filled from the primary: a
+     * replica that is behind would put an old version in front of all of them.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRODUCTS_CACHE, key = "#id", sync = true)
     @Transactional(readOnly = true)
     public ProductResponseDTO findById(Long id) {
-        var product = productRepository.findById(id).orElseThrow(
-                () -> new EntityNotFoundException(String.format("Produto com id %s não encontrado", id))
-        );
-        return new ProductResponseDTO(product);
+        return PrimaryReads.call(() -> productShards.callForProduct(id, () -> productRepository.findResponseById(id)))
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Produto com id %s não encontrado", id)));
     }
 
-    @Transactional(readOnly = true)
-    public List<ProductResponseDTO> findAll() {
-        List<ProductResponseDTO> productResponseDTOs = new ArrayList<>();
+    /**
+     * Multi-get. Reads through the products cache and resolves the misses with one {@code IN} query per shard and
+     * {@value #LOOKUP_CHUNK_SIZE} ids, each in its own short read-only transaction, so a request served from the cache
+     * never touches the database. Misses are read from the primary, like {@link #findById}, since they go into the
+     * cache. Products come back in request order (duplicates once); unknown ids are reported in {@code missing}.
+     */
+    public ProductLookupDTO findAllById(List<Long> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+
+        Map<Long, ProductResponseDTO> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : requested) {
+            ProductResponseDTO cached = cache == null ? null : cache.get(id, ProductResponseDTO.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            List<List<Long>> missesByShard = productShards.partition(misses, Long::longValue);
+            List<List<ProductResponseDTO>> byShard = PrimaryReads.call(
+                    () -> productShards.scatter(shard -> findResponsesByIdIn(missesByShard.get(shard))));
+            for (List<ProductResponseDTO> shardProducts : byShard) {
+                for (ProductResponseDTO product : shardProducts) {
+                    found.put(product.getId(), product);
+                    if (cache != null) {
+                        cache.putIfAbsent(product.getId(), product);
+                    }
+                }
+            }
+        }
 
-        for (Product product : productRepository.findAll()) {
-            productResponseDTOs.add(new ProductResponseDTO(product));
+        List<ProductResponseDTO> products = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : requested) {
+            ProductResponseDTO product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missing.add(id);
+            }
         }
+        catalogMetrics.resultSize("findAllById", products.size());
+        return new ProductLookupDTO(products, missing);
+    }
+
+    /**
+     * Every product, by id. Not {@code @Transactional}: each shard's query runs in its own read-only transaction.
+     */
+    public List<ProductResponseDTO> findAll() {
+        List<ProductResponseDTO> productResponseDTOs = ProductShards.merge(
+                productShards.scatter(shard -> productRepository.findAllResponses()), BY_ID, Integer.MAX_VALUE);
+        catalogMetrics.resultSize("findAll", productResponseDTOs.size());
+        return productResponseDTOs;
+    }
+
+    /**
+     * Concurrent requests for the same page share one query. Not {@code @Transactional}: the repository call opens its
+     * own read-only transaction, so callers waiting on another's query do not hold a connection. With several shards,
+     * each returns its next page after the cursor and the first {@code size} of them make the page.
+     */
+    public List<ProductResponseDTO> findPage(Long afterId, int size) {
+        var key = new PageKey(afterId == null ? 0L : afterId, pageSize(size));
+        List<ProductResponseDTO> productResponseDTOs = pageFlights.execute(key, () -> ProductShards.merge(
+                productShards.scatter(shard -> productRepository.findPageAfter(key.afterId(), Limit.of(key.size()))),
+                BY_ID, key.size()));
+        catalogMetrics.resultSize("findPage", productResponseDTOs.size());
         return productResponseDTOs;
     }
 
+    public static int pageSize(int requestedSize) {
+        return Math.min(Math.max(requestedSize, 1), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Walks the whole catalog through a forward-only cursor. Rows are projected straight into DTOs, so nothing
+     * accumulates in the persistence context no matter how big the catalog is. With several shards they are walked
+     * one after the other, so products come in id order within each shard only.
+     * <p>
+     * Always reads the primary: callers pair the walk with the change feed watermark (the stream cursor, the search
+     * index), which a lagging replica could be behind.
+     */
+    public void streamAll(Consumer<ProductResponseDTO> consumer) {
+        for (int shard = 0; shard < productShards.count(); shard++) {
+            productShards.run(shard, () -> PrimaryReads.run(() -> productRepository.forEachResponse(consumer)));
+        }
+    }
+
+    /**
+     * Updates a product. When {@code expectedVersion} is given, the update only goes through if the product is still at
+     * that version; a concurrent writer that commits first makes this one fail at flush time instead of being silently
+     * overwritten.
+     */
     @Transactional
-    public ProductResponseDTO update(Long id, ProductCreateDTO updateDTO) {
+    public ProductResponseDTO update(Long id, ProductCreateDTO updateDTO, Long expectedVersion) {
+        return productShards.callForProduct(id, () -> updateOnShard(id, updateDTO, expectedVersion));
+    }
+
+    private ProductResponseDTO updateOnShard(Long id, ProductCreateDTO updateDTO, Long expectedVersion) {
         Product product = productRepository.findById(id).orElseThrow(
                 () -> new EntityNotFoundException(String.format("Produto com id %s não encontrado", id))
         );
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, id);
+        }
         product.setName(updateDTO.getName());
         product.setDescription(updateDTO.getDescription());
         product.setPrice(updateDTO.getPrice());
-        productRepository.save(product);
+        product.setCategory(updateDTO.getCategory());
+        product.setBrand(updateDTO.getBrand());
+        product.setAttributes(updateDTO.getAttributes());
+        productRepository.saveAndFlush(product);
 
-        return new ProductResponseDTO(product);
+        var productResponseDTO = new ProductResponseDTO(product);
+        publish(ProductChangedEvent.updated(productResponseDTO));
+        return productResponseDTO;
     }
 
+    @Transactional
     public void delete(Long id) {
-        var product = productRepository.findById(id).orElseThrow(
-                () -> new EntityNotFoundException(String.format("Produto com id %s não encontrado", id))
-        );
-        productRepository.delete(product);
+        productShards.runForProduct(id, () -> {
+            var product = productRepository.findById(id).orElseThrow(
+                    () -> new EntityNotFoundException(String.format("Produto com id %s não encontrado", id))
+            );
+            productRepository.delete(product);
+            publish(ProductChangedEvent.deleted(id));
+        });
     }
 
-    public List<ProductResponseDTO> search(String query, Double min_price, Double max_price) {
-        List<ProductResponseDTO> productResponseDTOs = new ArrayList<>();
+    public List<ProductResponseDTO> search(String query, Double min_price, Double max_price, ProductSort sort) {
+        return search(query, min_price, max_price, ProductFilter.NONE, sort);
+    }
 
-        for (Product product : productRepository.findByNameOrDescriptionAndPrice(query, min_price, max_price)) {
-            productResponseDTOs.add(new ProductResponseDTO(product));
+    /**
+     * Searches by text, price range and filters. Without {@code sort}, the index ranks text matches by relevance and
+     * everything else comes back by price. While the index is not ready, identical searches running at the same time
+     * share one database query per shard, merged in the requested order.
+     */
+    public List<ProductResponseDTO> search(String query, Double min_price, Double max_price, ProductFilter filter,
+                                           ProductSort sort) {
+        if (productSearchIndex.isReady()) {
+            List<ProductResponseDTO> products = productSearchIndex.search(query, min_price, max_price, filter, sort);
+            catalogMetrics.resultSize("search", products.size());
+            return products;
         }
+
+        // Keyed on what reaches the database, so e.g. 10 and 10.001 as max_price share one query.
+        var key = new SearchKey(query,
+                min_price == null ? Long.MIN_VALUE : Prices.ceilCents(min_price),
+                max_price == null ? Long.MAX_VALUE : Prices.floorCents(max_price),
+                filter, sort != null ? sort : DEFAULT_SEARCH_SORT);
+        List<ProductResponseDTO> productResponseDTOs = searchFlights.execute(key, () -> {
+            List<ProductResponseDTO> products = ProductShards.merge(productShards.scatter(shard ->
+                    productRepository.findByNameOrDescriptionAndPrice(key.query(), key.minPriceCents(),
+                            key.maxPriceCents(), filter.category(), filter.brand(), key.sort().toSort())),
+                    key.sort().comparator(), Integer.MAX_VALUE);
+            return filter.attributes().isEmpty() ? products : products.stream().filter(filter::matches).toList();
+        });
+        catalogMetrics.resultSize("search", productResponseDTOs.size());
         return productResponseDTOs;
     }
+
+    /**
+     * Facet counts for a search. The index answers from its bitmaps; until it is ready, the matches are fetched from
+     * the database and counted one by one.
+     */
+    public SearchFacetsDTO facets(String query, Double min_price, Double max_price, ProductFilter filter) {
+        if (productSearchIndex.isReady()) {
+            return productSearchIndex.facets(query, min_price, max_price, filter);
+        }
+        FacetCounter counter = new FacetCounter();
+        search(query, min_price, max_price, filter, null).forEach(counter::add);
+        return counter.toFacets();
+    }
+
+    /**
+     * Autocomplete for the search box, answered from the index only: it runs on every keystroke, so while the index is
+     * not ready there are simply no suggestions rather than a database query.
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        if (!productSearchIndex.isReady()) {
+            return List.of();
+        }
+        List<SuggestionDTO> suggestions = productSearchIndex.suggest(query, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+        catalogMetrics.resultSize("suggest", suggestions.size());
+        return suggestions;
+    }
+
+    private record PageKey(long afterId, int size) {
+    }
+
+    private record SearchKey(String query, long minPriceCents, long maxPriceCents, ProductFilter filter,
+                             ProductSort sort) {
+    }
+
+    private List<ProductResponseDTO> findResponsesByIdIn(List<Long> ids) {
+        List<ProductResponseDTO> products = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size()));
+            products.addAll(productRepository.findResponsesByIdIn(chunk));
+        }
+        return products;
+    }
+
+    /**
+     * Records the change in the feed, inside the caller's transaction, and notifies the in-memory listeners.
+     */
+    private void publish(ProductChangedEvent event) {
+        productChangeFeed.append(event);
+        eventPublisher.publishEvent(event);
+    }
 }
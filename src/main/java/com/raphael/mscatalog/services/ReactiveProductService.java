@@ -0,0 +1,109 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.Prices;
+import com.raphael.mscatalog.entities.ProductRow;
+import com.raphael.mscatalog.repositories.ReactiveProductRepository;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSearchIndex;
+import com.raphael.mscatalog.search.ProductSort;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Non-blocking counterpart of {@link ProductService} for the reactive profile. Reads run on R2DBC and never hold a
+ * thread while waiting on the database. Writes delegate to {@link ProductService} on the bounded elastic scheduler:
+ * they stay in one JPA transaction with the change log, and keep versioning, cache eviction and index updates.
+ */
+@RequiredArgsConstructor
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final R2dbcEntityTemplate r2dbcEntityTemplate;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductService productService;
+
+    public Mono<ProductResponseDTO> create(ProductCreateDTO createDTO) {
+        return blocking(() -> productService.create(createDTO));
+    }
+
+    public Mono<ProductResponseDTO> findById(Long id) {
+        return reactiveProductRepository.findById(id)
+                .map(ProductResponseDTO::new)
+                .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(
+                        String.format("Produto com id %s não encontrado", id))));
+    }
+
+    public Flux<ProductResponseDTO> findPage(Long afterId, int size) {
+        return reactiveProductRepository.findPageAfter(afterId == null ? 0L : afterId, ProductService.pageSize(size))
+                .map(ProductResponseDTO::new);
+    }
+
+    public Flux<ProductResponseDTO> streamAll() {
+        return reactiveProductRepository.streamAll().map(ProductResponseDTO::new);
+    }
+
+    public Mono<ProductResponseDTO> update(Long id, ProductCreateDTO updateDTO, Long expectedVersion) {
+        return blocking(() -> productService.update(id, updateDTO, expectedVersion));
+    }
+
+    public Mono<Void> delete(Long id) {
+        return Mono.<Void>fromRunnable(() -> productService.delete(id)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Emits matches as they are produced. The index answers from memory; the database fallback pulls rows from the
+     * R2DBC cursor only as fast as the client consumes them.
+     */
+    public Flux<ProductResponseDTO> search(String query, Double min_price, Double max_price, ProductFilter filter,
+                                           ProductSort sort) {
+        if (productSearchIndex.isReady()) {
+            return Flux.defer(() -> Flux.fromIterable(
+                    productSearchIndex.search(query, min_price, max_price, filter, sort)));
+        }
+
+        List<Criteria> criteria = new ArrayList<>(5);
+        if (query != null) {
+            criteria.add(Criteria.where("name").like("%" + query + "%").ignoreCase(true)
+                    .or("description").like("%" + query + "%").ignoreCase(true));
+        }
+        if (min_price != null) {
+            criteria.add(Criteria.where("priceCents").greaterThanOrEquals(Prices.ceilCents(min_price)));
+        }
+        if (max_price != null) {
+            criteria.add(Criteria.where("priceCents").lessThanOrEquals(Prices.floorCents(max_price)));
+        }
+        if (filter.category() != null) {
+            criteria.add(Criteria.where("category").is(filter.category()));
+        }
+        if (filter.brand() != null) {
+            criteria.add(Criteria.where("brand").is(filter.brand()));
+        }
+        return r2dbcEntityTemplate.select(ProductRow.class)
+                .matching(Query.query(Criteria.from(criteria))
+                        .sort(sort != null ? sort.toSort() : Sort.by("priceCents", "id")))
+                .all()
+                .map(ProductResponseDTO::new)
+                .filter(filter::matches);
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
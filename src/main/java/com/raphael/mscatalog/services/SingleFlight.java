@@ -0,0 +1,87 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.PrimaryReads;
+import com.raphael.mscatalog.datasource.ReplicaReads;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: while a load for a key is running, callers asking for the same key wait for that load and get
+ * its result (or its exception) instead of starting their own. Once it finishes the key is forgotten, so the next
+ * caller loads fresh data; nothing is cached.
+ * <p>
+ * Joining is a single {@link ConcurrentHashMap#putIfAbsent}, which only contends on the hash bin of the key. The
+ * result is shared between callers and must not be mutated.
+ * <p>
+ * Flights are also told apart by where they read: a caller that must read the primary ({@link PrimaryReads}, e.g. a
+ * client reading its own writes) never joins a load that may have gone to a replica. A caller that joins a load
+ * served by a replica has it recorded in its own {@link ReplicaReads} scope, as if it had read the replica itself.
+ */
+final class SingleFlight<K, V> {
+
+    private final String operation;
+    private final CatalogMetrics catalogMetrics;
+    private final ConcurrentHashMap<Flight<K>, CompletableFuture<Loaded<V>>> inFlight = new ConcurrentHashMap<>();
+
+    SingleFlight(String operation, CatalogMetrics catalogMetrics) {
+        this.operation = operation;
+        this.catalogMetrics = catalogMetrics;
+    }
+
+    V execute(K key, Supplier<V> loader) {
+        Flight<K> flight = new Flight<>(key, PrimaryReads.required());
+        CompletableFuture<Loaded<V>> call = new CompletableFuture<>();
+        CompletableFuture<Loaded<V>> running = inFlight.putIfAbsent(flight, call);
+        if (running != null) {
+            catalogMetrics.coalesced(operation, true);
+            Loaded<V> loaded = await(running);
+            if (loaded.fromReplica()) {
+                ReplicaReads.recordServed();
+            }
+            return loaded.value();
+        }
+
+        catalogMetrics.coalesced(operation, false);
+        Loaded<V> loaded;
+        try (ReplicaReads reads = ReplicaReads.track()) {
+            V value = loader.get();
+            loaded = new Loaded<>(value, reads.served());
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(flight, call);
+            call.completeExceptionally(ex);
+            throw ex;
+        }
+        // Forget the key before publishing, so nobody can join a load that has already finished.
+        inFlight.remove(flight, call);
+        call.complete(loaded);
+        return loaded.value();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <T> T await(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record Flight<K>(K key, boolean primaryReads) {
+    }
+
+    private record Loaded<V>(V value, boolean fromReplica) {
+    }
+}
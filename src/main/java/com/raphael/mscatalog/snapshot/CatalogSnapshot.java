@@ -0,0 +1,262 @@
+package com.raphael.mscatalog.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+import static com.raphael.mscatalog.snapshot.CatalogSnapshotFormat.*;
+
+/**
+ * Read-only view of a snapshot file (see {@link CatalogSnapshotFormat}). The fixed-width columns are memory-mapped
+ * and read in place; only the dictionaries are decoded up front, once per distinct string.
+ */
+final class CatalogSnapshot {
+
+    private static final int CRC_WINDOW = 1 << 30;
+
+    private final int rows;
+    private final LongBuffer ids;
+    private final LongBuffer prices;
+    private final LongBuffer versions;
+    private final LongBuffer updatedAts;
+    private final String[] nameEntries;
+    private final IntBuffer nameCodes;
+    private final String[] descriptionEntries;
+    private final IntBuffer descriptionCodes;
+    private final String[] categoryEntries;
+    private final IntBuffer categoryCodes;
+    private final String[] brandEntries;
+    private final IntBuffer brandCodes;
+    private final String[] attributeEntries;
+    private final IntBuffer attributeCodes;
+
+    private CatalogSnapshot(FileChannel channel, int rows, long[] offsets, long[] lengths) throws IOException {
+        this.rows = rows;
+        this.ids = longColumn(channel, offsets[0], lengths[0], rows);
+        this.prices = longColumn(channel, offsets[1], lengths[1], rows);
+        this.versions = longColumn(channel, offsets[2], lengths[2], rows);
+        this.updatedAts = longColumn(channel, offsets[3], lengths[3], rows);
+        ByteBuffer names = map(channel, offsets[4], lengths[4]);
+        this.nameEntries = entries(names);
+        this.nameCodes = codes(names, rows, nameEntries.length);
+        ByteBuffer descriptions = map(channel, offsets[5], lengths[5]);
+        this.descriptionEntries = entries(descriptions);
+        this.descriptionCodes = codes(descriptions, rows, descriptionEntries.length);
+        ByteBuffer categories = optional(channel, offsets[6], lengths[6]);
+        this.categoryEntries = entries(categories);
+        this.categoryCodes = nullableCodes(categories, rows, categoryEntries.length);
+        ByteBuffer brands = optional(channel, offsets[7], lengths[7]);
+        this.brandEntries = entries(brands);
+        this.brandCodes = nullableCodes(brands, rows, brandEntries.length);
+        ByteBuffer attributes = optional(channel, offsets[8], lengths[8]);
+        this.attributeEntries = entries(attributes);
+        this.attributeCodes = nullableCodes(attributes, rows, attributeEntries.length);
+    }
+
+    /**
+     * Checks the trailer, footer and checksum, then maps the columns. The mapping stays valid after the channel is
+     * closed.
+     */
+    static CatalogSnapshot open(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new CorruptSnapshotException("File too small for a catalog snapshot");
+        }
+        ByteBuffer header = read(channel, 0, HEADER_SIZE);
+        ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+        if (header.getInt() != MAGIC || trailer.getInt(4) != MAGIC) {
+            throw new CorruptSnapshotException("Not a catalog snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new CorruptSnapshotException("Unsupported snapshot version " + version);
+        }
+        int footerLength = trailer.getInt(0);
+        long footerStart = size - TRAILER_SIZE - footerLength;
+        if (footerLength < Long.BYTES + 2 * Integer.BYTES || footerStart < HEADER_SIZE) {
+            throw new CorruptSnapshotException("Invalid snapshot footer");
+        }
+        ByteBuffer footer = read(channel, footerStart, footerLength);
+        int expectedCrc = footer.getInt(footerLength - Integer.BYTES);
+        if (crc(channel, size - TRAILER_SIZE - Integer.BYTES) != expectedCrc) {
+            throw new CorruptSnapshotException("Snapshot checksum mismatch");
+        }
+
+        long rows = footer.getLong();
+        int columns = footer.getInt();
+        if (rows > Integer.MAX_VALUE / Long.BYTES) {
+            throw new CorruptSnapshotException("Snapshot too large: " + rows + " rows");
+        }
+        long[] offsets = new long[COLUMNS.length];
+        long[] lengths = new long[COLUMNS.length];
+        boolean[] present = new boolean[COLUMNS.length];
+        for (int index = 0; index < columns; index++) {
+            int column = footer.getInt();
+            long offset = footer.getLong();
+            long length = footer.getLong();
+            for (int known = 0; known < COLUMNS.length; known++) {
+                if (COLUMNS[known] == column) {
+                    if (offset < HEADER_SIZE || length < 0 || offset + length > footerStart) {
+                        throw new CorruptSnapshotException("Invalid bounds for snapshot column " + column);
+                    }
+                    offsets[known] = offset;
+                    lengths[known] = length;
+                    present[known] = true;
+                }
+            }
+        }
+        for (int known = 0; known < REQUIRED_COLUMNS; known++) {
+            if (!present[known]) {
+                throw new CorruptSnapshotException("Snapshot column " + COLUMNS[known] + " is missing");
+            }
+        }
+        return new CatalogSnapshot(channel, (int) rows, offsets, lengths);
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    long id(int row) {
+        return ids.get(row);
+    }
+
+    String name(int row) {
+        return nameEntries[nameCodes.get(row)];
+    }
+
+    String description(int row) {
+        return descriptionEntries[descriptionCodes.get(row)];
+    }
+
+    String category(int row) {
+        return nullable(categoryEntries, categoryCodes, row);
+    }
+
+    String brand(int row) {
+        return nullable(brandEntries, brandCodes, row);
+    }
+
+    /**
+     * Attributes as stored, in JSON.
+     */
+    String attributes(int row) {
+        return nullable(attributeEntries, attributeCodes, row);
+    }
+
+    long priceCents(int row) {
+        return prices.get(row);
+    }
+
+    long version(int row) {
+        return versions.get(row);
+    }
+
+    long updatedAtMicros(int row) {
+        return updatedAts.get(row);
+    }
+
+    private static String nullable(String[] entries, IntBuffer codes, int row) {
+        if (codes == null) {
+            return null;
+        }
+        int code = codes.get(row);
+        return code < 0 ? null : entries[code];
+    }
+
+    private static LongBuffer longColumn(FileChannel channel, long offset, long length, int rows) throws IOException {
+        if (length != (long) rows * Long.BYTES) {
+            throw new CorruptSnapshotException("Snapshot column at " + offset + " does not match the row count");
+        }
+        return map(channel, offset, length).asLongBuffer();
+    }
+
+    private static String[] entries(ByteBuffer column) throws CorruptSnapshotException {
+        if (column == null) {
+            return new String[0];
+        }
+        int count = column.getInt();
+        if (count < 0 || (long) (count + 1) * Integer.BYTES > column.remaining()) {
+            throw new CorruptSnapshotException("Invalid snapshot dictionary size " + count);
+        }
+        IntBuffer offsets = column.slice().asIntBuffer();
+        int dataStart = column.position() + (count + 1) * Integer.BYTES;
+        int dataLength = offsets.get(count);
+        if (dataLength < 0 || dataStart + (long) dataLength > column.limit()) {
+            throw new CorruptSnapshotException("Invalid snapshot dictionary length " + dataLength);
+        }
+        String[] entries = new String[count];
+        byte[] bytes = new byte[dataLength];
+        column.get(dataStart, bytes);
+        for (int code = 0; code < count; code++) {
+            int start = offsets.get(code);
+            int end = offsets.get(code + 1);
+            if (start < 0 || end < start || end > dataLength) {
+                throw new CorruptSnapshotException("Invalid snapshot dictionary entry " + code);
+            }
+            entries[code] = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+        }
+        column.position(dataStart + dataLength);
+        return entries;
+    }
+
+    private static IntBuffer codes(ByteBuffer column, int rows, int entries) throws CorruptSnapshotException {
+        return codes(column, rows, entries, 0);
+    }
+
+    /**
+     * Codes of an optional column, where -1 stands for null; {@code null} when the column is absent.
+     */
+    private static IntBuffer nullableCodes(ByteBuffer column, int rows, int entries) throws CorruptSnapshotException {
+        return column == null ? null : codes(column, rows, entries, -1);
+    }
+
+    private static IntBuffer codes(ByteBuffer column, int rows, int entries, int minCode)
+            throws CorruptSnapshotException {
+        if (column.remaining() != (long) rows * Integer.BYTES) {
+            throw new CorruptSnapshotException("Snapshot dictionary codes do not match the row count");
+        }
+        IntBuffer codes = column.slice().asIntBuffer();
+        for (int row = 0; row < rows; row++) {
+            int code = codes.get(row);
+            if (code < minCode || code >= entries) {
+                throw new CorruptSnapshotException("Invalid snapshot dictionary code at row " + row);
+            }
+        }
+        return codes;
+    }
+
+    private static MappedByteBuffer optional(FileChannel channel, long offset, long length) throws IOException {
+        return offset == 0 ? null : map(channel, offset, length);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new CorruptSnapshotException("Snapshot column at " + offset + " exceeds 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new CorruptSnapshotException("Unexpected end of snapshot");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static int crc(FileChannel channel, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = 0; position < length; position += CRC_WINDOW) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CRC_WINDOW, length - position)));
+        }
+        return (int) crc.getValue();
+    }
+}
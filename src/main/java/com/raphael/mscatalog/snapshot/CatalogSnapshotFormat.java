@@ -0,0 +1,42 @@
+package com.raphael.mscatalog.snapshot;
+
+/**
+ * Layout of a catalog snapshot file. All values are big-endian.
+ * <pre>
+ * header   int magic, int version
+ * columns  ID, PRICE_CENTS, VERSION, UPDATED_AT: long[rows] each (UPDATED_AT in epoch microseconds)
+ *          NAME, DESCRIPTION: int entries, int[entries + 1] offsets, byte[] UTF-8 dictionary, int[rows] codes
+ *          CATEGORY, BRAND, ATTRIBUTES (JSON): same as NAME, with code -1 for null; optional, absent means all null
+ * footer   long rows, int columns, (int column, long offset, long length) per column, int crc32c
+ * trailer  int footer length, int magic
+ * </pre>
+ * The CRC covers every byte before it, footer included, so a truncated or modified file is rejected before any row
+ * is read.
+ */
+final class CatalogSnapshotFormat {
+
+    static final int MAGIC = 0x4D534353; // "MSCS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 8;
+
+    static final int ID = 1;
+    static final int PRICE_CENTS = 2;
+    static final int PRODUCT_VERSION = 3;
+    static final int UPDATED_AT = 4;
+    static final int NAME = 5;
+    static final int DESCRIPTION = 6;
+    static final int CATEGORY = 7;
+    static final int BRAND = 8;
+    static final int ATTRIBUTES = 9;
+
+    static final int[] COLUMNS = {ID, PRICE_CENTS, PRODUCT_VERSION, UPDATED_AT, NAME, DESCRIPTION, CATEGORY, BRAND,
+            ATTRIBUTES};
+    /**
+     * Columns before this index in {@link #COLUMNS} must be present; later ones were added after version 1 shipped.
+     */
+    static final int REQUIRED_COLUMNS = 6;
+
+    private CatalogSnapshotFormat() {
+    }
+}
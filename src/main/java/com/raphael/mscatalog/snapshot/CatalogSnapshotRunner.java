@@ -0,0 +1,46 @@
+package com.raphael.mscatalog.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Command-line mode. {@code --mscatalog.snapshot.import=<file>} seeds the catalog during startup, before the
+ * application reports ready; {@code --mscatalog.snapshot.export=<file>} writes a snapshot and shuts the application
+ * down.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CatalogSnapshotRunner implements ApplicationRunner {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${mscatalog.snapshot.import:}")
+    private String importPath;
+
+    @Value("${mscatalog.snapshot.export:}")
+    private String exportPath;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!importPath.isBlank()) {
+            catalogSnapshotService.importFrom(Path.of(importPath));
+        }
+        if (!exportPath.isBlank()) {
+            long start = System.nanoTime();
+            int products = catalogSnapshotService.export(Path.of(exportPath));
+            log.info("Exported {} products to snapshot {} in {} ms", products, exportPath,
+                    (System.nanoTime() - start) / 1_000_000);
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+}
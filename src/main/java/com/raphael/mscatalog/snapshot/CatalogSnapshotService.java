@@ -0,0 +1,249 @@
+package com.raphael.mscatalog.snapshot;
+
+import com.raphael.mscatalog.config.CacheConfig;
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Exports the whole catalog to a columnar snapshot and seeds an empty catalog from one. Both sides go straight through
+ * JDBC: the export is an ordered scan of each shard in turn and the import a series of batched inserts, each row into
+ * the shard its id hashes to, with no entities or change log entries in between. Exporting with one shard count and
+ * importing with another is how the catalog is resharded.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    public static final int INSERT_BATCH_SIZE = 1000;
+    public static final int COMMIT_SIZE = 10_000;
+
+    private static final String SELECT_ALL =
+            "SELECT id, name, description, price_cents, category, brand, attributes, version, updated_at " +
+                    "FROM tb_product ORDER BY id";
+    /**
+     * Secondary indexes of {@code tb_product} (see {@code V1__create_catalog.sql}). They are dropped for the import and
+     * built once at the end, which on H2 is about five times faster than maintaining them row by row.
+     */
+    private static final Map<String, String> SECONDARY_INDEXES = Map.of(
+            "idx_product_price", "tb_product (price_cents, id)",
+            "idx_product_name", "tb_product (name, id)",
+            "idx_product_category", "tb_product (category, id)");
+
+    private static final String DELETE = "DELETE FROM tb_product WHERE id = ?";
+    private static final String INSERT =
+            "INSERT INTO tb_product (id, name, description, price_cents, category, brand, attributes, version, " +
+                    "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final ProductShards productShards;
+    private final Lock importLock = new ReentrantLock();
+
+    public CatalogSnapshotService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  ApplicationEventPublisher eventPublisher,
+                                  CacheManager cacheManager,
+                                  ProductShards productShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.productShards = productShards;
+    }
+
+    /**
+     * Writes a snapshot of the catalog to the channel, which is left open. Returns the number of products.
+     */
+    public int export(WritableByteChannel channel) throws IOException {
+        CatalogSnapshotWriter writer = new CatalogSnapshotWriter();
+        onEveryShard(() -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ALL);
+            statement.setFetchSize(INSERT_BATCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            Instant updatedAt = resultSet.getObject(9, OffsetDateTime.class).toInstant();
+            writer.add(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3), resultSet.getLong(4),
+                    resultSet.getString(5), resultSet.getString(6), resultSet.getString(7), resultSet.getLong(8),
+                    ChronoUnit.MICROS.between(Instant.EPOCH, updatedAt));
+        }));
+        writer.writeTo(channel);
+        return writer.rows();
+    }
+
+    /**
+     * Writes a snapshot to {@code path}, through a temporary file that replaces it only once complete.
+     */
+    public int export(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try {
+            int products;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                products = export(channel);
+                channel.force(true);
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return products;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loads a snapshot into the catalog, which must be empty: the import keeps the products' ids, versions and update
+     * times, so it is meant for seeding a new node. Rows are committed every {@link #COMMIT_SIZE} (split by shard) so
+     * H2 does not have to hold an undo log for millions of rows; if the import fails, the rows already committed are
+     * deleted again. Imported products do not appear in the change feed.
+     */
+    public int importFrom(Path path) throws IOException {
+        CatalogSnapshot snapshot;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            snapshot = CatalogSnapshot.open(channel);
+        }
+        if (!importLock.tryLock()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Já existe uma importação de snapshot em andamento");
+        }
+        try {
+            long start = System.nanoTime();
+            List<Boolean> hasProducts = productShards.scatter(shard ->
+                    jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM tb_product)", Boolean.class));
+            if (hasProducts.contains(Boolean.TRUE)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "O catálogo já possui produtos; o snapshot só pode ser importado em um catálogo vazio");
+            }
+            onEveryShard(() -> SECONDARY_INDEXES.keySet()
+                    .forEach(index -> jdbcTemplate.execute("DROP INDEX IF EXISTS " + index)));
+            // Rows before this one are committed; with several shards, those up to the end of the current commit may
+            // be on some shards only.
+            int committed = 0;
+            int written = 0;
+            try {
+                while (committed < snapshot.rows()) {
+                    written = Math.min(committed + COMMIT_SIZE, snapshot.rows());
+                    List<List<Integer>> rowsByShard = productShards.partition(
+                            IntStream.range(committed, written).boxed().toList(), snapshot::id);
+                    for (int shard = 0; shard < rowsByShard.size(); shard++) {
+                        List<Integer> rows = rowsByShard.get(shard);
+                        productShards.run(shard, () -> transactionTemplate.executeWithoutResult(status -> {
+                            for (int batch = 0; batch < rows.size(); batch += INSERT_BATCH_SIZE) {
+                                int end = Math.min(batch + INSERT_BATCH_SIZE, rows.size());
+                                insertBatch(snapshot, rows.subList(batch, end));
+                            }
+                        }));
+                    }
+                    committed = written;
+                }
+            } catch (RuntimeException ex) {
+                log.warn("Snapshot import failed after {} products, deleting them", committed);
+                deleteImported(snapshot, written);
+                throw ex;
+            } finally {
+                onEveryShard(() -> SECONDARY_INDEXES.forEach((index, definition) ->
+                        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + index + " ON " + definition)));
+            }
+
+            Cache cache = cacheManager.getCache(CacheConfig.PRODUCTS_CACHE);
+            if (cache != null) {
+                cache.clear();
+            }
+            eventPublisher.publishEvent(new CatalogImportedEvent(snapshot.rows()));
+            log.info("Imported {} products from snapshot {} in {} ms", snapshot.rows(), path,
+                    (System.nanoTime() - start) / 1_000_000);
+            return snapshot.rows();
+        } finally {
+            importLock.unlock();
+        }
+    }
+
+    private void deleteImported(CatalogSnapshot snapshot, int rows) {
+        List<List<Integer>> rowsByShard =
+                productShards.partition(IntStream.range(0, rows).boxed().toList(), snapshot::id);
+        for (int shard = 0; shard < rowsByShard.size(); shard++) {
+            List<Integer> shardRows = rowsByShard.get(shard);
+            productShards.run(shard, () -> {
+                for (int from = 0; from < shardRows.size(); from += INSERT_BATCH_SIZE) {
+                    int to = Math.min(from + INSERT_BATCH_SIZE, shardRows.size());
+                    deleteBatch(snapshot, shardRows.subList(from, to));
+                }
+            });
+        }
+    }
+
+    private void deleteBatch(CatalogSnapshot snapshot, List<Integer> rows) {
+        jdbcTemplate.batchUpdate(DELETE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                statement.setLong(1, snapshot.id(rows.get(index)));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void insertBatch(CatalogSnapshot snapshot, List<Integer> rows) {
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int index) throws SQLException {
+                int row = rows.get(index);
+                statement.setLong(1, snapshot.id(row));
+                statement.setString(2, snapshot.name(row));
+                statement.setString(3, snapshot.description(row));
+                statement.setLong(4, snapshot.priceCents(row));
+                statement.setString(5, snapshot.category(row));
+                statement.setString(6, snapshot.brand(row));
+                statement.setString(7, snapshot.attributes(row));
+                statement.setLong(8, snapshot.version(row));
+                statement.setObject(9, OffsetDateTime.ofInstant(
+                        Instant.EPOCH.plus(snapshot.updatedAtMicros(row), ChronoUnit.MICROS), ZoneOffset.UTC));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void onEveryShard(Runnable work) {
+        for (int shard = 0; shard < productShards.count(); shard++) {
+            productShards.run(shard, work);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.raphael.mscatalog.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import static com.raphael.mscatalog.snapshot.CatalogSnapshotFormat.*;
+
+/**
+ * Collects products column by column and writes them as a snapshot (see {@link CatalogSnapshotFormat}). String
+ * columns are dictionary-encoded: each distinct string is stored once and rows hold its code.
+ * <p>
+ * Columns are kept in memory until {@link #writeTo(WritableByteChannel)}, about 40 bytes per product plus the
+ * distinct strings. Not thread-safe.
+ */
+final class CatalogSnapshotWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private int rows;
+    private long[] ids = new long[1024];
+    private long[] prices = new long[1024];
+    private long[] versions = new long[1024];
+    private long[] updatedAts = new long[1024];
+    private final Dictionary names = new Dictionary();
+    private final Dictionary descriptions = new Dictionary();
+    private final Dictionary categories = new Dictionary();
+    private final Dictionary brands = new Dictionary();
+    private final Dictionary attributes = new Dictionary();
+
+    void add(long id, String name, String description, long priceCents, long version, long updatedAtMicros) {
+        add(id, name, description, priceCents, null, null, null, version, updatedAtMicros);
+    }
+
+    /**
+     * {@code attributes} is the stored JSON text; equal attribute sets share one dictionary entry.
+     */
+    void add(long id, String name, String description, long priceCents, String category, String brand,
+             String attributes, long version, long updatedAtMicros) {
+        if (rows == ids.length) {
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            updatedAts = Arrays.copyOf(updatedAts, capacity);
+        }
+        ids[rows] = id;
+        prices[rows] = priceCents;
+        versions[rows] = version;
+        updatedAts[rows] = updatedAtMicros;
+        names.add(rows, name);
+        descriptions.add(rows, description);
+        categories.add(rows, category);
+        brands.add(rows, brand);
+        this.attributes.add(rows, attributes);
+        rows++;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * Writes the snapshot and returns its size in bytes. The channel is not closed.
+     */
+    long writeTo(WritableByteChannel channel) throws IOException {
+        Output output = new Output(channel);
+        output.putInt(MAGIC);
+        output.putInt(VERSION);
+
+        long[] offsets = new long[COLUMNS.length];
+        long[] lengths = new long[COLUMNS.length];
+        for (int column = 0; column < COLUMNS.length; column++) {
+            offsets[column] = output.position();
+            switch (COLUMNS[column]) {
+                case ID -> output.putLongs(ids, rows);
+                case PRICE_CENTS -> output.putLongs(prices, rows);
+                case PRODUCT_VERSION -> output.putLongs(versions, rows);
+                case UPDATED_AT -> output.putLongs(updatedAts, rows);
+                case NAME -> names.writeTo(output, rows);
+                case DESCRIPTION -> descriptions.writeTo(output, rows);
+                case CATEGORY -> categories.writeTo(output, rows);
+                case BRAND -> brands.writeTo(output, rows);
+                case ATTRIBUTES -> attributes.writeTo(output, rows);
+                default -> throw new IllegalStateException("Unknown column " + COLUMNS[column]);
+            }
+            lengths[column] = output.position() - offsets[column];
+        }
+
+        long footerStart = output.position();
+        output.putLong(rows);
+        output.putInt(COLUMNS.length);
+        for (int column = 0; column < COLUMNS.length; column++) {
+            output.putInt(COLUMNS[column]);
+            output.putLong(offsets[column]);
+            output.putLong(lengths[column]);
+        }
+        output.putInt(output.crc());
+        output.putInt((int) (output.position() - footerStart));
+        output.putInt(MAGIC);
+        output.flush();
+        return output.position();
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int[] rowCodes = new int[1024];
+
+        void add(int row, String value) {
+            Integer code = value == null ? Integer.valueOf(-1) : codes.get(value);
+            if (code == null) {
+                code = entries.size();
+                codes.put(value, code);
+                entries.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            if (row == rowCodes.length) {
+                rowCodes = Arrays.copyOf(rowCodes, row * 2);
+            }
+            rowCodes[row] = code;
+        }
+
+        void writeTo(Output output, int rows) throws IOException {
+            output.putInt(entries.size());
+            int offset = 0;
+            output.putInt(offset);
+            for (byte[] entry : entries) {
+                offset += entry.length;
+                output.putInt(offset);
+            }
+            for (byte[] entry : entries) {
+                output.putBytes(entry);
+            }
+            for (int row = 0; row < rows; row++) {
+                output.putInt(rowCodes[row]);
+            }
+        }
+    }
+
+    /**
+     * Buffered channel writer that keeps the position and a running CRC of everything written.
+     */
+    private static final class Output {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long flushed;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        long position() {
+            return flushed + buffer.position();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            for (int index = 0; index < count; index++) {
+                putLong(values[index]);
+            }
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * CRC of everything written so far.
+         */
+        int crc() throws IOException {
+            flush();
+            return (int) crc.getValue();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
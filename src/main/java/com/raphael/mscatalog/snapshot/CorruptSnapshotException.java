@@ -0,0 +1,13 @@
+package com.raphael.mscatalog.snapshot;
+
+import java.io.IOException;
+
+/**
+ * The file is not a catalog snapshot, or it is truncated or damaged.
+ */
+public class CorruptSnapshotException extends IOException {
+
+    public CorruptSnapshotException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
-INSERT INTO tb_product (name, description, price)
-VALUES ( 'PC Gamer', 'Computador RGB Gamer', 4000.00);
-INSERT INTO tb_product (name, description, price)
-VALUES ( 'Teclado Gamer', 'Teclado RGB Gamer', 400.00);
-INSERT INTO tb_product (name, description, price)
-VALUES ( 'Mouse Gamer', 'Mouse RGB Gamer', 200.00);
\ No newline at end of file
+-- Snowflake ids (see SnowflakeIds) of 2024-05-01T10:00:00Z, worker 0.
+INSERT INTO tb_product (id, name, description, price_cents)
+VALUES (42968678400000, 'PC Gamer', 'Computador RGB Gamer', 400000);
+INSERT INTO tb_product (id, name, description, price_cents)
+VALUES (42968678400001, 'Teclado Gamer', 'Teclado RGB Gamer', 40000);
+INSERT INTO tb_product (id, name, description, price_cents)
+VALUES (42968678400002, 'Mouse Gamer', 'Mouse RGB Gamer', 20000);
@@ -0,0 +1,31 @@
+CREATE SEQUENCE tb_product_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tb_product (
+    id BIGINT DEFAULT NEXT VALUE FOR tb_product_seq PRIMARY KEY,
+    name VARCHAR(250) NOT NULL,
+    description VARCHAR(250) NOT NULL,
+    price_cents BIGINT NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_product_price ON tb_product (price_cents, id);
+CREATE INDEX idx_product_name ON tb_product (name, id);
+
+CREATE SEQUENCE tb_product_change_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE tb_product_change (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(10) NOT NULL,
+    product_id BIGINT NOT NULL,
+    name VARCHAR(250),
+    description VARCHAR(250),
+    price_cents BIGINT,
+    product_version BIGINT,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE tb_ingest_checkpoint (
+    id INT PRIMARY KEY,
+    last_request_id BIGINT NOT NULL
+);
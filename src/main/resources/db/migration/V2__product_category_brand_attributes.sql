@@ -0,0 +1,9 @@
+ALTER TABLE tb_product ADD COLUMN category VARCHAR(100);
+ALTER TABLE tb_product ADD COLUMN brand VARCHAR(100);
+ALTER TABLE tb_product ADD COLUMN attributes VARCHAR(4000);
+
+CREATE INDEX idx_product_category ON tb_product (category, id);
+
+ALTER TABLE tb_product_change ADD COLUMN category VARCHAR(100);
+ALTER TABLE tb_product_change ADD COLUMN brand VARCHAR(100);
+ALTER TABLE tb_product_change ADD COLUMN attributes VARCHAR(4000);
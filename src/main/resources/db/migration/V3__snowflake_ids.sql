@@ -0,0 +1,4 @@
+-- Product and change ids are Snowflake ids assigned by the application; nothing takes them from a sequence anymore.
+ALTER TABLE tb_product ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE tb_product_seq;
+DROP SEQUENCE tb_product_change_seq;
@@ -1,5 +1,34 @@
 CREATE TABLE IF NOT EXISTS tb_product (
+    id BIGINT PRIMARY KEY,
     name VARCHAR(250) NOT NULL,
     description VARCHAR(250) NOT NULL,
-    price DOUBLE NOT NULL
-);
\ No newline at end of file
+    price_cents BIGINT NOT NULL,
+    category VARCHAR(100),
+    brand VARCHAR(100),
+    attributes VARCHAR(4000),
+    version BIGINT DEFAULT 0 NOT NULL,
+    updated_at TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_price ON tb_product (price_cents, id);
+CREATE INDEX IF NOT EXISTS idx_product_name ON tb_product (name, id);
+CREATE INDEX IF NOT EXISTS idx_product_category ON tb_product (category, id);
+
+CREATE TABLE IF NOT EXISTS tb_product_change (
+    id BIGINT PRIMARY KEY,
+    type VARCHAR(10) NOT NULL,
+    product_id BIGINT NOT NULL,
+    name VARCHAR(250),
+    description VARCHAR(250),
+    price_cents BIGINT,
+    category VARCHAR(100),
+    brand VARCHAR(100),
+    attributes VARCHAR(4000),
+    product_version BIGINT,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS tb_ingest_checkpoint (
+    id INT PRIMARY KEY,
+    last_request_id BIGINT NOT NULL
+);
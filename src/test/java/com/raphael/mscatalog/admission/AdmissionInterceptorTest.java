@@ -0,0 +1,133 @@
+package com.raphael.mscatalog.admission;
+
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionInterceptorTest {
+
+    private AdmissionInterceptor admissionInterceptor;
+    private HandlerMethod lookup;
+    private HandlerMethod write;
+    private HandlerMethod scan;
+    private HandlerMethod bulk;
+
+    @BeforeEach
+    public void setUp() throws NoSuchMethodException {
+
+        admissionInterceptor = new AdmissionInterceptor(1, 10, 10, 5,
+                2, Duration.ofSeconds(1), 2, Duration.ZERO, 2, Duration.ofSeconds(10), 1, Duration.ofSeconds(30),
+                new CatalogMetrics(new SimpleMeterRegistry()));
+        lookup = new HandlerMethod(new Handlers(), Handlers.class.getMethod("lookup"));
+        write = new HandlerMethod(new Handlers(), Handlers.class.getMethod("write"));
+        scan = new HandlerMethod(new Handlers(), Handlers.class.getMethod("scan"));
+        bulk = new HandlerMethod(new Handlers(), Handlers.class.getMethod("bulk"));
+    }
+
+    @Test
+    @DisplayName("Given client over its rate when preHandle then reject with 429 and Retry-After")
+    void testGivenClientOverItsRate_whenPreHandle_thenRejectWith429AndRetryAfter() {
+
+        admissionInterceptor.preHandle(request("a"), new MockHttpServletResponse(), scan);
+
+        assertThatThrownBy(() -> admissionInterceptor.preHandle(request("a"), new MockHttpServletResponse(), scan))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(ex -> {
+                    AdmissionRejectedException rejected = (AdmissionRejectedException) ex;
+                    assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+                    assertEquals("10", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                });
+        assertTrue(admissionInterceptor.preHandle(request("b"), new MockHttpServletResponse(), scan));
+    }
+
+    @Test
+    @DisplayName("Given scan slots taken when preHandle then reject scans with 503 and still admit lookups")
+    void testGivenScanSlotsTaken_whenPreHandle_thenRejectScansWith503AndStillAdmitLookups() {
+
+        MockHttpServletRequest first = request("a");
+        admissionInterceptor.preHandle(first, new MockHttpServletResponse(), scan);
+        admissionInterceptor.preHandle(request("b"), new MockHttpServletResponse(), scan);
+
+        assertThatThrownBy(() -> admissionInterceptor.preHandle(request("c"), new MockHttpServletResponse(), scan))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(ex -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                        ((AdmissionRejectedException) ex).getStatusCode()));
+        assertTrue(admissionInterceptor.preHandle(request("c"), new MockHttpServletResponse(), lookup));
+
+        admissionInterceptor.afterCompletion(first, new MockHttpServletResponse(), scan, null);
+
+        assertTrue(admissionInterceptor.preHandle(request("d"), new MockHttpServletResponse(), scan));
+    }
+
+    @Test
+    @DisplayName("Given write over its latency target when afterCompletion then back off writes and scans but not lookups")
+    void testGivenWriteOverLatencyTarget_whenAfterCompletion_thenBackOffWritesAndScansButNotLookups() {
+
+        MockHttpServletRequest request = request("a");
+        admissionInterceptor.preHandle(request, new MockHttpServletResponse(), write);
+        admissionInterceptor.afterCompletion(request, new MockHttpServletResponse(), write, null);
+
+        assertEquals(1, admissionInterceptor.limit(EndpointClass.WRITE));
+        assertEquals(1, admissionInterceptor.limit(EndpointClass.SCAN));
+        assertEquals(2, admissionInterceptor.limit(EndpointClass.LOOKUP));
+    }
+
+    @Test
+    @DisplayName("Given a bulk request in flight when preHandle then reject other bulks with 503 and charge them bulk-cost")
+    void testGivenBulkInFlight_whenPreHandle_thenRejectBulksWith503AndChargeBulkCost() {
+
+        MockHttpServletRequest first = request("a");
+        admissionInterceptor.preHandle(first, new MockHttpServletResponse(), bulk);
+
+        assertThatThrownBy(() -> admissionInterceptor.preHandle(request("b"), new MockHttpServletResponse(), bulk))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(ex -> assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+                        ((AdmissionRejectedException) ex).getStatusCode()));
+        assertTrue(admissionInterceptor.preHandle(request("b"), new MockHttpServletResponse(), write));
+
+        admissionInterceptor.afterCompletion(first, new MockHttpServletResponse(), bulk, null);
+        admissionInterceptor.preHandle(request("a"), new MockHttpServletResponse(), bulk);
+
+        assertThatThrownBy(() -> admissionInterceptor.preHandle(request("a"), new MockHttpServletResponse(), bulk))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(ex -> assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                        ((AdmissionRejectedException) ex).getStatusCode()));
+    }
+
+    private static MockHttpServletRequest request(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(AdmissionInterceptor.CLIENT_ID_HEADER, clientId);
+        return request;
+    }
+
+    static class Handlers {
+
+        @Admission(EndpointClass.LOOKUP)
+        public void lookup() {
+        }
+
+        @Admission(EndpointClass.WRITE)
+        public void write() {
+        }
+
+        @Admission(EndpointClass.SCAN)
+        public void scan() {
+        }
+
+        @Admission(EndpointClass.BULK)
+        public void bulk() {
+        }
+    }
+}
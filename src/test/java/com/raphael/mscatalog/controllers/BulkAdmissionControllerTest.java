@@ -0,0 +1,104 @@
+package com.raphael.mscatalog.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.mscatalog.dto.BulkResultDTO;
+import com.raphael.mscatalog.dto.IngestStatusDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.ingest.ProductIngestService;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.services.ProductBulkService;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import com.raphael.mscatalog.snapshot.CatalogSnapshotService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Admission control on the bulk, snapshot and ingest endpoints, with a bucket of a single token per client so the
+ * second request of a client is always over its rate.
+ */
+@WebMvcTest(controllers = {ProductBulkController.class, CatalogSnapshotController.class,
+        ProductIngestController.class}, properties = {
+        "mscatalog.admission.enabled=true",
+        "mscatalog.admission.rate=0.001",
+        "mscatalog.admission.burst=1",
+        "mscatalog.admission.bulk-cost=1",
+        "mscatalog.ingest.enabled=true"})
+public class BulkAdmissionControllerTest {
+
+    private static final String BASE_URL = "/productInventory/productManagement/v1/products";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ProductBulkService productBulkService;
+
+    @MockBean
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @MockBean
+    private ProductChangeFeed productChangeFeed;
+
+    @MockBean
+    private ProductIngestService productIngestService;
+
+    @MockBean
+    private CatalogMetrics catalogMetrics;
+
+    @Test
+    @DisplayName("Given client over its rate when bulk create then return too many requests")
+    void testGivenClientOverItsRate_WhenBulkCreate_thenReturnTooManyRequests() throws Exception {
+
+        given(productBulkService.createAll(anyList())).willReturn(new BulkResultDTO(Collections.emptyList()));
+        String body = objectMapper.writeValueAsString(List.of(new ProductCreateDTO("Monitor", "Monitor IPS", 960.0)));
+
+        assertSecondRequestRejected(post(BASE_URL + "/bulk").header("X-Client-Id", "bulk")
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    @Test
+    @DisplayName("Given client over its rate when export snapshot then return too many requests")
+    void testGivenClientOverItsRate_WhenExportSnapshot_thenReturnTooManyRequests() throws Exception {
+
+        assertSecondRequestRejected(get(BASE_URL + "/snapshot").header("X-Client-Id", "snapshot"));
+    }
+
+    @Test
+    @DisplayName("Given client over its rate when ingest product then return too many requests")
+    void testGivenClientOverItsRate_WhenIngestProduct_thenReturnTooManyRequests() throws Exception {
+
+        given(productIngestService.submit(any(), any())).willReturn(IngestStatusDTO.pending(1L, null));
+        String body = objectMapper.writeValueAsString(new ProductCreateDTO("Monitor", "Monitor IPS", 960.0));
+
+        assertSecondRequestRejected(post(BASE_URL + "/ingest").header("X-Client-Id", "ingest")
+                .contentType(MediaType.APPLICATION_JSON).content(body));
+    }
+
+    private void assertSecondRequestRejected(RequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        mockMvc.perform(request)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.status", is(429)));
+    }
+}
@@ -0,0 +1,112 @@
+package com.raphael.mscatalog.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.mscatalog.dto.BulkItemResultDTO;
+import com.raphael.mscatalog.dto.BulkResultDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.services.ProductBulkService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ProductBulkController.class)
+public class ProductBulkControllerTest {
+
+    private static final String BULK_URL = "/productInventory/productManagement/v1/products/bulk";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ProductBulkService productBulkService;
+
+    @MockBean
+    private CatalogMetrics catalogMetrics;
+
+    @Test
+    @DisplayName("Given product array when bulk create then return per item results")
+    void testGivenProductArray_WhenBulkCreate_thenReturnPerItemResults() throws Exception {
+
+        var createDTOs = List.of(
+                new ProductCreateDTO("Monitor", "Monitor IPS de 27 Polegadas", 960.0),
+                new ProductCreateDTO("", "Gabinete Gamer com 6 fans", 250.0));
+
+        given(productBulkService.createAll(anyList())).willReturn(new BulkResultDTO(List.of(
+                BulkItemResultDTO.success(0, 1L, BulkItemResultDTO.Status.CREATED),
+                BulkItemResultDTO.failure(1, null, "Campo(s) inválido(s)", null))));
+
+        ResultActions response = mockMvc.perform(post(BULK_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createDTOs)));
+
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.items[1].status", is("FAILED")));
+    }
+
+    @Test
+    @DisplayName("Given NDJSON with malformed line when bulk create then keep item position")
+    @SuppressWarnings("unchecked")
+    void testGivenNdjsonWithMalformedLine_WhenBulkCreate_thenKeepItemPosition() throws Exception {
+
+        given(productBulkService.createAll(anyList())).willReturn(new BulkResultDTO(Collections.emptyList()));
+
+        String body = objectMapper.writeValueAsString(new ProductCreateDTO("Monitor", "Monitor IPS", 960.0))
+                + "\n{not json\n"
+                + objectMapper.writeValueAsString(new ProductCreateDTO("Mouse", "Mouse RGB", 200.0)) + "\n";
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<List<ProductCreateDTO>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productBulkService).createAll(captor.capture());
+        assertEquals(3, captor.getValue().size());
+        assertEquals("Monitor", captor.getValue().get(0).getName());
+        assertNull(captor.getValue().get(1));
+        assertEquals("Mouse", captor.getValue().get(2).getName());
+    }
+
+    @Test
+    @DisplayName("Given too many ids when bulk delete then return payload too large")
+    void testGivenTooManyIds_WhenBulkDelete_thenReturnPayloadTooLarge() throws Exception {
+
+        List<Long> ids = Collections.nCopies(ProductBulkService.MAX_ITEMS + 1, 1L);
+
+        mockMvc.perform(post(BULK_URL + "/delete")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(ids)))
+                .andDo(print())
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.message", is("A requisição excede o limite de 10000 itens")));
+
+        verifyNoInteractions(productBulkService);
+    }
+}
@@ -1,9 +1,21 @@
 package com.raphael.mscatalog.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.raphael.mscatalog.admission.AdmissionRejectedException;
+import com.raphael.mscatalog.dto.ProductChangeBatchDTO;
+import com.raphael.mscatalog.dto.ProductChangeDTO;
 import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductLookupDTO;
 import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
 import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSort;
+import com.raphael.mscatalog.services.CatalogVersion;
+import com.raphael.mscatalog.services.ProductChangeFeed;
 import com.raphael.mscatalog.services.ProductService;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,27 +24,49 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest
+@WebMvcTest(ProductController.class)
+@Import(CatalogVersion.class)
 public class ProductControllerTest {
 
+    private static final String BASE_URL = "/productInventory/productManagement/v1/products";
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -42,6 +76,15 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductChangeFeed productChangeFeed;
+
+    @MockBean
+    private CatalogMetrics catalogMetrics;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     private Product product1;
     private ProductCreateDTO createDTO;
     private ProductCreateDTO updateDTO;
@@ -67,7 +110,7 @@ public class ProductControllerTest {
                 .willReturn(productResponseDTO)
                 .willAnswer((invocation) -> invocation.getArgument(0));
 
-        ResultActions response = mockMvc.perform(post("/products")
+        ResultActions response = mockMvc.perform(post(BASE_URL)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(createDTO)));
 
@@ -87,7 +130,7 @@ public class ProductControllerTest {
         given(productService.create(any(ProductCreateDTO.class)))
                 .willAnswer((invocation) -> invocation.getArgument(0));
 
-        ResultActions response = mockMvc.perform(post("/products")
+        ResultActions response = mockMvc.perform(post(BASE_URL)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(invalidCreateDTO)));
 
@@ -105,7 +148,7 @@ public class ProductControllerTest {
         long productId = 1L;
         given(productService.findById(productId)).willReturn(productResponseDTO);
 
-        ResultActions response = mockMvc.perform(get("/products/{id}", productId));
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/{id}", productId));
 
         response.andDo(print())
                 .andExpect(status().isOk())
@@ -114,6 +157,37 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.price", is(productResponseDTO.getPrice())));
     }
 
+    @Test
+    @DisplayName("Given ids param when findAllById then return found products and missing ids")
+    void testGivenIdsParam_WhenFindAllById_thenReturnFoundProductsAndMissingIds() throws Exception {
+
+        given(productService.findAllById(List.of(3L, 1L, 9L)))
+                .willReturn(new ProductLookupDTO(List.of(productResponseDTO), List.of(9L)));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL).param("ids", "3,1,9"));
+
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.products.size()", is(1)))
+                .andExpect(jsonPath("$.products[0].name", is(productResponseDTO.getName())))
+                .andExpect(jsonPath("$.missing[0]", is(9)));
+    }
+
+    @Test
+    @DisplayName("Given too many ids when lookup then return payload too large")
+    void testGivenTooManyIds_WhenLookup_thenReturnPayloadTooLarge() throws Exception {
+
+        List<Long> ids = LongStream.rangeClosed(1, ProductService.MAX_LOOKUP_SIZE + 1L).boxed().toList();
+
+        ResultActions response = mockMvc.perform(post(BASE_URL + "/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+
+        response.andExpect(status().isPayloadTooLarge());
+        verify(productService, never()).findAllById(anyList());
+    }
+
     @Test
     @DisplayName("Given invalid productId when findById then return not found")
     void testGivenInvalidProductId_WhenFindById_thenReturnNotFound() throws Exception {
@@ -121,7 +195,7 @@ public class ProductControllerTest {
         long productId = 1L;
         given(productService.findById(productId)).willThrow(EntityNotFoundException.class);
 
-        ResultActions response = mockMvc.perform(get("/products/{id}", productId));
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/{id}", productId));
 
         response.andExpect(status().isNotFound()).andDo(print());
     }
@@ -132,13 +206,28 @@ public class ProductControllerTest {
 
         given(productService.findById(0L)).willThrow(MethodArgumentTypeMismatchException.class);
 
-        ResultActions response = mockMvc.perform(get("/products/any"));
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/any"));
 
         response.andDo(print())
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message", is("Parâmetros informados estão inválidos")));
     }
 
+    @Test
+    @DisplayName("Given exhausted connection pool when findById then return service unavailable")
+    void testGivenExhaustedConnectionPool_WhenFindById_thenReturnServiceUnavailable() throws Exception {
+
+        given(productService.findById(1L))
+                .willThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/{id}", 1L));
+
+        response.andDo(print())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.message", is("Serviço sobrecarregado, tente novamente")));
+    }
+
     @Test
     @DisplayName("Given list of products when findAll products then return products list")
     void testGivenListOfProducts_WhenFindAllProducts_thenReturnProductsList() throws Exception {
@@ -152,9 +241,9 @@ public class ProductControllerTest {
         products.add(productResponseDTO);
         products.add(new ProductResponseDTO(product2));
 
-        given(productService.findAll()).willReturn(products);
+        given(productService.findPage(null, ProductService.DEFAULT_PAGE_SIZE)).willReturn(products);
 
-        ResultActions response = mockMvc.perform(get("/products"));
+        ResultActions response = mockMvc.perform(get(BASE_URL));
 
         response.andDo(print())
                 .andExpect(status().isOk())
@@ -165,15 +254,36 @@ public class ProductControllerTest {
     @DisplayName("Given empty products list when findAll products then return empty products list")
     void testGivenEmptyProductsList_WhenFindAllProducts_thenReturnEmptyProductsList() throws Exception {
 
-        given(productService.findAll()).willReturn(Collections.emptyList());
+        given(productService.findPage(null, ProductService.DEFAULT_PAGE_SIZE)).willReturn(Collections.emptyList());
 
-        ResultActions response = mockMvc.perform(get("/products"));
+        ResultActions response = mockMvc.perform(get(BASE_URL));
 
         response.andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()", is(0)));
     }
 
+    @Test
+    @DisplayName("Given full page of products when findAll products then return next cursor")
+    void testGivenFullPageOfProducts_WhenFindAllProducts_thenReturnNextCursor() throws Exception {
+
+        var product2 = new Product(
+                7L, "Placa mãe B650M",
+                "Plataforma AM5", 750.0);
+        product1.setId(3L);
+
+        given(productService.findPage(1L, 2))
+                .willReturn(List.of(new ProductResponseDTO(product1), new ProductResponseDTO(product2)));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "?after_id=1&size=2"));
+
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(2)))
+                .andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "7"))
+                .andExpect(header().string("Link", containsString("after_id=7")));
+    }
+
     @Test
     @DisplayName("Given updated product when Update then return updated product")
     void testGivenUpdatedProduct_WhenUpdate_thenReturnUpdatedProductObject() throws Exception {
@@ -186,12 +296,12 @@ public class ProductControllerTest {
         var updatedProduct = new Product(updateDTO);
         var responseDto = new ProductResponseDTO(updatedProduct);
 
-        given(productService.update(anyLong(), any(ProductCreateDTO.class)))
+        given(productService.update(anyLong(), any(ProductCreateDTO.class), any()))
                 .willReturn(responseDto);
 
         long productId = 1L;
 
-        ResultActions response = mockMvc.perform(put("/products/{id}", productId)
+        ResultActions response = mockMvc.perform(put(BASE_URL + "/{id}", productId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updateDTO)));
 
@@ -213,10 +323,10 @@ public class ProductControllerTest {
         );
         long productId = 1L;
 
-        given(productService.update(anyLong(), any(ProductCreateDTO.class)))
+        given(productService.update(anyLong(), any(ProductCreateDTO.class), any()))
                 .willThrow(new EntityNotFoundException(String.format("Produto com id %s não encontrado", productId)));
 
-        ResultActions response = mockMvc.perform(put("/products/{id}", productId)
+        ResultActions response = mockMvc.perform(put(BASE_URL + "/{id}", productId)
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(updateDTO)));
 
@@ -225,6 +335,75 @@ public class ProductControllerTest {
                 .andExpect(jsonPath("$.message", is("Produto com id 1 não encontrado")));
     }
 
+    @Test
+    @DisplayName("Given current ETag when findById then return not modified without body")
+    void testGivenCurrentETag_WhenFindById_thenReturnNotModified() throws Exception {
+
+        var versioned = new ProductResponseDTO(1L, "Monitor", "Monitor IPS de 27 Polegadas", 96000L,
+                3L, Instant.parse("2024-05-01T10:00:00Z"));
+        given(productService.findById(1L)).willReturn(versioned);
+
+        mockMvc.perform(get(BASE_URL + "/{id}", 1L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("$.version").doesNotExist());
+
+        mockMvc.perform(get(BASE_URL + "/{id}", 1L).header(HttpHeaders.IF_NONE_MATCH, "\"1-3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Given current catalog ETag when findAll products then return not modified without querying")
+    void testGivenCurrentCatalogETag_WhenFindAllProducts_thenReturnNotModified() throws Exception {
+
+        mockMvc.perform(get(BASE_URL).header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag()))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Given stale If-Match when Update then return precondition failed")
+    void testGivenStaleIfMatch_WhenUpdate_thenReturnPreconditionFailed() throws Exception {
+
+        given(productService.update(eq(1L), any(ProductCreateDTO.class), eq(2L)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+
+        ResultActions response = mockMvc.perform(put(BASE_URL + "/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(createDTO)));
+
+        response.andDo(print())
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("Given cursor when get changes then return next batch of changes")
+    void testGivenCursor_WhenGetChanges_thenReturnNextBatch() throws Exception {
+
+        var change = new ProductChangeDTO(11L, ProductChangedEvent.Type.DELETED, 1L,
+                null, null, null, null, null, null, null, Instant.parse("2024-05-01T10:00:00Z"));
+        given(productChangeFeed.poll(10L, 100, Duration.ofSeconds(5)))
+                .willReturn(CompletableFuture.completedFuture(new ProductChangeBatchDTO(List.of(change), 10L, 100)));
+
+        MvcResult result = mockMvc.perform(get(BASE_URL + "/changes?since=10&wait=5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor", is(11)))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andExpect(jsonPath("$.changes[0].type", is("DELETED")))
+                .andExpect(jsonPath("$.changes[0].product").doesNotExist());
+    }
+
     @Test
     @DisplayName("Given productId when Delete then return NoContent")
     void testGivenProductId_WhenDelete_thenReturnNoContent() throws Exception {
@@ -232,7 +411,7 @@ public class ProductControllerTest {
         long productId = 1L;
         willDoNothing().given(productService).delete(productId);
 
-        ResultActions response = mockMvc.perform(delete("/products/{id}", productId));
+        ResultActions response = mockMvc.perform(delete(BASE_URL + "/{id}", productId));
 
         response.andExpect(status().isNoContent()).andDo(print());
     }
@@ -245,7 +424,7 @@ public class ProductControllerTest {
         willThrow((new EntityNotFoundException("Produto com id 1 não encontrado")))
                 .given(productService).delete(productId);
 
-        ResultActions response = mockMvc.perform(delete("/products/{id}", productId));
+        ResultActions response = mockMvc.perform(delete(BASE_URL + "/{id}", productId));
 
         response.andDo(print())
                 .andExpect(status().isNotFound())
@@ -256,10 +435,10 @@ public class ProductControllerTest {
     @DisplayName("Given name or description and price when Search then return product list")
     void testGivenNameOrDescriptionAndPrice_whenSearch_thenReturnProductList() throws Exception {
 
-        given(productService.search("ips", 0D, 999D))
+        given(productService.search("ips", 0D, 999D, ProductFilter.NONE, null))
                 .willReturn(List.of(productResponseDTO));
 
-        ResultActions response = mockMvc.perform(get("/products/search?q=ips&min_price=0&max_price=999"));
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search?q=ips&min_price=0&max_price=999"));
 
         response.andDo(print())
                 .andExpect(status().isOk())
@@ -270,13 +449,91 @@ public class ProductControllerTest {
     @DisplayName("Given name or description and price when Search then return empty product list")
     void testGivenNameOrDescriptionAndPrice_whenSearch_thenReturnEmptyProductList() throws Exception {
 
-        given(productService.search(anyString(), anyDouble(), anyDouble()))
+        given(productService.search(anyString(), anyDouble(), anyDouble(), any(), any()))
                 .willReturn(Collections.emptyList());
 
-        ResultActions response = mockMvc.perform(get("/products/search?q=any&min_price=500&max_price=999"));
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search?q=any&min_price=500&max_price=999"));
 
         response.andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size()", is(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Given sort param when Search then pass parsed sort to service")
+    void testGivenSortParam_whenSearch_thenPassParsedSort() throws Exception {
+
+        given(productService.search(null, 100D, null, ProductFilter.NONE, new ProductSort(ProductSort.Field.PRICE, Sort.Direction.DESC)))
+                .willReturn(List.of(new ProductResponseDTO(product1)));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search?min_price=100&sort=price,desc"));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()", is(1)));
+    }
+
+    @Test
+    @DisplayName("Given unknown sort field when Search then return bad request")
+    void testGivenUnknownSortField_whenSearch_thenReturnBadRequest() throws Exception {
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search?sort=color"));
+
+        response.andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Parâmetros informados estão inválidos")));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    @DisplayName("Given filters when Search facets then pass parsed filter to service and return counts")
+    void testGivenFilters_whenSearchFacets_thenPassParsedFilterAndReturnCounts() throws Exception {
+
+        ProductFilter filter = ProductFilter.of("Monitores", null, List.of(new ProductFilter.Attribute("painel", "IPS")));
+        given(productService.facets("monitor", null, null, filter)).willReturn(new SearchFacetsDTO(2,
+                List.of(new SearchFacetsDTO.FacetValue("Monitores", 2)), List.of(), Map.of(), List.of()));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search/facets?q=monitor&category=Monitores&attr=painel:IPS"));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(2)))
+                .andExpect(jsonPath("$.categories[0].value", is("Monitores")))
+                .andExpect(jsonPath("$.categories[0].count", is(2)));
+    }
+
+    @Test
+    @DisplayName("Given attribute filter without value when Search then return bad request")
+    void testGivenAttributeFilterWithoutValue_whenSearch_thenReturnBadRequest() throws Exception {
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/search?attr=painel"));
+
+        response.andExpect(status().isBadRequest());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    @DisplayName("Given query when Suggest then return completions with counts")
+    void testGivenQuery_whenSuggest_thenReturnCompletionsWithCounts() throws Exception {
+
+        given(productService.suggest("moni", 5)).willReturn(List.of(new SuggestionDTO("monitor", 12)));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/suggest?q=moni&limit=5"));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text", is("monitor")))
+                .andExpect(jsonPath("$[0].count", is(12)));
+    }
+
+    @Test
+    @DisplayName("Given request rejected by admission control when Get product then return status and Retry-After")
+    void testGivenRequestRejectedByAdmissionControl_whenGetProduct_thenReturnStatusAndRetryAfter() throws Exception {
+
+        given(productService.findById(1L)).willThrow(new AdmissionRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                "Limite de requisições excedido, tente novamente em instantes", 3));
+
+        ResultActions response = mockMvc.perform(get(BASE_URL + "/1"));
+
+        response.andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+                .andExpect(jsonPath("$.status", is(429)))
+                .andExpect(jsonPath("$.message", is("Limite de requisições excedido, tente novamente em instantes")));
+    }
+}
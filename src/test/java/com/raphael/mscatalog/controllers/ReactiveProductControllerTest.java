@@ -0,0 +1,139 @@
+package com.raphael.mscatalog.controllers;
+
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.services.CatalogVersion;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import com.raphael.mscatalog.services.ReactiveProductService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@WebFluxTest(ReactiveProductController.class)
+@Import(CatalogVersion.class)
+public class ReactiveProductControllerTest {
+
+    private static final String BASE_URL = "/productInventory/productManagement/v1/products";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @MockBean
+    private ReactiveProductService reactiveProductService;
+
+    @MockBean
+    private ProductChangeFeed productChangeFeed;
+
+    @MockBean
+    private CatalogMetrics catalogMetrics;
+
+    @Test
+    @DisplayName("Given productId when findById then return product object with ETag")
+    void testGivenProductId_WhenFindById_thenReturnProductObjectWithETag() {
+
+        given(reactiveProductService.findById(1L)).willReturn(Mono.just(new ProductResponseDTO(
+                1L, "Monitor", "Monitor IPS de 27 Polegadas", 96000L, 3L, Instant.parse("2024-05-01T10:00:00Z"))));
+
+        webTestClient.get().uri(BASE_URL + "/{id}", 1L).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1-3\"")
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Monitor")
+                .jsonPath("$.version").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Given invalid productId when findById then return not found")
+    void testGivenInvalidProductId_WhenFindById_thenReturnNotFound() {
+
+        given(reactiveProductService.findById(1L))
+                .willReturn(Mono.error(new EntityNotFoundException("Produto com id 1 não encontrado")));
+
+        webTestClient.get().uri(BASE_URL + "/{id}", 1L).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Produto com id 1 não encontrado");
+    }
+
+    @Test
+    @DisplayName("Given invalid product when create then return unprocessable entity")
+    void testGivenInvalidProduct_WhenCreate_thenReturnUnprocessableEntity() {
+
+        webTestClient.post().uri(BASE_URL)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ProductCreateDTO("", "Monitor IPS de 27 Polegadas", 960.0))
+                .exchange()
+                .expectStatus().isEqualTo(422)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Campo(s) inválido(s)")
+                .jsonPath("$.errors.name").exists();
+    }
+
+    @Test
+    @DisplayName("Given search query when search then stream matches as ndjson")
+    void testGivenSearchQuery_WhenSearch_thenStreamMatchesAsNdjson() {
+
+        given(reactiveProductService.search("monitor", null, null, ProductFilter.NONE, null)).willReturn(Flux.just(
+                new ProductResponseDTO(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0),
+                new ProductResponseDTO(2L, "Monitor", "Monitor VA de 24 Polegadas", 700.0)));
+
+        webTestClient.get().uri(BASE_URL + "/search?q=monitor")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(body -> assertEquals(2, body.lines().count()));
+    }
+
+    @Test
+    @DisplayName("Given current catalog ETag when findAll products then return not modified without querying")
+    void testGivenCurrentCatalogETag_WhenFindAllProducts_thenReturnNotModified() {
+
+        webTestClient.get().uri(BASE_URL)
+                .header(HttpHeaders.IF_NONE_MATCH, catalogVersion.etag())
+                .exchange()
+                .expectStatus().isNotModified();
+
+        verify(reactiveProductService, never()).findPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Given a full page when findAll products then link the next page from the request URL")
+    void testGivenFullPage_WhenFindAllProducts_thenLinkNextPage() {
+
+        given(reactiveProductService.findPage(null, 2)).willReturn(Flux.just(
+                new ProductResponseDTO(1L, "Monitor", "Monitor IPS de 27 Polegadas", 96000L, 0L, null),
+                new ProductResponseDTO(5L, "Mouse", "Mouse RGB Gamer", 20000L, 0L, null)));
+
+        webTestClient.get().uri(BASE_URL + "?size=2").exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ProductController.NEXT_CURSOR_HEADER, "5")
+                .expectHeader().value(HttpHeaders.LINK, link -> assertEquals(
+                        "<" + BASE_URL + "?size=2&after_id=5>; rel=\"next\"",
+                        link.replaceFirst("^<[a-z]+://[^/]+", "<")));
+    }
+}
@@ -0,0 +1,122 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.events.CatalogImportedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.services.ProductChangeFeed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class H2ReplicaFollowerTest {
+
+    @Mock
+    private ProductChangeFeed productChangeFeed;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaRoutingDataSource routing;
+    private H2ReplicaFollower follower;
+
+    @BeforeEach
+    public void setUp() {
+
+        String run = String.valueOf(System.nanoTime());
+        primary = database("primary-" + run);
+        replica = database("replica-" + run);
+        primary.execute("RUNSCRIPT FROM 'classpath:schema.sql'");
+
+        routing = new ReplicaRoutingDataSource(primary.getDataSource(), Map.of("replica", replica.getDataSource()),
+                ReplicaRoutingDataSource.DEFAULT_POSITION_QUERY, Duration.ofSeconds(2), Duration.ofSeconds(1),
+                new CatalogMetrics(new SimpleMeterRegistry()));
+        follower = new H2ReplicaFollower(primary.getDataSource(), routing, productChangeFeed, Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        routing.close();
+        primary.execute("SHUTDOWN");
+        replica.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Given a copied replica when the follower runs then it replays the changes up to the watermark in order")
+    void testGivenCopiedReplica_whenFollowerRuns_thenReplaysChangesUpToWatermark() {
+
+        write(1, "CREATED", 1, "Monitor");
+        given(productChangeFeed.watermark()).willReturn(1L);
+        follower.follow();
+        assertEquals(List.of("Monitor"), replicaNames());
+
+        write(2, "UPDATED", 1, "Monitor 4K");
+        write(3, "CREATED", 2, "Teclado");
+        given(productChangeFeed.watermark()).willReturn(2L);
+        follower.follow();
+        assertEquals(List.of("Monitor 4K"), replicaNames());
+
+        write(4, "DELETED", 1, null);
+        given(productChangeFeed.watermark()).willReturn(4L);
+        follower.follow();
+        assertEquals(List.of("Teclado"), replicaNames());
+        assertEquals(4L, replica.queryForObject(ReplicaRoutingDataSource.DEFAULT_POSITION_QUERY, Long.class));
+    }
+
+    @Test
+    @DisplayName("Given a catalog import when the follower runs then it copies the primary again")
+    void testGivenCatalogImport_whenFollowerRuns_thenCopiesPrimaryAgain() {
+
+        given(productChangeFeed.watermark()).willReturn(0L);
+        follower.follow();
+        primary.update("INSERT INTO tb_product (id, name, description, price_cents) VALUES (7, 'Cadeira', 'Importada', 100)");
+
+        follower.follow();
+        assertEquals(List.of(), replicaNames());
+
+        follower.onCatalogImported(new CatalogImportedEvent(1));
+        follower.follow();
+        assertEquals(List.of("Cadeira"), replicaNames());
+    }
+
+    /**
+     * Applies a change to the primary the way the product service does: the product row and its change row together.
+     */
+    private void write(long changeId, String type, long productId, String name) {
+        if (type.equals("DELETED")) {
+            primary.update("DELETE FROM tb_product WHERE id = ?", productId);
+            primary.update("INSERT INTO tb_product_change (id, type, product_id, changed_at) " +
+                    "VALUES (?, ?, ?, CURRENT_TIMESTAMP)", changeId, type, productId);
+            return;
+        }
+        primary.update("MERGE INTO tb_product (id, name, description, price_cents, version) KEY (id) " +
+                "VALUES (?, ?, 'Descricao', 100, ?)", productId, name, changeId);
+        primary.update("INSERT INTO tb_product_change (id, type, product_id, name, description, price_cents, " +
+                "product_version, changed_at) VALUES (?, ?, ?, ?, 'Descricao', 100, ?, CURRENT_TIMESTAMP)",
+                changeId, type, productId, name, changeId);
+    }
+
+    private List<String> replicaNames() {
+        return replica.queryForList("SELECT name FROM tb_product ORDER BY id", String.class);
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,133 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three in-memory H2 databases stand in for the shards, each holding the products whose id hashes to it.
+ */
+public class ProductShardsTest {
+
+    private static final int SHARDS = 3;
+
+    private final List<JdbcTemplate> databases = new ArrayList<>();
+    private ProductShards productShards;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+
+        String run = String.valueOf(System.nanoTime());
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            JdbcTemplate database = database("shard" + shard + "-" + run);
+            databases.add(database);
+            shards.add(database.getDataSource());
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(shards);
+        productShards = new ProductShards(SHARDS, 2, new CatalogMetrics(new SimpleMeterRegistry()));
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        productShards.destroy();
+        for (JdbcTemplate database : databases) {
+            database.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    @DisplayName("Given consecutive ids when picking shards then every shard gets a fair share")
+    void testGivenConsecutiveIds_whenShardOf_thenEveryShardGetsFairShare() {
+
+        int[] products = new int[SHARDS];
+        LongStream.range(0, 30_000).forEach(id -> products[productShards.shardOf(id)]++);
+
+        for (int count : products) {
+            assertTrue(count > 9_000 && count < 11_000, "Unbalanced shards: " + count);
+        }
+        assertEquals(0, new ProductShards(1, 0, new CatalogMetrics(new SimpleMeterRegistry())).shardOf(42L));
+    }
+
+    @Test
+    @DisplayName("Given a transaction begun inside a product's scope when writing then the row lands on its shard")
+    void testGivenProductScope_whenWriting_thenRowLandsOnItsShard() {
+
+        for (long id = 1; id <= 20; id++) {
+            long productId = id;
+            productShards.runForProduct(productId, () -> transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.update("INSERT INTO tb_product (id) VALUES (?)", productId)));
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            for (Long id : databases.get(shard).queryForList("SELECT id FROM tb_product", Long.class)) {
+                assertEquals(shard, productShards.shardOf(id));
+            }
+        }
+        assertEquals(Long.valueOf(7), productShards.callForProduct(7L, () ->
+                jdbcTemplate.queryForObject("SELECT id FROM tb_product WHERE id = 7", Long.class)));
+    }
+
+    @Test
+    @DisplayName("Given products on every shard when scattering a sorted query then the merge keeps the order and limit")
+    void testGivenProductsOnEveryShard_whenScatterAndMerge_thenOrderAndLimitKept() {
+
+        for (long id = 1; id <= 30; id++) {
+            databases.get(productShards.shardOf(id)).update("INSERT INTO tb_product (id) VALUES (?)", id);
+        }
+
+        List<List<Long>> byShard = productShards.scatter(shard -> transactionTemplate.execute(status ->
+                jdbcTemplate.queryForList("SELECT id FROM tb_product ORDER BY id DESC LIMIT 5", Long.class)));
+
+        assertEquals(SHARDS, byShard.size());
+        for (int shard = 0; shard < SHARDS; shard++) {
+            int target = shard;
+            assertTrue(byShard.get(shard).stream().allMatch(id -> productShards.shardOf(id) == target));
+        }
+        assertEquals(List.of(30L, 29L, 28L, 27L, 26L),
+                ProductShards.merge(byShard, Comparator.<Long>reverseOrder(), 5));
+    }
+
+    @Test
+    @DisplayName("Given a failing shard when scattering then the whole read fails with its exception")
+    void testGivenFailingShard_whenScatter_thenReadFails() {
+
+        databases.get(1).execute("DROP TABLE tb_product");
+
+        assertThrows(BadSqlGrammarException.class, () -> productShards.scatter(shard ->
+                jdbcTemplate.queryForList("SELECT id FROM tb_product", Long.class)));
+    }
+
+    private static JdbcTemplate database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate database = new JdbcTemplate(dataSource);
+        database.execute("CREATE TABLE tb_product (id BIGINT PRIMARY KEY)");
+        return database;
+    }
+}
@@ -0,0 +1,181 @@
+package com.raphael.mscatalog.datasource;
+
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Three in-memory H2 databases stand in for the primary and two replicas. Each one names itself in {@code tb_origin},
+ * so a query tells which database served it.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofSeconds(2);
+    private static final Duration CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica1;
+    private JdbcTemplate replica2;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    public void setUp() {
+
+        String run = String.valueOf(System.nanoTime());
+        primary = database("primary", run);
+        replica1 = database("replica1", run);
+        replica2 = database("replica2", run);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica1", replica1.getDataSource());
+        replicas.put("replica2", replica2.getDataSource());
+        routing = new ReplicaRoutingDataSource(primary.getDataSource(), replicas,
+                ReplicaRoutingDataSource.DEFAULT_POSITION_QUERY, MAX_LAG, CHECK_INTERVAL,
+                new CatalogMetrics(new SimpleMeterRegistry()), clock::get);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing.primaryForWrites());
+        dataSource.setReadOnlyDataSource(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        routing.close();
+        for (JdbcTemplate database : List.of(primary, replica1, replica2)) {
+            database.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    @DisplayName("Given replicas in rotation when read-only transactions run then they alternate between replicas and writes stay on the primary")
+    void testGivenReplicasInRotation_whenReadOnlyTransactions_thenAlternateReplicasAndWritesOnPrimary() {
+
+        routing.checkHealth();
+
+        assertEquals(2, routing.replicasInRotation());
+        assertEquals(List.of("replica1", "replica2", "replica1"), List.of(readOrigin(), readOrigin(), readOrigin()));
+        assertEquals("primary", readWrite.execute(status -> origin()));
+    }
+
+    @Test
+    @DisplayName("Given a committed write when its client reads then it reads the primary until every replica must have it and other clients read replicas")
+    void testGivenCommittedWrite_whenClientsRead_thenWriterOnPrimaryUntilWindowPassesAndOthersOnReplicas() {
+
+        routing.checkHealth();
+        try (var writer = routing.openClientScope("writer")) {
+            readWrite.executeWithoutResult(
+                    status -> jdbcTemplate.update("INSERT INTO tb_product_change (id) VALUES (1)"));
+            assertEquals("primary", readOrigin());
+        }
+
+        assertEquals(List.of("primary", "replica1"), List.of(readOriginAs("writer"), readOriginAs("reader")));
+        clock.addAndGet(MAX_LAG.plus(CHECK_INTERVAL.multipliedBy(2)).toNanos() - 1);
+        assertEquals("primary", readOriginAs("writer"));
+        clock.incrementAndGet();
+        assertEquals("replica2", readOriginAs("writer"));
+    }
+
+    @Test
+    @DisplayName("Given a lagging and an unreachable replica when the health check runs then reads avoid them")
+    void testGivenLaggingAndUnreachableReplica_whenHealthCheck_thenReadsAvoidThem() {
+
+        primary.update("INSERT INTO tb_product_change (id) VALUES (10)");
+        replica1.update("INSERT INTO tb_product_change (id) VALUES (10)");
+        replica2.update("INSERT INTO tb_product_change (id) VALUES (5)");
+
+        routing.checkHealth();
+        assertEquals(1, routing.replicasInRotation());
+        assertEquals(List.of("replica1", "replica1"), List.of(readOrigin(), readOrigin()));
+
+        // The primary moves on; a replica only has to reach what the primary had maxLag ago.
+        primary.update("INSERT INTO tb_product_change (id) VALUES (20)");
+        clock.addAndGet(CHECK_INTERVAL.toNanos());
+        routing.checkHealth();
+        assertEquals(1, routing.replicasInRotation());
+        clock.addAndGet(MAX_LAG.toNanos());
+        routing.checkHealth();
+        assertEquals(0, routing.replicasInRotation());
+        assertEquals("primary", readOrigin());
+
+        replica2.update("INSERT INTO tb_product_change (id) VALUES (20)");
+        replica1.execute("DROP TABLE tb_product_change");
+        routing.checkHealth();
+        assertEquals(List.of("replica2", "replica2"), List.of(readOrigin(), readOrigin()));
+    }
+
+    @Test
+    @DisplayName("Given a primary reads scope when a read-only transaction runs then it reads the primary")
+    void testGivenPrimaryReadsScope_whenReadOnlyTransaction_thenReadsPrimary() {
+
+        routing.checkHealth();
+
+        assertEquals("primary", PrimaryReads.call(this::readOrigin));
+        assertEquals("replica1", readOrigin());
+    }
+
+    @Test
+    @DisplayName("Given a replica reads scope when reads run then it tells whether a replica served them")
+    void testGivenReplicaReadsScope_whenReadsRun_thenTellWhetherReplicaServed() {
+
+        routing.checkHealth();
+
+        try (ReplicaReads reads = ReplicaReads.track()) {
+            PrimaryReads.call(this::readOrigin);
+            assertFalse(reads.served());
+            readOrigin();
+            assertTrue(reads.served());
+        }
+    }
+
+    private String readOriginAs(String clientId) {
+        try (var client = routing.openClientScope(clientId)) {
+            return readOrigin();
+        }
+    }
+
+    private String readOrigin() {
+        return readOnly.execute(status -> origin());
+    }
+
+    private String origin() {
+        return jdbcTemplate.queryForObject("SELECT name FROM tb_origin", String.class);
+    }
+
+    private static JdbcTemplate database(String name, String run) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + "-" + run + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate database = new JdbcTemplate(dataSource);
+        database.execute("CREATE TABLE tb_product_change (id BIGINT PRIMARY KEY)");
+        database.execute("CREATE TABLE tb_origin (name VARCHAR(20))");
+        database.update("INSERT INTO tb_origin (name) VALUES (?)", name);
+        return database;
+    }
+}
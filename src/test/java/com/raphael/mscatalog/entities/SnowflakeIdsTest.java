@@ -0,0 +1,68 @@
+package com.raphael.mscatalog.entities;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnowflakeIdsTest {
+
+    private final AtomicLong clock = new AtomicLong(SnowflakeIds.EPOCH.toEpochMilli() + 1_000);
+
+    @Test
+    @DisplayName("Given ids created in the same millisecond when comparing them then they are unique, increasing and safe for JavaScript")
+    void testGivenSameMillisecond_whenNext_thenUniqueIncreasingAndSafeIntegers() {
+
+        SnowflakeIds ids = new SnowflakeIds(3, clock::get);
+
+        long previous = 0;
+        for (int i = 0; i < 100; i++) {
+            long id = ids.next();
+            assertTrue(id > previous);
+            assertTrue(id < 1L << 53);
+            previous = id;
+        }
+        assertEquals(SnowflakeIds.EPOCH.plusMillis(1_000), SnowflakeIds.timestampOf(previous));
+    }
+
+    @Test
+    @DisplayName("Given an exhausted sequence or a clock moving back when creating ids then they keep increasing")
+    void testGivenExhaustedSequenceOrClockBack_whenNext_thenKeepIncreasing() {
+
+        SnowflakeIds ids = new SnowflakeIds(0, clock::get);
+        Set<Long> created = new HashSet<>();
+
+        long previous = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (i == 500) {
+                clock.addAndGet(-10);
+            }
+            long id = ids.next();
+            assertTrue(id > previous);
+            assertTrue(created.add(id));
+            previous = id;
+        }
+        // 256 ids per millisecond: the last ones borrow from the following milliseconds.
+        assertEquals(SnowflakeIds.EPOCH.plusMillis(1_003), SnowflakeIds.timestampOf(previous));
+    }
+
+    @Test
+    @DisplayName("Given two workers when creating ids at the same time then they never collide")
+    void testGivenTwoWorkers_whenNext_thenNoCollision() {
+
+        SnowflakeIds worker1 = new SnowflakeIds(1, clock::get);
+        SnowflakeIds worker2 = new SnowflakeIds(2, clock::get);
+        Set<Long> created = new HashSet<>();
+
+        for (int i = 0; i < 300; i++) {
+            assertTrue(created.add(worker1.next()));
+            assertTrue(created.add(worker2.next()));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIds(SnowflakeIds.MAX_WORKER_ID + 1, clock::get));
+    }
+}
@@ -0,0 +1,102 @@
+package com.raphael.mscatalog.ingest;
+
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductIngestJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Given appended requests when replay after restart then return them in order and continue the ids")
+    void testGivenAppendedRequests_whenReplayAfterRestart_thenReturnThemInOrderAndContinueIds() throws Exception {
+
+        Path path = directory.resolve("ingest.journal");
+        try (var journal = new ProductIngestJournal(path, true)) {
+            journal.replay(0);
+            journal.append(null, new ProductCreateDTO("Mouse", "Mouse sem fio", 99.9), request -> {});
+            journal.append(7L, new ProductCreateDTO("Teclado", "Teclado mecânico", 350.0), request -> {});
+        }
+
+        try (var journal = new ProductIngestJournal(path, true)) {
+            List<IngestRequest> requests = journal.replay(0);
+
+            assertEquals(2, requests.size());
+            assertEquals(1, requests.get(0).requestId());
+            assertTrue(requests.get(0).isCreate());
+            assertEquals("Mouse sem fio", requests.get(0).product().getDescription());
+            assertEquals(2, requests.get(1).requestId());
+            assertEquals(7L, requests.get(1).productId());
+            assertEquals("Teclado mecânico", requests.get(1).product().getDescription());
+            assertEquals(350.0, requests.get(1).product().getPrice());
+
+            var next = journal.append(null, new ProductCreateDTO("Monitor", "Monitor 27", 1500.0), request -> {});
+            assertEquals(3, next.requestId());
+        }
+    }
+
+    @Test
+    @DisplayName("Given a torn record at the end when replay then drop it and keep the intact ones")
+    void testGivenTornRecordAtEnd_whenReplay_thenDropItAndKeepIntactOnes() throws Exception {
+
+        Path path = directory.resolve("ingest.journal");
+        long intactSize;
+        try (var journal = new ProductIngestJournal(path, false)) {
+            journal.replay(0);
+            intactSize = journal.append(null, new ProductCreateDTO("Mouse", "Mouse sem fio", 99.9), request -> {})
+                    .journalEnd();
+            journal.append(null, new ProductCreateDTO("Teclado", "Teclado mecânico", 350.0), request -> {});
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(path) - 3);
+        }
+
+        try (var journal = new ProductIngestJournal(path, false)) {
+            List<IngestRequest> requests = journal.replay(0);
+
+            assertEquals(1, requests.size());
+            assertEquals("Mouse", requests.get(0).product().getName());
+            assertEquals(intactSize, Files.size(path));
+            assertEquals(2, journal.append(null, new ProductCreateDTO("Monitor", "Monitor 27", 1500.0),
+                    request -> {}).requestId());
+        }
+    }
+
+    @Test
+    @DisplayName("Given every request applied when truncateIfApplied then empty the file and keep counting ids")
+    void testGivenEveryRequestApplied_whenTruncateIfApplied_thenEmptyFileAndKeepCountingIds() throws Exception {
+
+        Path path = directory.resolve("ingest.journal");
+        try (var journal = new ProductIngestJournal(path, true)) {
+            journal.replay(0);
+            journal.append(null, new ProductCreateDTO("Mouse", "Mouse sem fio", 99.9), request -> {});
+            journal.append(null, new ProductCreateDTO("Teclado", "Teclado mecânico", 350.0), request -> {});
+
+            journal.truncateIfApplied(1);
+            assertTrue(Files.size(path) > 0);
+
+            journal.truncateIfApplied(2);
+            assertEquals(0, Files.size(path));
+            assertEquals(3, journal.append(null, new ProductCreateDTO("Monitor", "Monitor 27", 1500.0),
+                    request -> {}).requestId());
+        }
+
+        try (var journal = new ProductIngestJournal(path, true)) {
+            List<IngestRequest> requests = journal.replay(2);
+
+            assertEquals(1, requests.size());
+            assertEquals(3, requests.get(0).requestId());
+        }
+    }
+}
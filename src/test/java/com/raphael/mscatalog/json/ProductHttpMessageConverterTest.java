@@ -0,0 +1,89 @@
+package com.raphael.mscatalog.json;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductHttpMessageConverterTest {
+
+    private static final TypeReference<List<ProductResponseDTO>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductHttpMessageConverter converter = new ProductHttpMessageConverter(objectMapper, MediaType.APPLICATION_JSON);
+
+    @Test
+    @DisplayName("Given single product when write then produce a JSON object")
+    void testGivenSingleProduct_whenWrite_thenProduceJsonObject() throws Exception {
+
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(new ProductResponseDTO(1L, "Servidor", "Rack", 10000000.0), ProductResponseDTO.class,
+                MediaType.APPLICATION_JSON, outputMessage);
+
+        assertEquals("{\"id\":1,\"name\":\"Servidor\",\"description\":\"Rack\",\"price\":10000000.0}",
+                outputMessage.getBodyAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Given product list when write then produce the same JSON as Jackson")
+    void testGivenProductList_whenWrite_thenProduceSameJsonAsJackson() throws Exception {
+
+        List<ProductResponseDTO> products = List.of(
+                new ProductResponseDTO(1L, "Monitor \"27\"", "Monitor IPS\nçã", 96000L, 3L, Instant.now()),
+                new ProductResponseDTO(2L, "Cabo", "Cabo HDMI", 0.05),
+                new ProductResponseDTO(3L, "Placa", "Placa mãe", 12345678.9),
+                new ProductResponseDTO(4L, "Fracionado", "Preço fora de centavos", 1.005),
+                new ProductResponseDTO(5L, null, null, null));
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(products, PRODUCT_LIST.getType(), MediaType.APPLICATION_JSON, outputMessage);
+
+        String json = outputMessage.getBodyAsString(StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"price\":960.0}") && json.contains("\"price\":0.05}"), json);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(products)), objectMapper.readTree(json));
+        assertEquals(MediaType.APPLICATION_JSON, outputMessage.getHeaders().getContentType());
+    }
+
+    @Test
+    @DisplayName("Given CBOR converter when write product list then produce the same document as Jackson")
+    void testGivenCborConverter_whenWriteProductList_thenProduceSameDocumentAsJackson() throws Exception {
+
+        CBORMapper cborMapper = new CBORMapper();
+        ProductHttpMessageConverter cborConverter = new ProductHttpMessageConverter(cborMapper, MediaType.APPLICATION_CBOR);
+        List<ProductResponseDTO> products = List.of(
+                new ProductResponseDTO(1L, "Monitor", "Monitor IPS", 960.0),
+                new ProductResponseDTO(2L, "Cabo", null, 0.05));
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        cborConverter.write(products, PRODUCT_LIST.getType(), MediaType.APPLICATION_CBOR, outputMessage);
+
+        assertEquals(cborMapper.readTree(cborMapper.writeValueAsBytes(products)),
+                cborMapper.readTree(outputMessage.getBodyAsBytes()));
+        assertEquals(MediaType.APPLICATION_CBOR, outputMessage.getHeaders().getContentType());
+    }
+
+    @Test
+    @DisplayName("Given other body types when canWrite then leave them to Jackson")
+    void testGivenOtherBodyTypes_whenCanWrite_thenLeaveThemToJackson() {
+
+        assertTrue(converter.canWrite(PRODUCT_LIST.getType(), List.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(ProductResponseDTO.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(PRODUCT_LIST.getType(), List.class, MediaType.APPLICATION_XML));
+        assertFalse(converter.canWrite(List.class, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(new TypeReference<List<String>>() {
+        }.getType(), List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(PRODUCT_LIST.getType(), null, MediaType.APPLICATION_JSON));
+    }
+}
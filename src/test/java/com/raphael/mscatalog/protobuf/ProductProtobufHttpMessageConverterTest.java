@@ -0,0 +1,73 @@
+package com.raphael.mscatalog.protobuf;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static com.raphael.mscatalog.protobuf.ProductProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductProtobufHttpMessageConverterTest {
+
+    private static final TypeReference<List<ProductResponseDTO>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    private final ProductProtobufHttpMessageConverter converter = new ProductProtobufHttpMessageConverter();
+
+    @Test
+    @DisplayName("Given product list when write then decode the same products")
+    void testGivenProductList_whenWrite_thenDecodeSameProducts() throws Exception {
+
+        List<ProductResponseDTO> products = List.of(
+                new ProductResponseDTO(1L, "Monitor", "Monitor IPS çã", 960.0),
+                new ProductResponseDTO(300L, "Cabo", "", 0.05));
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+        converter.write(products, PRODUCT_LIST.getType(), APPLICATION_PROTOBUF, outputMessage);
+
+        assertEquals(products, ProductProtobufCodec.readProducts(CodedInputStream.newInstance(outputMessage.getBodyAsBytes())));
+        assertEquals(APPLICATION_PROTOBUF, outputMessage.getHeaders().getContentType());
+    }
+
+    @Test
+    @DisplayName("Given ProductCreate message when read then fill only the fields sent")
+    void testGivenProductCreateMessage_whenRead_thenFillOnlyFieldsSent() throws Exception {
+
+        ProductCreateDTO sent = new ProductCreateDTO();
+        sent.setName("Teclado");
+        sent.setPrice(199.9);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(body);
+        ProductProtobufCodec.writeProductCreate(output, sent);
+        output.flush();
+
+        ProductCreateDTO read = (ProductCreateDTO) converter.read(ProductCreateDTO.class, null,
+                new MockHttpInputMessage(body.toByteArray()));
+
+        assertEquals("Teclado", read.getName());
+        assertNull(read.getDescription());
+        assertEquals(199.9, read.getPrice());
+    }
+
+    @Test
+    @DisplayName("Given truncated message when read then throw HttpMessageNotReadableException")
+    void testGivenTruncatedMessage_whenRead_thenThrowHttpMessageNotReadableException() {
+
+        MockHttpInputMessage inputMessage = new MockHttpInputMessage(new byte[]{0x0a, (byte) 0xff, (byte) 0xff});
+
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> converter.read(ProductCreateDTO.class, null, inputMessage));
+        assertFalse(converter.canRead(ProductResponseDTO.class, APPLICATION_PROTOBUF));
+        assertFalse(converter.canWrite(List.class, List.class, APPLICATION_PROTOBUF));
+    }
+}
@@ -0,0 +1,54 @@
+package com.raphael.mscatalog.repositories;
+
+import com.raphael.mscatalog.entities.IngestCheckpoint;
+import com.raphael.mscatalog.entities.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds the schema the way the prod profile does (Flyway only, Hibernate validating) instead of from schema.sql.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+public class FlywayMigrationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private IngestCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Given the Flyway migrations when the entities are validated and saved then the schema matches them")
+    void testGivenFlywayMigrations_whenEntitiesValidatedAndSaved_thenSchemaMatchesThem() {
+
+        Product saved = productRepository.saveAndFlush(new Product(null, "Monitor", "Monitor IPS de 27 Polegadas", 960.0));
+        checkpointRepository.saveAndFlush(new IngestCheckpoint(IngestCheckpoint.SINGLETON_ID, 42L));
+
+        assertTrue(saved.getId() > 0);
+        assertEquals(0L, saved.getVersion());
+        assertEquals(42L, checkpointRepository.findById(IngestCheckpoint.SINGLETON_ID).get().getLastRequestId());
+    }
+
+    @Test
+    @DisplayName("Given the Flyway migrations when a product is inserted without id then the database refuses to make one up")
+    void testGivenFlywayMigrations_whenProductInsertedWithoutId_thenRejected() {
+
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO tb_product (name, description, price_cents) VALUES ('Monitor', 'Monitor IPS', 96000)"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.sequences "
+                + "WHERE sequence_name LIKE 'TB_PRODUCT%'", Integer.class));
+    }
+}
@@ -1,11 +1,14 @@
 package com.raphael.mscatalog.repositories;
 
+import com.raphael.mscatalog.dto.ProductResponseDTO;
 import com.raphael.mscatalog.entities.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 import java.util.Optional;
@@ -50,6 +53,20 @@ public class ProductRepositoryTest {
         assertEquals(product1.getId(), savedProduct.getId());
     }
 
+    @Test
+    @DisplayName("Given saved products when findResponsesByIdIn then return only existing ids")
+    void testGivenSavedProducts_whenFindResponsesByIdIn_thenReturnOnlyExistingIds() {
+
+        productRepository.save(product1);
+        long missingId = product1.getId() + 1000;
+
+        List<ProductResponseDTO> products = productRepository.findResponsesByIdIn(List.of(missingId, product1.getId()));
+
+        assertEquals(1, products.size());
+        assertEquals(product1.getId(), products.get(0).getId());
+        assertEquals(960.0, products.get(0).getPrice());
+    }
+
     @Test
     @DisplayName("Given product list when findAll then return product list")
     void testGivenProductObject_whenFindAll_thenReturnProductList() {
@@ -67,6 +84,22 @@ public class ProductRepositoryTest {
         assertEquals(2, productList.size());
     }
 
+    @Test
+    @DisplayName("Given cursor when findPageAfter then return next page ordered by id")
+    void testGivenCursor_whenFindPageAfter_thenReturnNextPageOrderedById() {
+
+        Product product2 = new Product(null, "Placa mãe B650M", "Plataforma AM5", 750.0);
+        Product product3 = new Product(null, "Gabinete", "Gabinete Gamer com 6 fans", 250.0);
+        productRepository.save(product1);
+        productRepository.save(product2);
+        productRepository.save(product3);
+
+        List<ProductResponseDTO> page = productRepository.findPageAfter(product1.getId(), Limit.of(1));
+
+        assertEquals(1, page.size());
+        assertEquals(product2.getId(), page.get(0).getId());
+    }
+
     @Test
     @DisplayName("Given product object when update product then return updated product object")
     void testGivenProductObject_whenUpdateProduct_thenReturnUpdatedProductObject() {
@@ -109,7 +142,8 @@ public class ProductRepositoryTest {
         productRepository.save(product1);
         productRepository.save(product2);
 
-        List<Product> savedProducts = productRepository.findByNameOrDescriptionAndPrice("ips", 0D, 999D);
+        List<ProductResponseDTO> savedProducts = productRepository.findByNameOrDescriptionAndPrice("ips", 0L, 99900L,
+                null, null, Sort.unsorted());
 
         assertNotNull(savedProducts);
         assertEquals(1, savedProducts.size());
@@ -117,4 +151,18 @@ public class ProductRepositoryTest {
         assertEquals(product1.getDescription(), savedProducts.get(0).getDescription());
         assertEquals(product1.getPrice(), savedProducts.get(0).getPrice());
     }
+
+    @Test
+    @DisplayName("Given price range and sort when findByNameOrDescriptionAndPrice then return exact matches in order")
+    void testGivenPriceRangeAndSort_whenFindByNameOrDescriptionAndPrice_thenReturnExactMatchesInOrder() {
+
+        productRepository.save(product1);
+        productRepository.save(new Product(null, "Monitor", "Monitor VA de 24 Polegadas", 700.10));
+        productRepository.save(new Product(null, "Monitor", "Monitor TN de 22 Polegadas", 700.09));
+
+        List<ProductResponseDTO> savedProducts = productRepository.findByNameOrDescriptionAndPrice("monitor",
+                70010L, Long.MAX_VALUE, null, null, Sort.by(Sort.Direction.DESC, "priceCents", "id"));
+
+        assertEquals(List.of(960.0, 700.10), savedProducts.stream().map(ProductResponseDTO::getPrice).toList());
+    }
 }
@@ -0,0 +1,63 @@
+package com.raphael.mscatalog.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceIndexTest {
+
+    @Test
+    @DisplayName("Given bulk loaded entries when endBulk then entries are ordered by price and id")
+    void testGivenBulkLoadedEntries_whenEndBulk_thenOrderedByPriceAndId() {
+
+        PriceIndex<Long> priceIndex = new PriceIndex<>();
+        List<long[]> expected = new ArrayList<>();
+        Random random = new Random(42);
+
+        priceIndex.beginBulk();
+        for (long id = 1; id <= 5_000; id++) {
+            long price = random.nextInt(300);
+            priceIndex.add(price, id, id);
+            expected.add(new long[]{price, id});
+        }
+        priceIndex.remove(expected.get(10)[0], 11L);
+        expected.remove(10);
+        priceIndex.endBulk();
+
+        expected.sort(Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+        assertEquals(expected.size(), priceIndex.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i)[0], priceIndex.priceAt(i));
+            assertEquals(expected.get(i)[1], priceIndex.valueAt(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Given sorted index when add and remove then range bounds follow")
+    void testGivenSortedIndex_whenAddAndRemove_thenRangeBoundsFollow() {
+
+        PriceIndex<String> priceIndex = new PriceIndex<>();
+        priceIndex.add(500, 2, "b");
+        priceIndex.add(100, 1, "a");
+        priceIndex.add(500, 3, "c");
+        priceIndex.add(900, 4, "d");
+
+        assertEquals(1, priceIndex.lowerBound(500));
+        assertEquals(3, priceIndex.upperBound(500));
+        assertEquals("b", priceIndex.valueAt(1));
+
+        priceIndex.remove(500, 2);
+        priceIndex.add(500, 3, "c2");
+
+        assertEquals(3, priceIndex.size());
+        assertEquals("c2", priceIndex.valueAt(1));
+        assertEquals(2, priceIndex.upperBound(500));
+        assertEquals(3, priceIndex.lowerBound(901));
+    }
+}
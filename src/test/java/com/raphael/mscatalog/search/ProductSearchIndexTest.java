@@ -0,0 +1,252 @@
+package com.raphael.mscatalog.search;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SearchFacetsDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
+import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex productSearchIndex;
+
+    @BeforeEach
+    public void setUp() {
+
+        productSearchIndex = new ProductSearchIndex(new CatalogMetrics(new SimpleMeterRegistry()));
+        productSearchIndex.beginLoad();
+        productSearchIndex.load(dto(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0));
+        productSearchIndex.load(dto(2L, "Placa mãe B650M", "Plataforma AM5", 750.0));
+        productSearchIndex.load(dto(3L, "Cabo HDMI", "Cabo para monitor", 50.0));
+        productSearchIndex.endLoad();
+    }
+
+    @Test
+    @DisplayName("Given accented query when search then match folded terms")
+    void testGivenAccentedQuery_whenSearch_thenMatchFoldedTerms() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search("MAE", null, null, null);
+
+        assertEquals(1, products.size());
+        assertEquals(2L, products.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Given prefix query when search then rank name hits first")
+    void testGivenPrefixQuery_whenSearch_thenRankNameHitsFirst() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search("moni", null, null, null);
+
+        assertEquals(2, products.size());
+        assertEquals(1L, products.get(0).getId());
+        assertEquals(3L, products.get(1).getId());
+    }
+
+    @Test
+    @DisplayName("Given query and price range when search then filter by price")
+    void testGivenQueryAndPriceRange_whenSearch_thenFilterByPrice() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search("monitor", 0D, 100D, null);
+
+        assertEquals(1, products.size());
+        assertEquals(3L, products.get(0).getId());
+    }
+
+    @Test
+    @DisplayName("Given price range only when search then return products ordered by price")
+    void testGivenPriceRangeOnly_whenSearch_thenReturnProductsOrderedByPrice() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search(null, 100D, null, null);
+
+        assertEquals(List.of(2L, 1L), products.stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Given price sort descending when search then walk the price index backwards")
+    void testGivenPriceSortDescending_whenSearch_thenReturnMostExpensiveFirst() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search(null, 50D, 750D, ProductSort.valueOf("price,desc"));
+
+        assertEquals(List.of(2L, 3L), products.stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Given name sort when search then override relevance order")
+    void testGivenNameSort_whenSearch_thenOverrideRelevanceOrder() {
+
+        List<ProductResponseDTO> products = productSearchIndex.search("monitor", null, null, ProductSort.valueOf("name"));
+
+        assertEquals(List.of(3L, 1L), products.stream().map(ProductResponseDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Given fractional price bounds when search then compare in exact cents")
+    void testGivenFractionalPriceBounds_whenSearch_thenCompareInExactCents() {
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.created(dto(4L, "Adaptador", "Adaptador HDMI", 0.3)));
+
+        assertEquals(1, productSearchIndex.search(null, 0.3, 0.30, null).size());
+        assertTrue(productSearchIndex.search(null, 0.301, null, null).stream().noneMatch(p -> p.getId() == 4L));
+    }
+
+    @Test
+    @DisplayName("Given update and delete events when search then reflect changes")
+    void testGivenUpdateAndDeleteEvents_whenSearch_thenReflectChanges() {
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(dto(1L, "Teclado", "Teclado mecânico", 300.0)));
+        productSearchIndex.onProductChanged(ProductChangedEvent.deleted(3L));
+
+        assertTrue(productSearchIndex.search("monitor", null, null, null).isEmpty());
+        assertEquals(1, productSearchIndex.search("mecanico", null, null, null).size());
+        assertEquals(2, productSearchIndex.size());
+    }
+
+    @Test
+    @DisplayName("Given category and attribute filters when search then return only matching products by price")
+    void testGivenCategoryAndAttributeFilters_whenSearch_thenReturnOnlyMatchingProductsByPrice() {
+
+        loadCatalogWithFacets();
+
+        ProductFilter monitors = ProductFilter.of("Monitores", null, List.of(ProductFilter.Attribute.valueOf("painel:IPS")));
+        List<ProductResponseDTO> products = productSearchIndex.search(null, null, null, monitors, null);
+        List<ProductResponseDTO> matches = productSearchIndex.search("monitor", null, 900D, monitors, null);
+
+        assertEquals(List.of(4L, 1L), products.stream().map(ProductResponseDTO::getId).toList());
+        assertEquals(List.of(4L), matches.stream().map(ProductResponseDTO::getId).toList());
+        assertTrue(productSearchIndex.search(null, null, null, ProductFilter.of("Cabos", "LG", null), null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given query and filter when facets then count only the matches and follow changes")
+    void testGivenQueryAndFilter_whenFacets_thenCountOnlyTheMatchesAndFollowChanges() {
+
+        loadCatalogWithFacets();
+
+        SearchFacetsDTO facets = productSearchIndex.facets("monitor", null, null, ProductFilter.NONE);
+        SearchFacetsDTO lgFacets = productSearchIndex.facets(null, null, null, ProductFilter.of(null, "LG", null));
+        productSearchIndex.onProductChanged(ProductChangedEvent.deleted(4L));
+        SearchFacetsDTO afterDelete = productSearchIndex.facets("monitor", null, null, ProductFilter.NONE);
+
+        assertEquals(3, facets.getTotal());
+        assertEquals("Monitores", facets.getCategories().get(0).getValue());
+        assertEquals(2, facets.getCategories().get(0).getCount());
+        assertEquals(2, facets.getAttributes().get("painel").get(0).getCount());
+        assertEquals(List.of(0L, 1L, 0L, 2L, 0L, 0L),
+                facets.getPrices().stream().map(SearchFacetsDTO.PriceBucket::getCount).toList());
+        assertEquals(2, lgFacets.getTotal());
+        assertEquals(1, lgFacets.getBrands().size());
+        assertEquals(1, afterDelete.getAttributes().get("painel").get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("Given many matches when facets then count from the bitmaps")
+    void testGivenManyMatches_whenFacets_thenCountFromTheBitmaps() {
+
+        productSearchIndex.beginLoad();
+        for (long id = 1; id <= 10_000; id++) {
+            productSearchIndex.load(dto(id, "Produto " + id, "Descricao", 10.0 + id % 2 * 100, "Categoria " + id % 4,
+                    null, Map.of("cor", id % 5 == 0 ? "azul" : "preto")));
+        }
+        productSearchIndex.endLoad();
+
+        SearchFacetsDTO facets = productSearchIndex.facets("produto", null, 50D, ProductFilter.NONE);
+
+        assertEquals(5000, facets.getTotal());
+        assertEquals(List.of("Categoria 0", "Categoria 2"),
+                facets.getCategories().stream().map(SearchFacetsDTO.FacetValue::getValue).toList());
+        assertEquals(2500, facets.getCategories().get(0).getCount());
+        assertEquals(1000, facets.getAttributes().get("cor").get(1).getCount());
+        assertEquals(5000, facets.getPrices().get(0).getCount());
+    }
+
+    @Test
+    @DisplayName("Given prefix when suggest then complete name terms by popularity keeping earlier words")
+    void testGivenPrefix_whenSuggest_thenCompleteNameTermsByPopularityKeepingEarlierWords() {
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.created(dto(4L, "Monitor Gamer", "Tela", 1200.0)));
+        productSearchIndex.onProductChanged(ProductChangedEvent.created(dto(5L, "Mochila", "Notebook", 200.0)));
+
+        List<SuggestionDTO> suggestions = productSearchIndex.suggest("MO", 10);
+        List<SuggestionDTO> withContext = productSearchIndex.suggest("cabo m", 1);
+
+        assertEquals(List.of("monitor", "mochila"), suggestions.stream().map(SuggestionDTO::getText).toList());
+        assertEquals(2, suggestions.get(0).getCount());
+        assertEquals("cabo monitor", withContext.get(0).getText());
+        assertEquals(1, withContext.size());
+        assertTrue(productSearchIndex.suggest("plataforma", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Given typo when suggest then tolerate edits and follow changes")
+    void testGivenTypo_whenSuggest_thenTolerateEditsAndFollowChanges() {
+
+        List<SuggestionDTO> transposed = productSearchIndex.suggest("mointor", 10);
+        List<SuggestionDTO> missingLetter = productSearchIndex.suggest("plca", 10);
+        List<SuggestionDTO> shortTypo = productSearchIndex.suggest("mpn", 10);
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(dto(1L, "Teclado", "Monitor", 300.0)));
+        List<SuggestionDTO> afterUpdate = productSearchIndex.suggest("moni", 10);
+
+        assertEquals(List.of("monitor"), transposed.stream().map(SuggestionDTO::getText).toList());
+        assertEquals(List.of("placa"), missingLetter.stream().map(SuggestionDTO::getText).toList());
+        assertTrue(shortTypo.isEmpty());
+        assertTrue(afterUpdate.isEmpty());
+        assertEquals("teclado", productSearchIndex.suggest("tec", 10).get(0).getText());
+    }
+
+    private void loadCatalogWithFacets() {
+        productSearchIndex.beginLoad();
+        productSearchIndex.load(dto(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0, "Monitores", "LG",
+                Map.of("painel", "IPS", "tamanho", "27")));
+        productSearchIndex.load(dto(2L, "Placa mãe B650M", "Plataforma AM5", 750.0, "Placas", "Maxsun",
+                Map.of("socket", "AM5")));
+        productSearchIndex.load(dto(3L, "Cabo HDMI", "Cabo para monitor", 50.0, "Cabos", null, Map.of()));
+        productSearchIndex.load(dto(4L, "Monitor", "Monitor IPS de 24 Polegadas", 700.0, "Monitores", "LG",
+                Map.of("painel", "IPS", "tamanho", "24")));
+        productSearchIndex.endLoad();
+    }
+
+    @Test
+    @DisplayName("Given change events delivered out of commit order when applied then keep the newest version and the deletion")
+    void testGivenOutOfOrderChangeEvents_whenApplied_thenKeepNewestVersionAndDeletion() {
+
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(versioned(1L, "Teclado", 2L)));
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(versioned(1L, "Mouse", 1L)));
+        productSearchIndex.onProductChanged(ProductChangedEvent.deleted(2L));
+        productSearchIndex.onProductChanged(ProductChangedEvent.updated(versioned(2L, "Placa de vídeo", 5L)));
+
+        assertEquals(List.of(1L), productSearchIndex.search("teclado", null, null, null).stream()
+                .map(ProductResponseDTO::getId).toList());
+        assertTrue(productSearchIndex.search("mouse", null, null, null).isEmpty());
+        assertTrue(productSearchIndex.search("placa", null, null, null).isEmpty());
+        assertEquals(2, productSearchIndex.size());
+    }
+
+    private static ProductResponseDTO versioned(Long id, String name, Long version) {
+        ProductResponseDTO product = dto(id, name, name, 100.0);
+        product.setVersion(version);
+        return product;
+    }
+
+    private static ProductResponseDTO dto(Long id, String name, String description, Double price, String category,
+                                          String brand, Map<String, String> attributes) {
+        ProductResponseDTO product = dto(id, name, description, price);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setAttributes(attributes);
+        return product;
+    }
+
+    private static ProductResponseDTO dto(Long id, String name, String description, Double price) {
+        return new ProductResponseDTO(new Product(id, name, description, price));
+    }
+}
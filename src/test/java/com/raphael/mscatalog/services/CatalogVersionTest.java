@@ -0,0 +1,53 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.search.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CatalogVersionTest {
+
+    @Test
+    @DisplayName("Given product change when listeners run then bump the version after updating the search index")
+    void testGivenProductChange_WhenListenersRun_thenBumpVersionAfterSearchIndex() {
+
+        try (var context = new AnnotationConfigApplicationContext()) {
+            // Registered first, so only the listener order keeps it from running before the index.
+            context.registerBean(RecordingCatalogVersion.class);
+            context.registerBean(CatalogMetrics.class, () -> new CatalogMetrics(new SimpleMeterRegistry()));
+            context.registerBean(ProductSearchIndex.class);
+            context.refresh();
+
+            context.publishEvent(ProductChangedEvent.created(
+                    new ProductResponseDTO(1L, "Monitor", "Monitor IPS", 96000L, 0L, Instant.EPOCH)));
+
+            assertEquals(List.of(1), context.getBean(RecordingCatalogVersion.class).indexSizes);
+        }
+    }
+
+    static class RecordingCatalogVersion extends CatalogVersion {
+
+        private final ProductSearchIndex productSearchIndex;
+        private final List<Integer> indexSizes = new ArrayList<>();
+
+        RecordingCatalogVersion(ProductSearchIndex productSearchIndex) {
+            this.productSearchIndex = productSearchIndex;
+        }
+
+        @Override
+        public void onProductChanged(ProductChangedEvent event) {
+            indexSizes.add(productSearchIndex.size());
+            super.onProductChanged(event);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.dto.BulkItemResultDTO;
+import com.raphael.mscatalog.dto.BulkResultDTO;
+import com.raphael.mscatalog.dto.ProductBulkUpdateDTO;
+import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductBulkServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductChangeFeed productChangeFeed;
+
+    @Mock
+    private SnowflakeIds snowflakeIds;
+
+    private ProductBulkService productBulkService;
+
+    @BeforeEach
+    public void setUp() {
+
+        productBulkService = new ProductBulkService(
+                productRepository,
+                entityManager,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                transactionManager,
+                eventPublisher,
+                productChangeFeed,
+                new ProductShards(1, 0, new CatalogMetrics(new SimpleMeterRegistry())),
+                snowflakeIds
+        );
+    }
+
+    @Test
+    @DisplayName("Given valid and invalid products when createAll then persist only valid ones")
+    void testGivenValidAndInvalidProducts_WhenCreateAll_thenPersistOnlyValidOnes() {
+
+        given(snowflakeIds.next()).willReturn(100L, 101L);
+        given(productRepository.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        var createDTOs = new ArrayList<ProductCreateDTO>();
+        createDTOs.add(new ProductCreateDTO("Monitor", "Monitor IPS de 27 Polegadas", 960.0));
+        createDTOs.add(new ProductCreateDTO("", "Gabinete Gamer com 6 fans", 0D));
+        createDTOs.add(null);
+        createDTOs.add(new ProductCreateDTO("Mouse", "Mouse RGB Gamer", 200.0));
+
+        BulkResultDTO result = productBulkService.createAll(createDTOs);
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(100L, result.getItems().get(0).getId());
+        assertEquals("O preço deve ser maior que zero", result.getItems().get(1).getErrors().get("price"));
+        assertEquals(BulkItemResultDTO.Status.FAILED, result.getItems().get(2).getStatus());
+        assertEquals(101L, result.getItems().get(3).getId());
+        verify(productRepository).flush();
+    }
+
+    @Test
+    @DisplayName("Given missing product when updateAll then report not found for that item")
+    void testGivenMissingProduct_WhenUpdateAll_thenReportNotFound() {
+
+        var product = new Product(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0);
+        given(productRepository.findAllById(any())).willReturn(List.of(product));
+
+        BulkResultDTO result = productBulkService.updateAll(List.of(
+                new ProductBulkUpdateDTO(1L, "Gabinete", "Gabinete Gamer com 6 fans", 250.0),
+                new ProductBulkUpdateDTO(2L, "Teclado", "Teclado RGB Gamer", 400.0)));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(BulkItemResultDTO.Status.UPDATED, result.getItems().get(0).getStatus());
+        assertEquals("Produto com id 2 não encontrado", result.getItems().get(1).getMessage());
+        assertEquals("Gabinete", product.getName());
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Given failing chunk when createAll then retry items one by one")
+    void testGivenFailingChunk_WhenCreateAll_thenRetryItemsOneByOne() {
+
+        given(snowflakeIds.next()).willReturn(7L, 8L);
+        willAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            if (products.size() > 1 || products.get(0).getName().equals("Duplicado")) {
+                throw new IllegalStateException("falha no lote");
+            }
+            return products;
+        }).given(productRepository).saveAll(anyList());
+
+        BulkResultDTO result = productBulkService.createAll(List.of(
+                new ProductCreateDTO("Monitor", "Monitor IPS de 27 Polegadas", 960.0),
+                new ProductCreateDTO("Duplicado", "Produto duplicado", 10.0)));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(7L, result.getItems().get(0).getId());
+        assertEquals("falha no lote", result.getItems().get(1).getMessage());
+    }
+}
@@ -0,0 +1,62 @@
+package com.raphael.mscatalog.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCacheTest {
+
+    private ProductCache productCache;
+
+    @BeforeEach
+    public void setUp() {
+
+        productCache = new ProductCache("products", Caffeine.newBuilder().build(), false);
+    }
+
+    @Test
+    @DisplayName("Given committed update when put older version then keep it out of the cache")
+    void testGivenCommittedUpdate_WhenPutOlderVersion_thenKeepOutOfCache() {
+
+        productCache.put(1L, product(1L, 0L));
+        productCache.invalidate(1L, 1L);
+
+        productCache.put(1L, product(1L, 0L));
+        assertNull(productCache.get(1L));
+
+        productCache.put(1L, product(1L, 1L));
+        assertEquals(1L, productCache.get(1L, ProductResponseDTO.class).getVersion());
+    }
+
+    @Test
+    @DisplayName("Given committed update when load older version then return it without caching it")
+    void testGivenCommittedUpdate_WhenLoadOlderVersion_thenReturnWithoutCaching() {
+
+        productCache.invalidate(1L, 1L);
+
+        ProductResponseDTO loaded = productCache.get(1L, () -> product(1L, 0L));
+
+        assertEquals(0L, loaded.getVersion());
+        assertNull(productCache.get(1L));
+    }
+
+    @Test
+    @DisplayName("Given deleted product when put any version then keep it out of the cache")
+    void testGivenDeletedProduct_WhenPutAnyVersion_thenKeepOutOfCache() {
+
+        productCache.invalidate(1L, Long.MAX_VALUE);
+
+        assertNull(productCache.putIfAbsent(1L, product(1L, 5L)));
+        assertNull(productCache.get(1L));
+    }
+
+    private static ProductResponseDTO product(Long id, Long version) {
+        return new ProductResponseDTO(id, "Monitor", "Monitor IPS", 96000L, version, Instant.EPOCH);
+    }
+}
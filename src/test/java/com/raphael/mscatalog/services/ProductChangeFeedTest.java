@@ -0,0 +1,105 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.ProductShards;
+import com.raphael.mscatalog.dto.ProductChangeBatchDTO;
+import com.raphael.mscatalog.dto.ProductChangeDTO;
+import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.entities.ProductChange;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import com.raphael.mscatalog.repositories.ProductChangeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductChangeFeedTest {
+
+    @Mock
+    private ProductChangeRepository productChangeRepository;
+
+    private ProductChangeFeed productChangeFeed;
+
+    @BeforeEach
+    public void setUp() {
+
+        ProductShards productShards = new ProductShards(1, 0, new CatalogMetrics(new SimpleMeterRegistry()));
+        productChangeFeed = new ProductChangeFeed(productChangeRepository, productShards, Runnable::run);
+        given(productChangeRepository.findLastId()).willReturn(10L);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    @DisplayName("Given uncommitted change when watermark then stay below it until the transaction completes")
+    void testGivenUncommittedChange_WhenWatermark_thenStayBelowUntilCompletion() {
+
+        given(productChangeRepository.save(any(ProductChange.class))).willAnswer(invocation -> {
+            ProductChange change = invocation.getArgument(0);
+            change.setId(11L);
+            return change;
+        });
+
+        productChangeFeed.append(ProductChangedEvent.deleted(1L));
+
+        assertEquals(10L, productChangeFeed.watermark());
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertEquals(11L, productChangeFeed.watermark());
+    }
+
+    @Test
+    @DisplayName("Given waiting client when a change commits then complete the long poll")
+    void testGivenWaitingClient_WhenChangeCommits_thenCompleteLongPoll() {
+
+        var change = new ProductChangeDTO(11L, ProductChangedEvent.Type.CREATED, 1L,
+                "Monitor", "Monitor IPS de 27 Polegadas", 96000L, null, null, null, 0L, Instant.now());
+        given(productChangeRepository.save(any(ProductChange.class))).willAnswer(invocation -> {
+            ProductChange saved = invocation.getArgument(0);
+            saved.setId(11L);
+            return saved;
+        });
+        given(productChangeRepository.findChanges(anyLong(), anyLong(), any(Limit.class)))
+                .willReturn(Collections.emptyList(), Collections.emptyList(), List.of(change));
+
+        CompletableFuture<ProductChangeBatchDTO> poll = productChangeFeed.poll(10L, 100, Duration.ofSeconds(30));
+        assertFalse(poll.isDone());
+
+        productChangeFeed.append(ProductChangedEvent.created(
+                new ProductResponseDTO(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0)));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        ProductChangeBatchDTO batch = poll.join();
+        assertEquals(1, batch.getChanges().size());
+        assertEquals(11L, batch.getNextCursor());
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+    }
+}
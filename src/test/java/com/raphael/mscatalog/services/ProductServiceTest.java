@@ -1,9 +1,19 @@
 package com.raphael.mscatalog.services;
 
+import com.raphael.mscatalog.config.CacheConfig;
+import com.raphael.mscatalog.datasource.ProductShards;
 import com.raphael.mscatalog.dto.ProductCreateDTO;
+import com.raphael.mscatalog.dto.ProductLookupDTO;
 import com.raphael.mscatalog.dto.ProductResponseDTO;
+import com.raphael.mscatalog.dto.SuggestionDTO;
 import com.raphael.mscatalog.entities.Product;
+import com.raphael.mscatalog.entities.SnowflakeIds;
+import com.raphael.mscatalog.events.ProductChangedEvent;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
 import com.raphael.mscatalog.repositories.ProductRepository;
+import com.raphael.mscatalog.search.ProductFilter;
+import com.raphael.mscatalog.search.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,12 +21,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.client.HttpClientErrorException.UnprocessableEntity;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +50,27 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductChangeFeed productChangeFeed;
+
+    @Spy
+    private CacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.PRODUCTS_CACHE);
+
+    @Spy
+    private CatalogMetrics catalogMetrics = new CatalogMetrics(new SimpleMeterRegistry());
+
+    @Spy
+    private ProductShards productShards = new ProductShards(1, 0, catalogMetrics);
+
+    @Mock
+    private SnowflakeIds snowflakeIds;
+
     @InjectMocks
     private ProductService productService;
 
@@ -54,11 +94,13 @@ public class ProductServiceTest {
     @DisplayName("Given product object when Create product then return product object")
     void testGivenProductObject_WhenCreateProduct_thenReturnProductObject() {
 
-        given(productRepository.save(product1)).willReturn(product1);
+        given(snowflakeIds.next()).willReturn(1L);
+        given(productRepository.saveAndFlush(any(Product.class))).willAnswer(invocation -> invocation.getArgument(0));
 
         ProductResponseDTO savedProduct = productService.create(createDTO);
 
         assertNotNull(savedProduct);
+        assertEquals(1L, savedProduct.getId());
         assertEquals(product1.getName(), savedProduct.getName());
         assertEquals(product1.getPrice(), savedProduct.getPrice());
         assertEquals(product1.getDescription(), savedProduct.getDescription());
@@ -68,9 +110,7 @@ public class ProductServiceTest {
     @DisplayName("Given product object when Create product with empty fields then return exception")
     void testGivenProductObject_WhenCreateProductWithEmptyFields_thenReturnException() {
 
-        var invalidProduct = new Product(null, "", "", 0D);
-
-        given(productRepository.save(invalidProduct)).willThrow(UnprocessableEntity.class);
+        given(productRepository.saveAndFlush(any(Product.class))).willThrow(UnprocessableEntity.class);
 
         assertThatThrownBy(() -> productService.create(new ProductCreateDTO())).isInstanceOf(UnprocessableEntity.class);
     }
@@ -79,7 +119,7 @@ public class ProductServiceTest {
     @DisplayName("Given ProductId when findById then return product object")
     void testGivenProductId_WhenFindById_thenReturnProductObject() {
 
-        given(productRepository.findById(anyLong())).willReturn(Optional.of(product1));
+        given(productRepository.findResponseById(anyLong())).willReturn(Optional.of(new ProductResponseDTO(product1)));
 
         ProductResponseDTO product = productService.findById(1L);
 
@@ -93,12 +133,41 @@ public class ProductServiceTest {
     @DisplayName("Given non existent ProductId when findById then return empty")
     void testGivenNonExistentProductId_WhenFindById_thenReturnEmpty() {
 
-        given(productRepository.findById(anyLong())).willReturn(Optional.empty());
+        given(productRepository.findResponseById(anyLong())).willReturn(Optional.empty());
 
         assertThatThrownBy(() -> productService.findById(1L))
                 .isInstanceOf(EntityNotFoundException.class).hasMessage("Produto com id 1 não encontrado");
     }
 
+    @Test
+    @DisplayName("Given cached and uncached ids when findAllById then return products in request order and report missing")
+    void testGivenCachedAndUncachedIds_WhenFindAllById_thenReturnProductsInRequestOrderAndReportMissing() {
+
+        var cached = new ProductResponseDTO(2L, "Teclado", "Teclado mecânico", 350.0);
+        var stored = new ProductResponseDTO(1L, "Monitor", "Monitor IPS de 27 Polegadas", 960.0);
+        cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).put(2L, cached);
+        given(productRepository.findResponsesByIdIn(List.of(1L, 3L))).willReturn(List.of(stored));
+
+        ProductLookupDTO lookup = productService.findAllById(Arrays.asList(2L, 1L, 3L, 2L, null));
+
+        assertEquals(List.of(cached, stored), lookup.getProducts());
+        assertEquals(List.of(3L), lookup.getMissing());
+        assertEquals(stored, cacheManager.getCache(CacheConfig.PRODUCTS_CACHE).get(1L, ProductResponseDTO.class));
+    }
+
+    @Test
+    @DisplayName("Given more ids than a chunk when findAllById then query the database once per chunk")
+    void testGivenMoreIdsThanAChunk_WhenFindAllById_thenQueryDatabaseOncePerChunk() {
+
+        List<Long> ids = LongStream.rangeClosed(1, ProductService.LOOKUP_CHUNK_SIZE * 2L + 1).boxed().toList();
+        given(productRepository.findResponsesByIdIn(anyCollection())).willReturn(List.of());
+
+        ProductLookupDTO lookup = productService.findAllById(ids);
+
+        verify(productRepository, times(3)).findResponsesByIdIn(anyCollection());
+        assertEquals(ids, lookup.getMissing());
+    }
+
     @Test
     @DisplayName("Given products list when findAll products then return products")
     void testGivenProductsList_WhenFindAllProducts_thenReturnProductsList() {
@@ -107,7 +176,8 @@ public class ProductServiceTest {
                 null, "Placa mãe B650M",
                 "Plataforma AM5", 750.0
         );
-        given(productRepository.findAll()).willReturn(List.of(product1, product2));
+        given(productRepository.findAllResponses())
+                .willReturn(List.of(new ProductResponseDTO(product1), new ProductResponseDTO(product2)));
 
         List<ProductResponseDTO> productList = productService.findAll();
 
@@ -119,13 +189,26 @@ public class ProductServiceTest {
     @DisplayName("Given empty products list when findAll products then return empty products list")
     void testGivenEmptyProductsList_WhenFindAllProducts_thenReturnEmptyProductsList() {
 
-        given(productRepository.findAll()).willReturn(Collections.emptyList());
+        given(productRepository.findAllResponses()).willReturn(Collections.emptyList());
 
         List<ProductResponseDTO> productList = productService.findAll();
 
         assertTrue(productList.isEmpty());
     }
 
+    @Test
+    @DisplayName("Given cursor and oversized page when findPage then clamp page size")
+    void testGivenCursorAndOversizedPage_WhenFindPage_thenClampPageSize() {
+
+        given(productRepository.findPageAfter(10L, Limit.of(ProductService.MAX_PAGE_SIZE)))
+                .willReturn(List.of(new ProductResponseDTO(product1)));
+
+        List<ProductResponseDTO> productList = productService.findPage(10L, 50_000);
+
+        assertEquals(1, productList.size());
+        verify(productRepository).findPageAfter(10L, Limit.of(ProductService.MAX_PAGE_SIZE));
+    }
+
     @Test
     @DisplayName("Given Product Object when Update product then return updated product object")
     void testGivenProductObject_WhenUpdateProduct_thenReturnUpdatedProductObject() {
@@ -137,7 +220,7 @@ public class ProductServiceTest {
                 "Gabinete Gamer com 6 fans",
                 250.0
         );
-        ProductResponseDTO updatedProduct = productService.update(1L, updateDTO);
+        ProductResponseDTO updatedProduct = productService.update(1L, updateDTO, null);
 
         assertNotNull(updatedProduct);
         assertEquals("Gabinete", updatedProduct.getName());
@@ -156,10 +239,22 @@ public class ProductServiceTest {
                 "Gabinete Gamer com 6 fans",
                 250.0
         );
-        assertThatThrownBy(() -> productService.update(1L, updateDTO))
+        assertThatThrownBy(() -> productService.update(1L, updateDTO, null))
                 .isInstanceOf(EntityNotFoundException.class).hasMessage("Produto com id 1 não encontrado");
     }
 
+    @Test
+    @DisplayName("Given stale expected version when Update then throw optimistic locking failure")
+    void testGivenStaleExpectedVersion_WhenUpdate_thenThrowOptimisticLockingFailure() {
+
+        product1.setVersion(3L);
+        given(productRepository.findById(1L)).willReturn(Optional.of(product1));
+
+        assertThatThrownBy(() -> productService.update(1L, createDTO, 2L))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(productRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     @DisplayName("Given ProductId when Delete product then do nothing")
     void testGivenProductId_WhenDeleteProduct_thenDoNothing() {
@@ -171,6 +266,8 @@ public class ProductServiceTest {
         productService.delete(product1.getId());
 
         verify(productRepository, times(1)).delete(product1);
+        verify(productChangeFeed).append(ProductChangedEvent.deleted(1L));
+        verify(eventPublisher).publishEvent(ProductChangedEvent.deleted(1L));
     }
 
     @Test
@@ -187,10 +284,11 @@ public class ProductServiceTest {
     @DisplayName("Given name or description and price when findByNameOrDescriptionAndPrice then return product list")
     void testGivenNameOrDescriptionAndPrice_whenFindByNameOrDescriptionAndPrice_thenReturnProductList() {
 
-        given(productRepository.findByNameOrDescriptionAndPrice("ips", 0D, 999D))
-                .willReturn(List.of(product1));
+        given(productRepository.findByNameOrDescriptionAndPrice("ips", 0L, 99900L, null, null,
+                Sort.by("priceCents", "id")))
+                .willReturn(List.of(new ProductResponseDTO(product1)));
 
-        List<ProductResponseDTO> productList = productService.search("ips", 0D, 999D);
+        List<ProductResponseDTO> productList = productService.search("ips", 0D, 999D, null);
 
         assertNotNull(productList);
         assertEquals(1, productList.size());
@@ -201,12 +299,51 @@ public class ProductServiceTest {
     @DisplayName("Given name or description and price when findByNameOrDescriptionAndPrice then return empty product list")
     void testGivenNameOrDescriptionAndPrice_whenFindByNameOrDescriptionAndPrice_thenReturnEmptyProductList() {
 
-        given(productRepository.findByNameOrDescriptionAndPrice(anyString(), anyDouble(), anyDouble()))
+        given(productRepository.findByNameOrDescriptionAndPrice(anyString(), anyLong(), anyLong(), any(), any(), any()))
                 .willReturn(Collections.emptyList());
 
-        List<ProductResponseDTO> productList = productService.search("ips", 0D, 999D);
+        List<ProductResponseDTO> productList = productService.search("ips", 0D, 999D, null);
 
         assertNotNull(productList);
         assertEquals(0, productList.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Given ready search index when search then query the index instead of the database")
+    void testGivenReadySearchIndex_whenSearch_thenQueryIndex() {
+
+        given(productSearchIndex.isReady()).willReturn(true);
+        given(productSearchIndex.search("ips", 0D, 999D, ProductFilter.NONE, null))
+                .willReturn(List.of(new ProductResponseDTO(product1)));
+
+        List<ProductResponseDTO> productList = productService.search("ips", 0D, 999D, null);
+
+        assertEquals(1, productList.size());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Given search index not ready when suggest then return nothing without querying the database")
+    void testGivenSearchIndexNotReady_whenSuggest_thenReturnNothingWithoutQueryingDatabase() {
+
+        given(productSearchIndex.isReady()).willReturn(false);
+
+        List<SuggestionDTO> suggestions = productService.suggest("moni", 10);
+
+        assertTrue(suggestions.isEmpty());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("Given limit above maximum when suggest then cap it")
+    void testGivenLimitAboveMaximum_whenSuggest_thenCapIt() {
+
+        given(productSearchIndex.isReady()).willReturn(true);
+        given(productSearchIndex.suggest("moni", ProductService.MAX_SUGGESTIONS))
+                .willReturn(List.of(new SuggestionDTO("monitor", 1)));
+
+        List<SuggestionDTO> suggestions = productService.suggest("moni", 1000);
+
+        assertEquals(1, suggestions.size());
+    }
+}
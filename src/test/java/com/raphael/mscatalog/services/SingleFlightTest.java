@@ -0,0 +1,154 @@
+package com.raphael.mscatalog.services;
+
+import com.raphael.mscatalog.datasource.PrimaryReads;
+import com.raphael.mscatalog.datasource.ReplicaReads;
+import com.raphael.mscatalog.metrics.CatalogMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> singleFlight =
+            new SingleFlight<>("test", new CatalogMetrics(meterRegistry));
+
+    @Test
+    @DisplayName("Given concurrent calls for the same key when execute then run the loader once and share its result")
+    void testGivenConcurrentCallsForSameKey_whenExecute_thenRunLoaderOnceAndShareResult() throws Exception {
+
+        int callers = 8;
+        var loads = new AtomicInteger();
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("q", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "result";
+            })));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("q", () -> {
+                    loads.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (calls("follower") < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, calls("leader"));
+        assertEquals(0, singleFlight.inFlight());
+        assertEquals("fresh", singleFlight.execute("q", () -> "fresh"));
+    }
+
+    @Test
+    @DisplayName("Given failing loader when execute then throw and forget the key")
+    void testGivenFailingLoader_whenExecute_thenThrowAndForgetKey() {
+
+        assertThatThrownBy(() -> singleFlight.execute("q", () -> {
+            throw new IllegalStateException("banco indisponível");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("banco indisponível");
+
+        assertEquals(0, singleFlight.inFlight());
+        assertEquals("ok", singleFlight.execute("q", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Given a caller pinned to the primary and one that is not when execute concurrently then each runs its own load")
+    void testGivenPinnedAndUnpinnedCallers_whenExecuteConcurrently_thenEachRunsItsOwnLoad() throws Exception {
+
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> unpinned = executor.submit(() -> singleFlight.execute("q", () -> {
+                ReplicaReads.recordServed();
+                loading.countDown();
+                await(release);
+                return "replica";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> pinned = executor.submit(() -> PrimaryReads.call(
+                    () -> singleFlight.execute("q", () -> "primary")));
+
+            assertEquals("primary", pinned.get(5, TimeUnit.SECONDS));
+            release.countDown();
+            assertEquals("replica", unpinned.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, calls("leader"));
+        assertEquals(0, calls("follower"));
+    }
+
+    @Test
+    @DisplayName("Given a load served by a replica when a follower joins it then record the replica read in the follower's scope")
+    void testGivenLoadServedByReplica_whenFollowerJoins_thenRecordReplicaReadForFollower() throws Exception {
+
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("q", () -> {
+                ReplicaReads.recordServed();
+                loading.countDown();
+                await(release);
+                return "replica";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<Boolean> followerFromReplica = executor.submit(() -> {
+                try (ReplicaReads reads = ReplicaReads.track()) {
+                    singleFlight.execute("q", () -> "other");
+                    return reads.served();
+                }
+            });
+            while (calls("follower") < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("replica", leader.get(5, TimeUnit.SECONDS));
+            assertTrue(followerFromReplica.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double calls(String role) {
+        var counter = meterRegistry.find("catalog.singleflight.calls").tags("operation", "test", "role", role).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
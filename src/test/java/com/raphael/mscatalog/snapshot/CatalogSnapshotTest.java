@@ -0,0 +1,69 @@
+package com.raphael.mscatalog.snapshot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Given written products when open the snapshot then read every column back")
+    void testGivenWrittenProducts_whenOpenSnapshot_thenReadEveryColumnBack() throws Exception {
+
+        Path path = write();
+
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CatalogSnapshot snapshot = CatalogSnapshot.open(channel);
+
+            assertEquals(3, snapshot.rows());
+            assertEquals(10, snapshot.id(0));
+            assertEquals("Teclado", snapshot.name(1));
+            assertEquals("Teclado mecânico", snapshot.description(1));
+            assertEquals("Teclado", snapshot.name(2));
+            assertEquals("Teclado de membrana", snapshot.description(2));
+            assertEquals(35000, snapshot.priceCents(1));
+            assertEquals(4, snapshot.version(2));
+            assertEquals(1_700_000_000_123_456L, snapshot.updatedAtMicros(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Given a modified byte when open the snapshot then reject it")
+    void testGivenModifiedByte_whenOpenSnapshot_thenRejectIt() throws Exception {
+
+        Path path = write();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer price = ByteBuffer.allocate(1);
+            channel.read(price, 40);
+            channel.write(price.put(0, (byte) (price.get(0) + 1)).rewind(), 40);
+
+            assertThatThrownBy(() -> CatalogSnapshot.open(channel))
+                    .isInstanceOf(CorruptSnapshotException.class)
+                    .hasMessage("Snapshot checksum mismatch");
+        }
+    }
+
+    private Path write() throws Exception {
+        var writer = new CatalogSnapshotWriter();
+        writer.add(10, "Mouse", "Mouse sem fio", 9990, 0, 1_700_000_000_123_456L);
+        writer.add(11, "Teclado", "Teclado mecânico", 35000, 2, 1_700_000_000_000_000L);
+        writer.add(15, "Teclado", "Teclado de membrana", 8000, 4, 1_700_000_001_000_000L);
+
+        Path path = directory.resolve("catalog.snapshot");
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            writer.writeTo(channel);
+        }
+        return path;
+    }
+}